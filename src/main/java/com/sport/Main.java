@@ -1,17 +1,23 @@
 package com.sport;
 
 import com.sport.controller.DashboardController;
+import com.sport.controller.HttpMetrics;
+import com.sport.controller.MetricsController;
 import com.sport.controller.PlayerController;
 import com.sport.controller.TeamController;
 import com.sport.domain.Player;
 import com.sport.domain.Team;
 import com.sport.util.DBConnection;
+import com.sport.util.SchemaIndexes;
+import com.sport.util.ServerExecutors;
+import com.sun.net.httpserver.HttpContext;
 import com.sun.net.httpserver.HttpServer;
 
 import java.io.IOException;
 import java.lang.reflect.Field;
 import java.net.InetSocketAddress;
-import java.util.concurrent.Executors;
+import java.util.Locale;
+import java.util.concurrent.ExecutorService;
 
 /**
  * Main application class.
@@ -37,6 +43,9 @@ public class Main {
             System.err.println("WARNING: Could not connect to database.");
             System.err.println("Please ensure PostgreSQL is running and database is configured.");
             System.err.println("Continuing with in-memory data only...\n");
+        } else {
+            // Индексы под keyset-страницы: CONCURRENTLY, в фоне, не блокируя запись в таблицы
+            SchemaIndexes.buildInBackground();
         }
 
         // Start HTTP server
@@ -109,30 +118,61 @@ public class Main {
         HttpServer server = HttpServer.create(new InetSocketAddress(PORT), 0);
 
         // Register controllers
-        server.createContext("/api/teams", new TeamController());
-        server.createContext("/api/players", new PlayerController());
-        server.createContext("/api/dashboard", new DashboardController());
+        HttpContext[] contexts = {
+                server.createContext("/api/teams", new TeamController()),
+                server.createContext("/api/players", new PlayerController()),
+                server.createContext("/api/dashboard", new DashboardController()),
+                server.createContext("/api/metrics", new MetricsController())
+        };
+        for (HttpContext context : contexts) {
+            context.getFilters().add(HttpMetrics.FILTER);
+            context.getFilters().add(ServerExecutors.OVERLOAD_FILTER);
+        }
 
-        // Thread pool for handling requests
-        server.setExecutor(Executors.newFixedThreadPool(10));
+        // Request executor: -Dserver.executor=fixed|bounded|virtual
+        ExecutorService executor = ServerExecutors.fromSystemProperties();
+        server.setExecutor(executor);
 
         server.start();
 
+        // Release pooled database connections on Ctrl+C
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            server.stop(0);
+            executor.shutdown();
+            DBConnection.shutdown();
+        }));
+
         System.out.println("Server started successfully!");
         System.out.println("Listening on port: " + PORT);
+        System.out.println("Executor: " + ServerExecutors.configuredMode().name().toLowerCase(Locale.ROOT));
         System.out.println("\nAvailable endpoints:");
         System.out.println("  GET  http://localhost:" + PORT + "/api/dashboard");
         System.out.println("  GET  http://localhost:" + PORT + "/api/dashboard/stats");
+        System.out.println("  GET  http://localhost:" + PORT + "/api/dashboard/pool");
+        System.out.println("  GET  http://localhost:" + PORT + "/api/dashboard/json-cache");
+        System.out.println("  GET  http://localhost:" + PORT + "/api/dashboard/entity-cache");
+        System.out.println("  GET  http://localhost:" + PORT + "/api/metrics");
         System.out.println("  GET  http://localhost:" + PORT + "/api/teams");
+        System.out.println("  GET  http://localhost:" + PORT + "/api/teams?limit=50&after={cursor}");
         System.out.println("  GET  http://localhost:" + PORT + "/api/teams/{id}");
         System.out.println("  GET  http://localhost:" + PORT + "/api/teams/stats");
         System.out.println("  POST http://localhost:" + PORT + "/api/teams");
+        System.out.println("  POST http://localhost:" + PORT + "/api/teams/batch");
+        System.out.println("  PUT  http://localhost:" + PORT + "/api/teams/batch");
+        System.out.println("  POST http://localhost:" + PORT + "/api/teams/import?format=csv|ndjson");
+        System.out.println("  GET  http://localhost:" + PORT + "/api/teams/export?format=ndjson|csv");
         System.out.println("  PUT  http://localhost:" + PORT + "/api/teams/{id}");
         System.out.println("  DELETE http://localhost:" + PORT + "/api/teams/{id}");
         System.out.println("  GET  http://localhost:" + PORT + "/api/players");
+        System.out.println("  GET  http://localhost:" + PORT + "/api/players?limit=50&after={cursor}");
         System.out.println("  GET  http://localhost:" + PORT + "/api/players/{id}");
         System.out.println("  GET  http://localhost:" + PORT + "/api/players/stats");
+        System.out.println("  GET  http://localhost:" + PORT + "/api/players/leaderboard");
         System.out.println("  POST http://localhost:" + PORT + "/api/players");
+        System.out.println("  POST http://localhost:" + PORT + "/api/players/batch");
+        System.out.println("  PUT  http://localhost:" + PORT + "/api/players/batch");
+        System.out.println("  POST http://localhost:" + PORT + "/api/players/import?format=csv|ndjson");
+        System.out.println("  GET  http://localhost:" + PORT + "/api/players/export?format=ndjson|csv");
         System.out.println("  PUT  http://localhost:" + PORT + "/api/players/{id}");
         System.out.println("  DELETE http://localhost:" + PORT + "/api/players/{id}");
         System.out.println("\nPress Ctrl+C to stop the server.");
@@ -0,0 +1,201 @@
+package com.sport;
+
+import com.sport.domain.Player;
+import com.sport.service.impl.PlayerAggregates;
+import com.sport.service.impl.PlayerIndexes;
+import com.sport.util.SnapshotStore;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Стресс-тест пула данных в памяти (SnapshotStore) без базы данных.
+ * Писатели добавляют, обновляют и удаляют игроков, читатели проверяют,
+ * что каждый снимок целый: нет дубликатов, нет null, версия только растёт.
+ * Проверяющий поток сверяет индексы и агрегаты каждого снимка с полным пересчётом.
+ * Запускай отдельно от Main.
+ */
+public class TestConcurrency {
+
+    private static final int WRITERS = 4;
+    private static final int READERS = 16;
+    private static final int INITIAL_PLAYERS = 2_000;
+    private static final long DURATION_MS = 5_000;
+
+    public static void main(String[] args) throws InterruptedException {
+        System.out.println("========================================");
+        System.out.println("   Concurrency Test - SnapshotStore");
+        System.out.println("========================================\n");
+
+        SnapshotStore<Player> store = new SnapshotStore<>(Player::getId,
+                List.of(PlayerIndexes.VIEW, PlayerAggregates.VIEW));
+        store.replaceAll(createPlayers(0, INITIAL_PLAYERS));
+
+        AtomicBoolean running = new AtomicBoolean(true);
+        AtomicLong reads = new AtomicLong();
+        AtomicLong writes = new AtomicLong();
+        AtomicLong viewChecks = new AtomicLong();
+        AtomicLong errors = new AtomicLong();
+        CountDownLatch done = new CountDownLatch(WRITERS + READERS + 1);
+        ExecutorService executor = Executors.newFixedThreadPool(WRITERS + READERS + 1);
+
+        // Писатели: каждый работает со своим диапазоном ID
+        for (int w = 0; w < WRITERS; w++) {
+            int base = INITIAL_PLAYERS + w * 1_000_000;
+            executor.submit(() -> {
+                int next = base;
+                try {
+                    while (running.get()) {
+                        store.put(createPlayer(next));
+                        store.put(movePlayer(next));            // обновление: другая команда, позиция, рейтинг
+                        if (next > base) {
+                            store.remove(next - 1);              // удаление предыдущей
+                        }
+                        store.apply(createPlayers(next + 1, 2), List.of(next));
+                        next += 3;
+                        writes.addAndGet(4);
+                    }
+                } catch (RuntimeException e) {
+                    errors.incrementAndGet();
+                    e.printStackTrace();
+                } finally {
+                    done.countDown();
+                }
+            });
+        }
+
+        // Читатели: проверяют целостность каждого снимка
+        for (int r = 0; r < READERS; r++) {
+            executor.submit(() -> {
+                long lastVersion = 0;
+                try {
+                    while (running.get()) {
+                        SnapshotStore.Snapshot<Player> snapshot = store.snapshot();
+                        if (snapshot.version() < lastVersion) {
+                            fail(errors, "Version went backwards: " + snapshot.version() + " < " + lastVersion);
+                        }
+                        lastVersion = snapshot.version();
+
+                        List<Player> players = snapshot.items();
+                        if (players.size() != snapshot.size()) {
+                            fail(errors, "Size mismatch inside one snapshot");
+                        }
+                        if (players.size() < INITIAL_PLAYERS) {
+                            fail(errors, "Initial players disappeared: " + players.size());
+                        }
+
+                        Set<Integer> ids = new HashSet<>();
+                        double ratingSum = 0;
+                        for (Player player : players) {
+                            if (player == null || !ids.add(player.getId())) {
+                                fail(errors, "Torn snapshot: null or duplicate player");
+                                break;
+                            }
+                            ratingSum += player.getRating();
+                        }
+                        if (ratingSum < 0) {
+                            fail(errors, "Negative rating sum");
+                        }
+                        reads.incrementAndGet();
+                    }
+                } finally {
+                    done.countDown();
+                }
+            });
+        }
+
+        // Проверяющий: инкрементальные представления должны совпадать с пересчётом того же снимка
+        executor.submit(() -> {
+            try {
+                while (running.get()) {
+                    checkViews(store.snapshot(), errors);
+                    viewChecks.incrementAndGet();
+                }
+            } finally {
+                done.countDown();
+            }
+        });
+
+        Thread.sleep(DURATION_MS);
+        running.set(false);
+        done.await(10, TimeUnit.SECONDS);
+        executor.shutdown();
+        checkViews(store.snapshot(), errors);
+
+        System.out.println("Snapshot reads:  " + reads.get());
+        System.out.println("Writes:          " + writes.get());
+        System.out.println("View checks:     " + viewChecks.get());
+        System.out.println("Final size:      " + store.snapshot().size());
+        System.out.println("Final version:   " + store.snapshot().version());
+        System.out.println("Errors:          " + errors.get());
+
+        System.out.println("\n========================================");
+        System.out.println(errors.get() == 0 ? "   PASSED" : "   FAILED");
+        System.out.println("========================================");
+        if (errors.get() > 0) {
+            System.exit(1);
+        }
+    }
+
+    private static void fail(AtomicLong errors, String message) {
+        if (errors.incrementAndGet() <= 10) {
+            System.err.println(message);
+        }
+    }
+
+    private static void checkViews(SnapshotStore.Snapshot<Player> snapshot, AtomicLong errors) {
+        checkView(snapshot, PlayerIndexes.VIEW, errors);
+        checkView(snapshot, PlayerAggregates.VIEW, errors);
+    }
+
+    private static <V> void checkView(SnapshotStore.Snapshot<Player> snapshot,
+                                      SnapshotStore.View<Player, V> view, AtomicLong errors) {
+        V maintained = snapshot.view(view);
+        V recomputed = view.build(snapshot.items());
+        if (!maintained.equals(recomputed)) {
+            fail(errors, "View drifted at version " + snapshot.version()
+                    + ": maintained=" + maintained + ", recomputed=" + recomputed);
+        }
+    }
+
+    private static List<Player> createPlayers(int firstId, int count) {
+        Player[] players = new Player[count];
+        for (int i = 0; i < count; i++) {
+            players[i] = createPlayer(firstId + i);
+        }
+        return List.of(players);
+    }
+
+    private static Player createPlayer(int id) {
+        return new Player.Builder()
+                .id(id)
+                .firstName("Test")
+                .lastName("Player " + id)
+                .age(16 + id % 30)
+                .position(id % 2 == 0 ? "Forward" : "Defender")
+                .rating((id % 100) / 10.0)
+                .jerseyNumber(id % 99)
+                .teamId(id % 3 == 0 ? null : id % 7)
+                .build();
+    }
+
+    private static Player movePlayer(int id) {
+        return new Player.Builder()
+                .id(id)
+                .firstName("Test")
+                .lastName("Player " + id)
+                .age(17 + id % 30)
+                .position(id % 2 == 0 ? "defender" : "Goalkeeper")
+                .rating((id % 100) / 10.0 + 0.5)
+                .jerseyNumber(id % 99)
+                .teamId(id % 3 == 1 ? null : id % 5 + 1)
+                .build();
+    }
+}
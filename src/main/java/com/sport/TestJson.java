@@ -0,0 +1,155 @@
+package com.sport;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonDeserializer;
+import com.google.gson.JsonPrimitive;
+import com.google.gson.JsonSerializer;
+import com.google.gson.reflect.TypeToken;
+import com.sport.domain.Player;
+import com.sport.domain.Team;
+import com.sport.util.JsonUtil;
+
+import java.lang.management.ManagementFactory;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Сравнение сериализации JSON: рефлексивный Gson (как было раньше) против
+ * рукописных адаптеров JsonUtil и кэша готового JSON. Сначала проверяет, что
+ * вывод и чтение совпадают байт в байт, потом меряет пропускную способность
+ * и выделение памяти на операцию. Запускай отдельно от Main.
+ */
+public class TestJson {
+
+    private static final int PLAYERS = 10_000;
+    private static final int TEAMS = 1_000;
+    private static final int WARMUP_ROUNDS = 20;
+    private static final int MEASURE_ROUNDS = 50;
+
+    // Прежняя конфигурация Gson: рефлексия + адаптер дат через DateTimeFormatter
+    private static final Gson REFLECTIVE = new GsonBuilder()
+            .serializeNulls()
+            .registerTypeAdapter(LocalDateTime.class, (JsonSerializer<LocalDateTime>) (src, type, context) ->
+                    new JsonPrimitive(src.format(DateTimeFormatter.ISO_LOCAL_DATE_TIME)))
+            .registerTypeAdapter(LocalDateTime.class, (JsonDeserializer<LocalDateTime>) (json, type, context) ->
+                    LocalDateTime.parse(json.getAsString(), DateTimeFormatter.ISO_LOCAL_DATE_TIME))
+            .create();
+
+    public static void main(String[] args) {
+        System.out.println("========================================");
+        System.out.println("   JSON Test - reflective vs adapters");
+        System.out.println("========================================\n");
+
+        List<Player> players = createPlayers();
+        List<Team> teams = createTeams();
+
+        // 1. Одинаковый вывод
+        String playersJson = REFLECTIVE.toJson(players);
+        String teamsJson = REFLECTIVE.toJson(teams);
+        check("Players serialize identically", playersJson.equals(JsonUtil.toJson(players)));
+        check("Teams serialize identically", teamsJson.equals(JsonUtil.toJson(teams)));
+
+        // 2. Одинаковое чтение
+        List<Player> readPlayers = JsonUtil.fromJsonList(playersJson, Player.class);
+        List<Team> readTeams = JsonUtil.fromJsonList(teamsJson, Team.class);
+        check("Players round-trip", REFLECTIVE.toJson(readPlayers).equals(playersJson));
+        check("Teams round-trip", REFLECTIVE.toJson(readTeams).equals(teamsJson));
+
+        // 3. Кэш JSON: изменённая сущность (новый объект) кодируется заново
+        Player changed = new Player.Builder()
+                .id(players.get(0).getId())
+                .firstName("Changed")
+                .rating(9.9)
+                .build();
+        players.set(0, changed);
+        check("Cache picks up updated entity", REFLECTIVE.toJson(players).equals(JsonUtil.toJson(players)));
+        JsonUtil.invalidatePlayer(changed.getId());
+        check("Cache after invalidation", REFLECTIVE.toJson(players).equals(JsonUtil.toJson(players)));
+
+        // 4. Производительность (запись через JsonUtil идёт через кэш фрагментов)
+        System.out.println();
+        List<Player> reflectiveRead = REFLECTIVE.fromJson(playersJson, new TypeToken<List<Player>>() {}.getType());
+        check("Reflective read sanity", reflectiveRead.size() == PLAYERS);
+
+        measure("write players, reflective", () -> REFLECTIVE.toJson(players));
+        measure("write players, cached    ", () -> JsonUtil.toJson(players));
+        measure("read players, reflective ", () -> REFLECTIVE.fromJson(playersJson, new TypeToken<List<Player>>() {}.getType()));
+        measure("read players, adapters   ", () -> JsonUtil.fromJsonList(playersJson, Player.class));
+        measure("write teams, reflective  ", () -> REFLECTIVE.toJson(teams));
+        measure("write teams, cached      ", () -> JsonUtil.toJson(teams));
+
+        System.out.println("\nJSON cache: " + JsonUtil.getCacheStatistics());
+
+        System.out.println("\n========================================");
+        System.out.println("   DONE");
+        System.out.println("========================================");
+    }
+
+    private static void measure(String name, Supplier<Object> operation) {
+        com.sun.management.ThreadMXBean threads =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        for (int i = 0; i < WARMUP_ROUNDS; i++) {
+            operation.get();
+        }
+        long threadId = Thread.currentThread().getId();
+        long allocatedBefore = threads.getThreadAllocatedBytes(threadId);
+        long start = System.nanoTime();
+        for (int i = 0; i < MEASURE_ROUNDS; i++) {
+            operation.get();
+        }
+        long elapsed = System.nanoTime() - start;
+        long allocated = threads.getThreadAllocatedBytes(threadId) - allocatedBefore;
+
+        System.out.printf("%s  %8.2f ms/op  %10.1f KB/op%n", name,
+                elapsed / 1_000_000.0 / MEASURE_ROUNDS, allocated / 1024.0 / MEASURE_ROUNDS);
+    }
+
+    private static void check(String name, boolean ok) {
+        System.out.println((ok ? "[OK]   " : "[FAIL] ") + name);
+        if (!ok) {
+            System.exit(1);
+        }
+    }
+
+    private static List<Player> createPlayers() {
+        List<Player> players = new ArrayList<>(PLAYERS);
+        LocalDateTime base = LocalDateTime.of(2024, 1, 15, 10, 30, 0);
+        for (int i = 1; i <= PLAYERS; i++) {
+            players.add(new Player.Builder()
+                    .id(i)
+                    .firstName("Player")
+                    .lastName(i % 10 == 0 ? null : "Number \"" + i + "\"")
+                    .age(16 + i % 30)
+                    .position(i % 3 == 0 ? "Defender" : "Forward")
+                    .rating(i % 7 == 0 ? null : (i % 100) / 10.0)
+                    .teamId(i % 5 == 0 ? null : i % 50)
+                    .jerseyNumber(i % 99)
+                    .createdAt(base.plusSeconds(i))
+                    .updatedAt(i % 4 == 0 ? null : base.plusNanos(i * 1_000_000L))
+                    .build());
+        }
+        return players;
+    }
+
+    private static List<Team> createTeams() {
+        List<Team> teams = new ArrayList<>(TEAMS);
+        LocalDateTime base = LocalDateTime.of(2023, 6, 1, 0, 0, 0);
+        for (int i = 1; i <= TEAMS; i++) {
+            teams.add(new Team.Builder()
+                    .id(i)
+                    .name("Team " + i)
+                    .sport(i % 2 == 0 ? "Football" : "Hockey")
+                    .coach("Coach " + i)
+                    .location("City " + i % 20)
+                    .foundedYear(i % 6 == 0 ? null : 1880 + i % 140)
+                    .createdAt(base.plusMinutes(i))
+                    .updatedAt(base.plusNanos(i * 123_456_789L))
+                    .build());
+        }
+        return teams;
+    }
+}
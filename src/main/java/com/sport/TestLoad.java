@@ -0,0 +1,155 @@
+package com.sport;
+
+import com.sport.util.ServerExecutors;
+import com.sun.net.httpserver.HttpContext;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Нагрузочный тест режимов executor'а HTTP-сервера без базы данных.
+ * "Медленный" эндпоинт имитирует JDBC-запрос: занимает одно из 10 соединений
+ * и ждёт DB_LATENCY_MS. "Быстрый" эндпоинт отвечает из памяти, как запросы
+ * к пулам данных. Для каждого режима печатает пропускную способность,
+ * задержку быстрых запросов и число ответов 503.
+ * Режим virtual требует Java 21+, на более старой JVM он работает как bounded.
+ * Запускай отдельно от Main.
+ */
+public class TestLoad {
+
+    private static final int DB_CONNECTIONS = 10;
+    private static final long DB_LATENCY_MS = 200;
+    private static final int SLOW_REQUESTS = 300;
+    private static final int FAST_REQUESTS = 300;
+
+    public static void main(String[] args) throws Exception {
+        System.out.println("========================================");
+        System.out.println("   Load Test - HTTP executor modes");
+        System.out.println("   Java " + Runtime.version() + ", DB latency " + DB_LATENCY_MS + " ms");
+        System.out.println("========================================\n");
+
+        for (ServerExecutors.Mode mode : ServerExecutors.Mode.values()) {
+            run(mode);
+        }
+    }
+
+    private static void run(ServerExecutors.Mode mode) throws Exception {
+        Semaphore connections = new Semaphore(DB_CONNECTIONS, true);
+        HttpServer server = HttpServer.create(new InetSocketAddress("localhost", 0), 1024);
+
+        HttpContext slow = server.createContext("/slow", exchange -> {
+            // Имитация запроса к БД через пул соединений
+            connections.acquireUninterruptibly();
+            try {
+                Thread.sleep(DB_LATENCY_MS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                connections.release();
+            }
+            respond(exchange, "{\"success\":true}");
+        });
+        HttpContext fast = server.createContext("/fast", exchange -> respond(exchange, "{\"success\":true}"));
+        slow.getFilters().add(ServerExecutors.OVERLOAD_FILTER);
+        fast.getFilters().add(ServerExecutors.OVERLOAD_FILTER);
+
+        ExecutorService executor = ServerExecutors.create(mode, 10, 100);
+        server.setExecutor(executor);
+        server.start();
+
+        String base = "http://localhost:" + server.getAddress().getPort();
+        HttpClient client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(10))
+                .build();
+
+        AtomicInteger ok = new AtomicInteger();
+        AtomicInteger overloaded = new AtomicInteger();
+        AtomicInteger failed = new AtomicInteger();
+        List<Long> fastLatencies = Collections.synchronizedList(new ArrayList<>());
+        List<CompletableFuture<?>> requests = new ArrayList<>();
+
+        long start = System.nanoTime();
+        for (int i = 0; i < Math.max(SLOW_REQUESTS, FAST_REQUESTS); i++) {
+            if (i < SLOW_REQUESTS) {
+                requests.add(send(client, base + "/slow", ok, overloaded, failed, null));
+            }
+            if (i < FAST_REQUESTS) {
+                requests.add(send(client, base + "/fast", ok, overloaded, failed, fastLatencies));
+            }
+        }
+        CompletableFuture.allOf(requests.toArray(new CompletableFuture<?>[0])).join();
+        long elapsedMs = (System.nanoTime() - start) / 1_000_000;
+
+        server.stop(0);
+        executor.shutdownNow();
+
+        List<Long> sorted = new ArrayList<>(fastLatencies);
+        Collections.sort(sorted);
+
+        System.out.println("Mode: " + mode);
+        System.out.println("  Elapsed:          " + elapsedMs + " ms");
+        System.out.println("  Throughput:       " + (ok.get() * 1000L / Math.max(1, elapsedMs)) + " req/s");
+        System.out.println("  200 OK:           " + ok.get());
+        System.out.println("  503 overloaded:   " + overloaded.get());
+        System.out.println("  Failed:           " + failed.get());
+        System.out.println("  Fast p50 / p99:   " + percentile(sorted, 50) + " / " + percentile(sorted, 99) + " ms");
+        System.out.println();
+    }
+
+    private static CompletableFuture<?> send(HttpClient client, String url, AtomicInteger ok,
+                                             AtomicInteger overloaded, AtomicInteger failed,
+                                             List<Long> latencies) {
+        long started = System.nanoTime();
+        HttpRequest request = HttpRequest.newBuilder(URI.create(url)).timeout(Duration.ofSeconds(60)).build();
+        return client.sendAsync(request, HttpResponse.BodyHandlers.ofString())
+                .handle((response, error) -> {
+                    if (error != null) {
+                        failed.incrementAndGet();
+                    } else if (response.statusCode() == 503) {
+                        overloaded.incrementAndGet();
+                    } else if (response.statusCode() == 200) {
+                        ok.incrementAndGet();
+                        if (latencies != null) {
+                            latencies.add((System.nanoTime() - started) / 1_000_000);
+                        }
+                    } else {
+                        failed.incrementAndGet();
+                    }
+                    return null;
+                });
+    }
+
+    private static long percentile(List<Long> sorted, int percentile) {
+        if (sorted.isEmpty()) {
+            return 0;
+        }
+        int index = (int) Math.ceil(percentile / 100.0 * sorted.size()) - 1;
+        return sorted.get(Math.max(0, index));
+    }
+
+    private static void respond(HttpExchange exchange, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(200, bytes.length);
+        try (OutputStream os = exchange.getResponseBody()) {
+            os.write(bytes);
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package com.sport.controller;
+
+import com.sun.net.httpserver.HttpExchange;
+
+import java.io.IOException;
+
+/**
+ * ETag support for responses built from the in-memory data pools.
+ * The tag is derived from the pool versions, so a matching If-None-Match is
+ * answered with 304 before the service or the serializer is touched, and a
+ * compressed body cached for the same tag is sent as is. A strong tag promises
+ * identical bytes, so the envelope timestamp of a tagged body is the time the
+ * data was published, not the time of the request.
+ */
+final class ConditionalGet {
+
+    // Pool versions restart at 0 with the process; the boot stamp keeps old tags from matching
+    private static final String BOOT_ID = Long.toString(System.currentTimeMillis(), 36);
+
+    private ConditionalGet() {
+        throw new UnsupportedOperationException("Utility class cannot be instantiated");
+    }
+
+    /**
+     * Builds a strong ETag for a resource from the versions of the pools it is computed from.
+     *
+     * @param resource short name of the resource, e.g. "players"
+     * @param versions data pool versions
+     * @return quoted entity tag
+     */
+    static String etag(String resource, long... versions) {
+        StringBuilder tag = new StringBuilder(32).append('"').append(resource).append('-').append(BOOT_ID);
+        for (long version : versions) {
+            tag.append('-').append(version);
+        }
+        return tag.append('"').toString();
+    }
+
+    /**
+     * Sets the ETag on the response and answers 304 if the client already has it,
+     * or the cached compressed body if there is one for this tag.
+     *
+     * @param dataTimestamp publication time of the pool versions in the tag, see {@link #timestamp}
+     * @return true if the response was sent and the handler must stop
+     */
+    static boolean answered(Request request, String etag, long dataTimestamp) throws IOException {
+        // Не атрибут обмена: в JDK 17 атрибуты HttpExchange общие для всего HttpContext
+        request.dataTimestamp = dataTimestamp;
+        HttpExchange exchange = request.exchange();
+        exchange.getResponseHeaders().set("ETag", etag);
+        // Клиент обязан перепроверять, но может использовать свою копию после 304
+        exchange.getResponseHeaders().set("Cache-Control", "no-cache");
+        exchange.getResponseHeaders().set("Vary", "Accept-Encoding");
+
+        String ifNoneMatch = exchange.getRequestHeaders().getFirst("If-None-Match");
+        if (ifNoneMatch == null || !matches(ifNoneMatch, etag)) {
+            return ResponseCompression.sendCached(exchange, etag);
+        }
+        exchange.sendResponseHeaders(304, -1);
+        exchange.close();
+        return true;
+    }
+
+    /**
+     * Drops the validators set by {@link #answered}: an error response is not the
+     * representation the tag names and must not be revalidated or cached with it.
+     */
+    static void clear(HttpExchange exchange) {
+        exchange.getResponseHeaders().remove("ETag");
+        exchange.getResponseHeaders().remove("Cache-Control");
+    }
+
+    /**
+     * Envelope timestamp for the response body: the data timestamp passed to
+     * {@link #answered} for a tagged response, the current time otherwise.
+     */
+    static long timestamp(Request request) {
+        return request.dataTimestamp != 0 ? request.dataTimestamp : System.currentTimeMillis();
+    }
+
+    /**
+     * Weak comparison over a comma-separated If-None-Match list, as RFC 9110 requires for GET.
+     */
+    private static boolean matches(String ifNoneMatch, String etag) {
+        int start = 0;
+        int length = ifNoneMatch.length();
+        while (start < length) {
+            int end = ifNoneMatch.indexOf(',', start);
+            if (end < 0) {
+                end = length;
+            }
+            int from = start;
+            int to = end;
+            while (from < to && Character.isWhitespace(ifNoneMatch.charAt(from))) {
+                from++;
+            }
+            while (to > from && Character.isWhitespace(ifNoneMatch.charAt(to - 1))) {
+                to--;
+            }
+            if (to - from == 1 && ifNoneMatch.charAt(from) == '*') {
+                return true;
+            }
+            if (ifNoneMatch.startsWith("W/", from)) {
+                from += 2;
+            }
+            if (to - from == etag.length() && ifNoneMatch.regionMatches(from, etag, 0, etag.length())) {
+                return true;
+            }
+            start = end + 1;
+        }
+        return false;
+    }
+}
@@ -1,9 +1,16 @@
 package com.sport.controller;
 
+import com.sport.domain.Player;
+import com.sport.domain.PlayerSummary;
+import com.sport.domain.Team;
+import com.sport.domain.TeamSummary;
+import com.sport.factory.RepositoryFactory;
 import com.sport.factory.ServiceFactory;
 import com.sport.service.interfaces.PlayerService;
 import com.sport.service.interfaces.TeamService;
+import com.sport.util.DBConnection;
 import com.sport.util.JsonUtil;
+import com.sport.util.Log;
 import com.sun.net.httpserver.HttpExchange;
 import com.sun.net.httpserver.HttpHandler;
 
@@ -11,6 +18,7 @@ import java.io.IOException;
 import java.io.OutputStream;
 import java.nio.charset.StandardCharsets;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 /**
@@ -18,13 +26,38 @@ import java.util.Map;
  */
 public class DashboardController implements HttpHandler {
 
+    private static final Log LOG = Log.get(DashboardController.class);
+
     private final TeamService teamService;
     private final PlayerService playerService;
+    private final Router router;
 
     public DashboardController() {
         // Используем твою Factory для получения сервисов
         this.teamService = ServiceFactory.createTeamService();
         this.playerService = ServiceFactory.createPlayerService();
+        this.router = new Router("Dashboard")
+                // Полная статистика (?fields=summary - списки в виде узких проекций)
+                .get("/api/dashboard", request -> {
+                    if (!answered(request, "dashboard")) {
+                        sendSuccess(request, 200, buildDashboardData(request.summaryFields()));
+                    }
+                })
+                // Только быстрые цифры (верхние карточки)
+                .get("/api/dashboard/stats", request -> {
+                    if (!answered(request, "dashboard-stats")) {
+                        sendSuccess(request, 200, buildQuickStats());
+                    }
+                })
+                // Загрузка пула соединений с БД
+                .get("/api/dashboard/pool", request ->
+                        sendSuccess(request, 200, DBConnection.getPoolStatistics()))
+                // Попадания в кэш готового JSON
+                .get("/api/dashboard/json-cache", request ->
+                        sendSuccess(request, 200, JsonUtil.getCacheStatistics()))
+                // Попадания в кэш сущностей по ID
+                .get("/api/dashboard/entity-cache", request ->
+                        sendSuccess(request, 200, RepositoryFactory.getCacheStatistics()));
     }
 
     @Override
@@ -40,36 +73,30 @@ public class DashboardController implements HttpHandler {
             return;
         }
 
-        String method = exchange.getRequestMethod();
-        String path = exchange.getRequestURI().getPath();
-
         // Дашборд работает только на чтение (GET)
-        if (!"GET".equals(method)) {
-            sendResponse(exchange, 405, JsonUtil.createErrorResponse("Method not allowed"));
-            return;
-        }
-
         try {
-            if (path.equals("/api/dashboard")) {
-                // Полная статистика
-                Map<String, Object> dashboard = buildDashboardData();
-                sendResponse(exchange, 200, JsonUtil.createSuccessResponse(dashboard));
-
-            } else if (path.equals("/api/dashboard/stats")) {
-                // Только быстрые цифры (верхние карточки)
-                Map<String, Object> stats = buildQuickStats();
-                sendResponse(exchange, 200, JsonUtil.createSuccessResponse(stats));
-
-            } else {
-                sendResponse(exchange, 404, JsonUtil.createErrorResponse("Endpoint not found"));
+            switch (router.dispatch(exchange)) {
+                case NOT_FOUND:
+                    sendResponse(exchange, 404, JsonUtil.createErrorResponse("Endpoint not found"));
+                    break;
+                case METHOD_NOT_ALLOWED:
+                    sendResponse(exchange, 405, JsonUtil.createErrorResponse("Method not allowed"));
+                    break;
+                default:
+                    break;
             }
         } catch (Exception e) {
-            e.printStackTrace(); // Логируем ошибку в консоль сервера
+            LOG.error("Request failed", e, "method", exchange.getRequestMethod(),
+                    "path", exchange.getRequestURI().getPath());
+            if (exchange.getResponseCode() != -1) {
+                // Заголовки уже отправлены: 500 не отправить, обрываем соединение, чтобы клиент увидел неполный ответ
+                throw new IOException("Response failed after headers were sent", e);
+            }
             sendResponse(exchange, 500, JsonUtil.createErrorResponse("Internal server error: " + e.getMessage()));
         }
     }
 
-    private Map<String, Object> buildDashboardData() {
+    private Map<String, Object> buildDashboardData(boolean summary) {
         Map<String, Object> dashboard = new HashMap<>();
 
         // Основные цифры
@@ -81,13 +108,16 @@ public class DashboardController implements HttpHandler {
 
         // Недавние команды (сортируем по ID по убыванию, чтобы видеть новые, или по имени)
         // Если в ServiceImpl есть сортировка "id", лучше использовать false (descending)
-        dashboard.put("recentTeams", teamService.sortTeams("name", true));
+        List<Team> recentTeams = teamService.sortTeams("name", true);
+        dashboard.put("recentTeams", summary ? recentTeams.stream().map(TeamSummary::of).toList() : recentTeams);
 
         // Топ игроков
-        dashboard.put("topPlayers", playerService.getTopRatedPlayers(5));
+        List<Player> topPlayers = playerService.getTopRatedPlayers(5);
+        dashboard.put("topPlayers", summary ? topPlayers.stream().map(PlayerSummary::of).toList() : topPlayers);
 
         // Свободные агенты
-        dashboard.put("freeAgents", playerService.getFreeAgents());
+        List<Player> freeAgents = playerService.getFreeAgents();
+        dashboard.put("freeAgents", summary ? freeAgents.stream().map(PlayerSummary::of).toList() : freeAgents);
 
         return dashboard;
     }
@@ -109,7 +139,31 @@ public class DashboardController implements HttpHandler {
         return stats;
     }
 
+    // Дашборд строится из обоих пулов данных, поэтому ETag зависит от обеих версий
+    private boolean answered(Request request, String resource) throws IOException {
+        return ConditionalGet.answered(request, ConditionalGet.etag(resource,
+                teamService.getDataVersion(), playerService.getDataVersion()),
+                Math.max(teamService.getDataTimestamp(), playerService.getDataTimestamp()));
+    }
+
+    private void sendSuccess(Request request, int statusCode, Object data) throws IOException {
+        HttpExchange exchange = request.exchange();
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        // Заголовки отправит поток: малый ответ - как есть, большой - сжатым, если клиент принимает
+        // Без try-with-resources: close() завершил бы усечённое тело как успешный ответ
+        ResponseCompression.NegotiatingOutputStream body = ResponseCompression.open(exchange, statusCode);
+        try {
+            JsonUtil.writeSuccessResponse(body, data, request.queryFlag("pretty"), ConditionalGet.timestamp(request));
+        } catch (IOException | RuntimeException e) {
+            body.abort();
+            throw e;
+        }
+        body.close();
+    }
+
+    // Только ошибки: ETag мог быть выставлен до того, как обработчик упал
     private void sendResponse(HttpExchange exchange, int statusCode, String response) throws IOException {
+        ConditionalGet.clear(exchange);
         byte[] responseBytes = response.getBytes(StandardCharsets.UTF_8);
         exchange.getResponseHeaders().set("Content-Type", "application/json");
         exchange.sendResponseHeaders(statusCode, responseBytes.length);
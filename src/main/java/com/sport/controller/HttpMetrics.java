@@ -0,0 +1,79 @@
+package com.sport.controller;
+
+import com.sport.util.Metrics;
+import com.sun.net.httpserver.Filter;
+import com.sun.net.httpserver.HttpExchange;
+
+import java.io.IOException;
+import java.util.Locale;
+
+/**
+ * Request count and latency per route. The {@link Router} reports the matched route
+ * template, so {@code /api/players/7} and {@code /api/players/8} share one series;
+ * requests no route matched are labelled "unmatched". Methods outside the standard
+ * set are labelled "other", so clients cannot create new series at will.
+ */
+public final class HttpMetrics {
+
+    // Не атрибут обмена: в JDK 17 HttpExchange.setAttribute пишет в общий для контекста Map.
+    // Фильтры и обработчик выполняются в одном потоке
+    private static final ThreadLocal<String> ROUTE = new ThreadLocal<>();
+
+    private static final Metrics.Family<Metrics.Counter> REQUESTS = Metrics.counter("http_requests_total",
+            "HTTP requests by route and status", "method", "route", "status");
+    private static final Metrics.Family<Metrics.Timer> LATENCY = Metrics.timer("http_request_duration_seconds",
+            "Time from dispatch until the handler returned, body included", "method", "route");
+
+    /**
+     * Add first to every context, so requests rejected by later filters are counted too.
+     */
+    public static final Filter FILTER = new Filter() {
+        @Override
+        public void doFilter(HttpExchange exchange, Chain chain) throws IOException {
+            long start = System.nanoTime();
+            ROUTE.remove();
+            try {
+                chain.doFilter(exchange);
+            } finally {
+                String route = ROUTE.get();
+                ROUTE.remove();
+                String method = methodLabel(exchange.getRequestMethod());
+                String routeLabel = route != null ? route : "unmatched";
+                LATENCY.labels(method, routeLabel).record(System.nanoTime() - start);
+                // -1: ответ так и не был отправлен (обрыв или исключение до заголовков)
+                REQUESTS.labels(method, routeLabel, String.valueOf(exchange.getResponseCode())).inc();
+            }
+        }
+
+        @Override
+        public String description() {
+            return "Records request count and latency per route";
+        }
+    };
+
+    /**
+     * Called by the handler thread once the request was matched to a route template.
+     */
+    static void routeMatched(String template) {
+        ROUTE.set(template);
+    }
+
+    private static String methodLabel(String method) {
+        String upper = method.toUpperCase(Locale.ROOT);
+        switch (upper) {
+            case "GET":
+            case "POST":
+            case "PUT":
+            case "DELETE":
+            case "OPTIONS":
+            case "HEAD":
+                return upper;
+            default:
+                return "other";
+        }
+    }
+
+    private HttpMetrics() {
+        throw new UnsupportedOperationException("Utility class cannot be instantiated");
+    }
+}
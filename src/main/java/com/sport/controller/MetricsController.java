@@ -0,0 +1,38 @@
+package com.sport.controller;
+
+import com.sport.util.Metrics;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * GET /api/metrics - all metrics in the Prometheus text format, for scraping.
+ */
+public class MetricsController implements HttpHandler {
+
+    @Override
+    public void handle(HttpExchange exchange) throws IOException {
+        if (!"GET".equalsIgnoreCase(exchange.getRequestMethod())) {
+            exchange.sendResponseHeaders(405, -1);
+            exchange.close();
+            return;
+        }
+        HttpMetrics.routeMatched("/api/metrics");
+        exchange.getResponseHeaders().set("Content-Type", "text/plain; version=0.0.4; charset=utf-8");
+        // Закрываем только после полной записи, иначе усечённый текст ушёл бы как 200
+        ResponseCompression.NegotiatingOutputStream body = ResponseCompression.open(exchange, 200);
+        Writer writer = new OutputStreamWriter(body, StandardCharsets.UTF_8);
+        try {
+            Metrics.writePrometheus(writer);
+            writer.flush();
+        } catch (IOException | RuntimeException e) {
+            body.abort();
+            throw e;
+        }
+        body.close();
+    }
+}
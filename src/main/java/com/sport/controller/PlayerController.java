@@ -5,7 +5,10 @@ import com.sport.exception.EntityNotFoundException;
 import com.sport.exception.ValidationException;
 import com.sport.factory.ServiceFactory;
 import com.sport.service.interfaces.PlayerService;
+import com.sport.util.BulkImport;
 import com.sport.util.JsonUtil;
+import com.sport.util.Log;
+import com.sport.util.Page;
 import com.sun.net.httpserver.HttpExchange;
 import com.sun.net.httpserver.HttpHandler;
 
@@ -15,16 +18,32 @@ import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.io.OutputStream;
 import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
 public class PlayerController implements HttpHandler {
 
+    private static final Log LOG = Log.get(PlayerController.class);
+
     private final PlayerService playerService;
+    private final Router router;
 
     public PlayerController() {
         // Используем ServiceFactory для получения сервиса
         this.playerService = ServiceFactory.createPlayerService();
+        this.router = new Router("Player")
+                .get("/api/players/stats", this::handleStatistics)
+                .get("/api/players/leaderboard", this::handleLeaderboard)
+                .get("/api/players/{id:int}", this::handleGetById)
+                .get("/api/players", this::handleGetAll)
+                .post("/api/players", this::handleCreate)
+                .post("/api/players/batch", this::handleCreateBatch)
+                .post("/api/players/import", this::handleImport)
+                .get("/api/players/export", this::handleExport)
+                .put("/api/players/batch", this::handleUpdateBatch)
+                .put("/api/players/{id:int}", this::handleUpdate)
+                .delete("/api/players/{id:int}", this::handleDelete);
     }
 
     @Override
@@ -39,98 +58,171 @@ public class PlayerController implements HttpHandler {
             return;
         }
 
-        String method = exchange.getRequestMethod();
-        String path = exchange.getRequestURI().getPath();
-
         try {
-            switch (method) {
-                case "GET":
-                    handleGet(exchange, path);
-                    break;
-                case "POST":
-                    handlePost(exchange, path);
+            switch (router.dispatch(exchange)) {
+                case NOT_FOUND:
+                    sendResponse(exchange, 404, JsonUtil.createErrorResponse("Endpoint not found"));
                     break;
-                case "PUT": // ВОТ ЭТОГО НЕ ХВАТАЛО!
-                    handlePut(exchange, path);
-                    break;
-                case "DELETE": // И ЭТОГО ТОЖЕ
-                    handleDelete(exchange, path);
+                case METHOD_NOT_ALLOWED:
+                    sendResponse(exchange, 405, JsonUtil.createErrorResponse("Method not allowed"));
                     break;
                 default:
-                    sendResponse(exchange, 405, JsonUtil.createErrorResponse("Method not allowed"));
+                    break;
             }
         } catch (EntityNotFoundException e) {
             sendResponse(exchange, 404, JsonUtil.createErrorResponse(e.getMessage()));
         } catch (ValidationException e) {
             sendResponse(exchange, 400, JsonUtil.createErrorResponse(e.getMessage()));
         } catch (Exception e) {
-            e.printStackTrace(); // Пишем ошибку в консоль сервера
+            LOG.error("Request failed", e, "method", exchange.getRequestMethod(),
+                    "path", exchange.getRequestURI().getPath());
+            if (exchange.getResponseCode() != -1) {
+                // Заголовки уже отправлены: 500 не отправить, обрываем соединение, чтобы клиент увидел неполный ответ
+                throw new IOException("Response failed after headers were sent", e);
+            }
             sendResponse(exchange, 500, JsonUtil.createErrorResponse("Internal server error: " + e.getMessage()));
         }
     }
 
-    private void handleGet(HttpExchange exchange, String path) throws IOException {
-        // GET /api/players/stats
-        if (path.equals("/api/players/stats")) {
-            Map<String, Object> stats = playerService.getPlayerStatistics();
-            sendResponse(exchange, 200, JsonUtil.createSuccessResponse(stats));
+    // GET /api/players/stats
+    private void handleStatistics(Request request) throws IOException {
+        if (ConditionalGet.answered(request,
+                ConditionalGet.etag("player-stats", playerService.getDataVersion()),
+                playerService.getDataTimestamp())) {
             return;
         }
+        Map<String, Object> stats = playerService.getPlayerStatistics();
+        sendSuccess(request, 200, stats);
+    }
 
-        // GET /api/players/{id}
-        if (path.matches("/api/players/\\d+")) {
-            Integer id = extractIdFromPath(path);
-            Player player = playerService.getPlayerById(id);
-            sendResponse(exchange, 200, JsonUtil.createSuccessResponse(player));
+    // GET /api/players/{id}
+    private void handleGetById(Request request) throws IOException {
+        Player player = playerService.getPlayerById(request.pathInt("id"));
+        sendSuccess(request, 200, player);
+    }
+
+    // GET /api/players (весь список)
+    // GET /api/players?limit=50&after=<nextCursor>[&fields=summary] (keyset-страница из БД)
+    private void handleGetAll(Request request) throws IOException {
+        if (request.hasQuery("limit") || request.hasQuery("after")) {
+            String after = request.query("after");
+            int limit = request.queryInt("limit", Page.DEFAULT_LIMIT);
+            Page<?> page = request.summaryFields()
+                    ? playerService.getPlayerSummariesPage(after, limit)
+                    : playerService.getPlayersPage(after, limit);
+            sendSuccess(request, 200, page);
+            return;
+        }
+        if (ConditionalGet.answered(request,
+                ConditionalGet.etag("players", playerService.getDataVersion()),
+                playerService.getDataTimestamp())) {
+            return;
+        }
+        List<Player> players = playerService.getAllPlayers();
+        sendSuccess(request, 200, players);
+    }
+
+    /**
+     * GET /api/players/leaderboard?limit=10&offset=0 - page of the leaderboard
+     * GET /api/players/leaderboard?playerId=5          - rank and percentile of one player
+     * GET /api/players/leaderboard?percentile=90       - rating at a percentile
+     */
+    private void handleLeaderboard(Request request) throws IOException {
+        if (ConditionalGet.answered(request,
+                ConditionalGet.etag("leaderboard", playerService.getDataVersion()),
+                playerService.getDataTimestamp())) {
+            return;
+        }
+        String playerId = request.query("playerId", "");
+        if (!playerId.isEmpty()) {
+            Map<String, Object> ranking = playerService.getPlayerRanking(request.queryInt("playerId", 0));
+            sendSuccess(request, 200, ranking);
             return;
         }
 
-        // GET /api/players (весь список)
-        if (path.equals("/api/players")) {
-            List<Player> players = playerService.getAllPlayers();
-            sendResponse(exchange, 200, JsonUtil.createSuccessResponse(players));
+        String percentile = request.query("percentile", "");
+        if (!percentile.isEmpty()) {
+            double value = request.queryDouble("percentile", 0.0);
+            Map<String, Object> result = new LinkedHashMap<>();
+            result.put("percentile", value);
+            result.put("rating", playerService.getRatingAtPercentile(value));
+            sendSuccess(request, 200, result);
             return;
         }
 
-        sendResponse(exchange, 404, JsonUtil.createErrorResponse("Endpoint not found"));
+        int limit = request.queryInt("limit", 10);
+        int offset = request.queryInt("offset", 0);
+
+        Map<String, Object> leaderboard = new LinkedHashMap<>();
+        leaderboard.put("offset", offset);
+        leaderboard.put("totalPlayers", playerService.countPlayers());
+        leaderboard.put("players", playerService.getLeaderboard(offset, limit));
+        sendSuccess(request, 200, leaderboard);
+    }
+
+    // POST /api/players
+    private void handleCreate(Request request) throws IOException {
+        String requestBody = readRequestBody(request.exchange());
+        Player player = JsonUtil.fromJson(requestBody, Player.class);
+        Player created = playerService.createPlayer(player);
+        sendSuccess(request, 201, created);
+    }
+
+    // POST /api/players/batch - JSON-массив игроков, одна транзакция
+    private void handleCreateBatch(Request request) throws IOException {
+        List<Player> players = JsonUtil.fromJsonList(readRequestBody(request.exchange()), Player.class);
+        List<Player> created = playerService.createPlayers(players);
+        sendSuccess(request, 201, created);
     }
 
-    private void handlePost(HttpExchange exchange, String path) throws IOException {
-        if (path.equals("/api/players")) {
-            String requestBody = readRequestBody(exchange);
-            Player player = JsonUtil.fromJson(requestBody, Player.class);
-            Player created = playerService.createPlayer(player);
-            sendResponse(exchange, 201, JsonUtil.createSuccessResponse(created));
-        } else {
-            sendResponse(exchange, 404, JsonUtil.createErrorResponse("Endpoint not found"));
+    // POST /api/players/import?format=csv|ndjson - тело читается потоком прямо в COPY,
+    // плохие строки пропускаются и перечисляются в отчёте
+    private void handleImport(Request request) throws IOException {
+        BulkImport.Format format = request.importFormat();
+        BulkImport.Report report;
+        try (InputStream body = request.exchange().getRequestBody()) {
+            report = playerService.importPlayers(body, format);
         }
+        sendSuccess(request, 200, report);
     }
 
-    // --- НОВЫЙ МЕТОД ДЛЯ ОБНОВЛЕНИЯ (UPDATE) ---
-    private void handlePut(HttpExchange exchange, String path) throws IOException {
-        if (path.matches("/api/players/\\d+")) {
-            Integer id = extractIdFromPath(path);
-            String requestBody = readRequestBody(exchange);
+    // GET /api/players/export?format=ndjson|csv - строки идут из курсора (NDJSON) или COPY TO STDOUT (CSV)
+    // прямо в chunked-ответ, память не зависит от числа строк
+    private void handleExport(Request request) throws IOException {
+        BulkImport.Format format = request.exportFormat();
+        HttpExchange exchange = request.exchange();
+        exchange.getResponseHeaders().set("Content-Type", format.contentType());
+        exchange.getResponseHeaders().set("Content-Disposition",
+                "attachment; filename=\"players." + format.extension() + "\"");
+        // Без try-with-resources: при ошибке посреди выгрузки ответ нельзя завершать как успешный
+        ResponseCompression.StreamingBody body = ResponseCompression.stream(exchange, 200);
+        playerService.exportPlayers(body, format);
+        body.close();
+    }
+
+    // PUT /api/players/batch - JSON-массив игроков с id
+    private void handleUpdateBatch(Request request) throws IOException {
+        List<Player> players = JsonUtil.fromJsonList(readRequestBody(request.exchange()), Player.class);
+        List<Player> updated = playerService.updatePlayers(players);
+        sendSuccess(request, 200, updated);
+    }
 
-            Player player = JsonUtil.fromJson(requestBody, Player.class);
-            player.setId(id); // Важно: ID берем из URL
+    // PUT /api/players/{id}
+    private void handleUpdate(Request request) throws IOException {
+        Integer id = request.pathInt("id");
+        String requestBody = readRequestBody(request.exchange());
 
-            Player updated = playerService.updatePlayer(player);
-            sendResponse(exchange, 200, JsonUtil.createSuccessResponse(updated));
-        } else {
-            sendResponse(exchange, 404, JsonUtil.createErrorResponse("Endpoint not found"));
-        }
+        Player player = JsonUtil.fromJson(requestBody, Player.class);
+        player.setId(id); // Важно: ID берем из URL
+
+        Player updated = playerService.updatePlayer(player);
+        sendSuccess(request, 200, updated);
     }
 
-    // --- НОВЫЙ МЕТОД ДЛЯ УДАЛЕНИЯ (DELETE) ---
-    private void handleDelete(HttpExchange exchange, String path) throws IOException {
-        if (path.matches("/api/players/\\d+")) {
-            Integer id = extractIdFromPath(path);
-            playerService.deletePlayer(id);
-            sendResponse(exchange, 200, JsonUtil.createSuccessResponse("Player deleted successfully"));
-        } else {
-            sendResponse(exchange, 404, JsonUtil.createErrorResponse("Endpoint not found"));
-        }
+    // DELETE /api/players/{id}
+    private void handleDelete(Request request) throws IOException {
+        playerService.deletePlayer(request.pathInt("id"));
+        sendSuccess(request, 200, "Player deleted successfully");
     }
 
     // Вспомогательные методы
@@ -146,7 +238,24 @@ public class PlayerController implements HttpHandler {
         }
     }
 
+    private void sendSuccess(Request request, int statusCode, Object data) throws IOException {
+        HttpExchange exchange = request.exchange();
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        // Заголовки отправит поток: малый ответ - как есть, большой - сжатым, если клиент принимает
+        // Без try-with-resources: close() завершил бы усечённое тело как успешный ответ
+        ResponseCompression.NegotiatingOutputStream body = ResponseCompression.open(exchange, statusCode);
+        try {
+            JsonUtil.writeSuccessResponse(body, data, request.queryFlag("pretty"), ConditionalGet.timestamp(request));
+        } catch (IOException | RuntimeException e) {
+            body.abort();
+            throw e;
+        }
+        body.close();
+    }
+
+    // Только ошибки: ETag мог быть выставлен до того, как обработчик упал
     private void sendResponse(HttpExchange exchange, int statusCode, String response) throws IOException {
+        ConditionalGet.clear(exchange);
         byte[] responseBytes = response.getBytes(StandardCharsets.UTF_8);
         exchange.getResponseHeaders().set("Content-Type", "application/json");
         exchange.sendResponseHeaders(statusCode, responseBytes.length);
@@ -154,9 +263,4 @@ public class PlayerController implements HttpHandler {
             os.write(responseBytes);
         }
     }
-
-    private Integer extractIdFromPath(String path) {
-        String[] parts = path.split("/");
-        return Integer.parseInt(parts[parts.length - 1]);
-    }
-}
\ No newline at end of file
+}
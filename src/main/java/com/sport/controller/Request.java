@@ -0,0 +1,196 @@
+package com.sport.controller;
+
+import com.sport.exception.ValidationException;
+import com.sport.util.BulkImport;
+import com.sun.net.httpserver.HttpExchange;
+
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * A routed request: the exchange plus typed access to path and query parameters.
+ * Path parameters are cut out of the path only when read; the query string is
+ * parsed and URL-decoded on first access. Malformed values throw
+ * {@link ValidationException}, which the controllers answer with 400.
+ */
+public final class Request {
+
+    private final HttpExchange exchange;
+    private final String entityName;
+    private final String path;
+    private final String[] paramNames;
+    private final int[] paramBounds;
+    private Map<String, String> queryParams;
+    // Время публикации данных под ETag ответа (см. ConditionalGet), 0 - ответ без ETag
+    long dataTimestamp;
+
+    Request(HttpExchange exchange, String entityName, String path, String[] paramNames, int[] paramBounds) {
+        this.exchange = exchange;
+        this.entityName = entityName;
+        this.path = path;
+        this.paramNames = paramNames;
+        this.paramBounds = paramBounds;
+    }
+
+    public HttpExchange exchange() {
+        return exchange;
+    }
+
+    // --- Path parameters ---
+
+    /**
+     * Returns a path parameter declared in the route template.
+     *
+     * @throws IllegalArgumentException if the route has no such parameter
+     */
+    public String path(String name) {
+        for (int i = 0; i < paramNames.length; i++) {
+            if (paramNames[i].equals(name)) {
+                return path.substring(paramBounds[i * 2], paramBounds[i * 2 + 1]);
+            }
+        }
+        throw new IllegalArgumentException("Route has no path parameter '" + name + "'");
+    }
+
+    /**
+     * Returns an integer path parameter ({@code {name:int}} in the template).
+     */
+    public int pathInt(String name) {
+        return parseInt(name, path(name));
+    }
+
+    // --- Query parameters ---
+
+    /**
+     * Returns the first value of a query parameter, or null if it is absent.
+     */
+    public String query(String name) {
+        return queryParams().get(name);
+    }
+
+    public boolean hasQuery(String name) {
+        return queryParams().containsKey(name);
+    }
+
+    public String query(String name, String defaultValue) {
+        return queryParams().getOrDefault(name, defaultValue);
+    }
+
+    /**
+     * Returns an integer query parameter, or the default if it is absent or empty.
+     */
+    public int queryInt(String name, int defaultValue) {
+        String value = query(name);
+        return value == null || value.isEmpty() ? defaultValue : parseInt(name, value);
+    }
+
+    /**
+     * Returns a decimal query parameter, or the default if it is absent or empty.
+     */
+    public double queryDouble(String name, double defaultValue) {
+        String value = query(name);
+        if (value == null || value.isEmpty()) {
+            return defaultValue;
+        }
+        try {
+            return Double.parseDouble(value);
+        } catch (NumberFormatException e) {
+            throw new ValidationException(entityName, name + " must be a number");
+        }
+    }
+
+    /**
+     * Flags like {@code ?pretty} or {@code ?pretty=true}; false when absent or "false".
+     */
+    public boolean queryFlag(String name) {
+        String value = query(name);
+        return value != null && !"false".equalsIgnoreCase(value) && !"0".equals(value);
+    }
+
+    /**
+     * {@code ?fields=summary} asks for the narrow projection instead of full entities;
+     * absent or {@code ?fields=full} means full entities.
+     */
+    public boolean summaryFields() {
+        String value = query("fields");
+        if (value == null || value.isEmpty() || "full".equals(value)) {
+            return false;
+        }
+        if ("summary".equals(value)) {
+            return true;
+        }
+        throw new ValidationException(entityName, "fields must be 'summary' or 'full'");
+    }
+
+    /**
+     * Body format of a bulk import: {@code ?format=csv|ndjson}, otherwise text/csv
+     * in Content-Type means CSV and anything else NDJSON.
+     */
+    public BulkImport.Format importFormat() {
+        return bulkFormat("Content-Type");
+    }
+
+    /**
+     * Format of a bulk export: {@code ?format=csv|ndjson}, otherwise text/csv in Accept
+     * means CSV and anything else NDJSON.
+     */
+    public BulkImport.Format exportFormat() {
+        return bulkFormat("Accept");
+    }
+
+    private BulkImport.Format bulkFormat(String mediaTypeHeader) {
+        try {
+            return BulkImport.Format.of(query("format"), exchange.getRequestHeaders().getFirst(mediaTypeHeader));
+        } catch (IllegalArgumentException e) {
+            throw new ValidationException(entityName, e.getMessage());
+        }
+    }
+
+    private Map<String, String> queryParams() {
+        if (queryParams == null) {
+            queryParams = parseQuery(exchange.getRequestURI().getRawQuery());
+        }
+        return queryParams;
+    }
+
+    private static Map<String, String> parseQuery(String rawQuery) {
+        if (rawQuery == null || rawQuery.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        Map<String, String> params = new HashMap<>();
+        int start = 0;
+        while (start <= rawQuery.length()) {
+            int end = rawQuery.indexOf('&', start);
+            if (end < 0) {
+                end = rawQuery.length();
+            }
+            if (end > start) {
+                int eq = rawQuery.indexOf('=', start);
+                String key = eq < 0 || eq > end ? rawQuery.substring(start, end) : rawQuery.substring(start, eq);
+                String value = eq < 0 || eq > end ? "" : rawQuery.substring(eq + 1, end);
+                params.putIfAbsent(decode(key), decode(value));
+            }
+            start = end + 1;
+        }
+        return params;
+    }
+
+    private static String decode(String value) {
+        try {
+            return URLDecoder.decode(value, StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            return value;
+        }
+    }
+
+    private int parseInt(String name, String value) {
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            throw new ValidationException(entityName, name + " must be an integer");
+        }
+    }
+}
@@ -0,0 +1,344 @@
+package com.sport.controller;
+
+import com.sun.net.httpserver.Headers;
+import com.sun.net.httpserver.HttpExchange;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * gzip/deflate response compression negotiated with Accept-Encoding.
+ * Bodies up to -Dhttp.compression.minBytes (default 1 KB) are sent as is with a
+ * Content-Length; larger ones are compressed while they are serialized. Compressed
+ * bodies of responses with an ETag are kept per URL and encoding, so a hot list is
+ * compressed once per data pool version; the cache is bounded by
+ * -Dhttp.compression.cacheBytes (default 16 MB, least recently used out first).
+ * A compressed representation is sent with a weak ETag, as it is not byte-identical
+ * to the uncompressed one.
+ * <p>
+ * Exports use {@link #stream} instead: chunked, compressed on the fly, nothing buffered.
+ */
+final class ResponseCompression {
+
+    private static final int MIN_BYTES = Integer.getInteger("http.compression.minBytes", 1024);
+    private static final long CACHE_BYTES = Long.getLong("http.compression.cacheBytes", 16L * 1024 * 1024);
+
+    // Guarded by itself; access order for LRU eviction
+    private static final Map<String, CachedBody> cache = new LinkedHashMap<>(16, 0.75f, true);
+    private static long cachedBytes;
+
+    private ResponseCompression() {
+        throw new UnsupportedOperationException("Utility class cannot be instantiated");
+    }
+
+    /**
+     * Opens the response body. Headers are sent on the first write past the threshold or on close,
+     * so they can still be set before that. Close it only after the body was written completely;
+     * on failure call {@link NegotiatingOutputStream#abort()} instead.
+     */
+    static NegotiatingOutputStream open(HttpExchange exchange, int statusCode) {
+        exchange.getResponseHeaders().set("Vary", "Accept-Encoding");
+        return new NegotiatingOutputStream(exchange, statusCode, negotiate(exchange.getRequestHeaders()));
+    }
+
+    /**
+     * Opens an unbounded chunked body (exports). Headers are sent on the first write, so an
+     * error before any data can still be answered normally. The body is compressed while
+     * it is written when the client accepts it.
+     */
+    static StreamingBody stream(HttpExchange exchange, int statusCode) {
+        exchange.getResponseHeaders().set("Vary", "Accept-Encoding");
+        return new StreamingBody(exchange, statusCode, negotiate(exchange.getRequestHeaders()));
+    }
+
+    /**
+     * Sends a cached compressed body if one exists for this URL, encoding and ETag.
+     *
+     * @return true if the response was sent
+     */
+    static boolean sendCached(HttpExchange exchange, String etag) throws IOException {
+        String encoding = negotiate(exchange.getRequestHeaders());
+        if (encoding == null) {
+            return false;
+        }
+        CachedBody body;
+        synchronized (cache) {
+            body = cache.get(cacheKey(exchange, encoding));
+        }
+        if (body == null || !body.etag.equals(etag)) {
+            return false;
+        }
+        Headers headers = exchange.getResponseHeaders();
+        headers.set("Content-Type", "application/json");
+        headers.set("Content-Encoding", encoding);
+        headers.set("Vary", "Accept-Encoding");
+        headers.set("ETag", "W/" + etag);
+        exchange.sendResponseHeaders(200, body.bytes.length);
+        try (OutputStream os = exchange.getResponseBody()) {
+            os.write(body.bytes);
+        }
+        return true;
+    }
+
+    /**
+     * Picks gzip or deflate from Accept-Encoding by q-value (gzip on a tie), or null for identity.
+     */
+    static String negotiate(Headers requestHeaders) {
+        String accept = requestHeaders.getFirst("Accept-Encoding");
+        if (accept == null) {
+            return null;
+        }
+        double gzip = -1;
+        double deflate = -1;
+        double any = -1;
+        for (String part : accept.split(",")) {
+            String[] tokens = part.split(";");
+            String coding = tokens[0].trim().toLowerCase(Locale.ROOT);
+            double q = 1.0;
+            for (int i = 1; i < tokens.length; i++) {
+                String param = tokens[i].trim();
+                if (param.startsWith("q=")) {
+                    try {
+                        q = Double.parseDouble(param.substring(2));
+                    } catch (NumberFormatException e) {
+                        q = 0;
+                    }
+                }
+            }
+            switch (coding) {
+                case "gzip":
+                case "x-gzip":
+                    gzip = q;
+                    break;
+                case "deflate":
+                    deflate = q;
+                    break;
+                case "*":
+                    any = q;
+                    break;
+                default:
+                    break;
+            }
+        }
+        if (gzip < 0) {
+            gzip = any;
+        }
+        if (deflate < 0) {
+            deflate = any;
+        }
+        if (gzip <= 0 && deflate <= 0) {
+            return null;
+        }
+        return gzip >= deflate ? "gzip" : "deflate";
+    }
+
+    private static String cacheKey(HttpExchange exchange, String encoding) {
+        String query = exchange.getRequestURI().getRawQuery();
+        return encoding + ' ' + exchange.getRequestURI().getRawPath() + (query != null ? '?' + query : "");
+    }
+
+    private static void store(String key, String etag, byte[] bytes) {
+        if (bytes.length > CACHE_BYTES / 4) {
+            return;
+        }
+        synchronized (cache) {
+            CachedBody previous = cache.put(key, new CachedBody(etag, bytes));
+            cachedBytes += bytes.length - (previous != null ? previous.bytes.length : 0);
+            var it = cache.values().iterator();
+            while (cachedBytes > CACHE_BYTES && it.hasNext()) {
+                cachedBytes -= it.next().bytes.length;
+                it.remove();
+            }
+        }
+    }
+
+    private static final class CachedBody {
+        private final String etag;
+        private final byte[] bytes;
+
+        private CachedBody(String etag, byte[] bytes) {
+            this.etag = etag;
+            this.bytes = bytes;
+        }
+    }
+
+    /**
+     * Chunked body of unknown length. close() completes the response; after a failure the
+     * body must not be closed, so the connection is dropped and the client sees a truncated
+     * transfer instead of a short file that looks complete.
+     */
+    static final class StreamingBody extends OutputStream {
+        private final HttpExchange exchange;
+        private final int statusCode;
+        private final String encoding;
+        private OutputStream target;
+
+        private StreamingBody(HttpExchange exchange, int statusCode, String encoding) {
+            this.exchange = exchange;
+            this.statusCode = statusCode;
+            this.encoding = encoding;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            start().write(b);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            start().write(b, off, len);
+        }
+
+        @Override
+        public void flush() throws IOException {
+            if (target != null) {
+                target.flush();
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            start().close();
+        }
+
+        private OutputStream start() throws IOException {
+            if (target != null) {
+                return target;
+            }
+            if (encoding != null) {
+                exchange.getResponseHeaders().set("Content-Encoding", encoding);
+            }
+            exchange.sendResponseHeaders(statusCode, 0);
+            target = exchange.getResponseBody();
+            if (encoding != null) {
+                target = "gzip".equals(encoding)
+                        ? new GZIPOutputStream(target, 8192)
+                        : new DeflaterOutputStream(target);
+            }
+            return target;
+        }
+    }
+
+    /**
+     * Buffers up to MIN_BYTES, then decides: small bodies go out uncompressed with a
+     * Content-Length, larger ones are compressed into memory (compressed size only)
+     * or, without a usable encoding, streamed chunked.
+     * close() completes the response and may cache it, so a body that failed half-way
+     * must be aborted, never closed.
+     */
+    static final class NegotiatingOutputStream extends OutputStream {
+        private final HttpExchange exchange;
+        private final int statusCode;
+        private final String encoding;
+        private final byte[] buffer = new byte[MIN_BYTES];
+        private int count;
+        private OutputStream target;
+        private ByteArrayOutputStream compressed;
+        private boolean closed;
+        private boolean failed;
+
+        private NegotiatingOutputStream(HttpExchange exchange, int statusCode, String encoding) {
+            this.exchange = exchange;
+            this.statusCode = statusCode;
+            this.encoding = encoding;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            write(new byte[]{(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            if (target == null) {
+                if (count + len <= buffer.length) {
+                    System.arraycopy(b, off, buffer, count, len);
+                    count += len;
+                    return;
+                }
+                start();
+                target.write(buffer, 0, count);
+            }
+            target.write(b, off, len);
+        }
+
+        @Override
+        public void flush() throws IOException {
+            // Nothing is sent before the decision; after it, buffering is up to the target
+            if (target != null && compressed == null) {
+                target.flush();
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (closed || failed) {
+                return;
+            }
+            closed = true;
+            if (target == null) {
+                exchange.sendResponseHeaders(statusCode, count == 0 ? -1 : count);
+                try (OutputStream os = exchange.getResponseBody()) {
+                    os.write(buffer, 0, count);
+                }
+                return;
+            }
+            target.close();
+            if (compressed != null) {
+                byte[] bytes = compressed.toByteArray();
+                // Заголовки ставим только сейчас: при ошибке сериализации ответ об ошибке уйдёт без них
+                Headers headers = exchange.getResponseHeaders();
+                headers.set("Content-Encoding", encoding);
+                String etag = headers.getFirst("ETag");
+                if (etag != null && !etag.startsWith("W/")) {
+                    headers.set("ETag", "W/" + etag);
+                }
+                exchange.sendResponseHeaders(statusCode, bytes.length);
+                try (OutputStream os = exchange.getResponseBody()) {
+                    os.write(bytes);
+                }
+                if (etag != null && !etag.startsWith("W/") && statusCode == 200) {
+                    store(cacheKey(exchange, encoding), etag, bytes);
+                }
+            }
+        }
+
+        /**
+         * Gives up on a body whose serialization failed: nothing more is sent and nothing is
+         * cached. If no headers went out yet, the caller can still answer with an error;
+         * otherwise the chunked body stays unterminated and the connection must be dropped.
+         */
+        void abort() {
+            if (closed || failed) {
+                return;
+            }
+            failed = true;
+            if (compressed != null) {
+                try {
+                    // Освобождает Deflater; пишет только в память
+                    target.close();
+                } catch (IOException e) {
+                    // ByteArrayOutputStream does not throw
+                }
+            }
+        }
+
+        private void start() throws IOException {
+            if (encoding == null) {
+                exchange.sendResponseHeaders(statusCode, 0);
+                target = exchange.getResponseBody();
+                return;
+            }
+            compressed = new ByteArrayOutputStream(16 * 1024);
+            target = "gzip".equals(encoding)
+                    ? new GZIPOutputStream(compressed, 8192)
+                    : new DeflaterOutputStream(compressed);
+        }
+    }
+}
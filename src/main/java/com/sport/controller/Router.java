@@ -0,0 +1,215 @@
+package com.sport.controller;
+
+import com.sun.net.httpserver.HttpExchange;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Dispatches requests by method and path to handlers registered with route templates
+ * such as {@code /api/players/{id:int}}. Templates are compiled once into a trie of path
+ * segments; matching walks the path in place, without regex or String.split, so the
+ * cost per request depends on the path length, not on the number of routes.
+ * <p>
+ * Segment syntax: a literal ({@code stats}), a string parameter ({@code {name}}) or an
+ * integer parameter ({@code {id:int}}, digits only). Literals win over parameters.
+ * Build the router once per controller; dispatching is thread-safe.
+ */
+public final class Router {
+
+    /**
+     * Outcome of {@link #dispatch}.
+     */
+    public enum Result { HANDLED, NOT_FOUND, METHOD_NOT_ALLOWED }
+
+    @FunctionalInterface
+    public interface Handler {
+        void handle(Request request) throws IOException;
+    }
+
+    private final String entityName;
+    private final Node root = new Node();
+    private int maxParams;
+
+    /**
+     * @param entityName entity used in validation errors for malformed parameters
+     */
+    public Router(String entityName) {
+        this.entityName = entityName;
+    }
+
+    public Router get(String template, Handler handler) {
+        return add("GET", template, handler);
+    }
+
+    public Router post(String template, Handler handler) {
+        return add("POST", template, handler);
+    }
+
+    public Router put(String template, Handler handler) {
+        return add("PUT", template, handler);
+    }
+
+    public Router delete(String template, Handler handler) {
+        return add("DELETE", template, handler);
+    }
+
+    /**
+     * Registers a handler for a method and route template.
+     *
+     * @throws IllegalArgumentException if the template is malformed or already registered
+     */
+    public Router add(String method, String template, Handler handler) {
+        if (!template.startsWith("/")) {
+            throw new IllegalArgumentException("Route must start with '/': " + template);
+        }
+        Node node = root;
+        List<String> names = new ArrayList<>();
+        for (String segment : template.substring(1).split("/", -1)) {
+            if (segment.startsWith("{") && segment.endsWith("}")) {
+                String spec = segment.substring(1, segment.length() - 1);
+                int colon = spec.indexOf(':');
+                String name = colon < 0 ? spec : spec.substring(0, colon);
+                String type = colon < 0 ? "string" : spec.substring(colon + 1);
+                if (!type.equals("string") && !type.equals("int")) {
+                    throw new IllegalArgumentException("Unknown parameter type '" + type + "' in " + template);
+                }
+                node = node.paramChild(type.equals("int"), template);
+                names.add(name);
+            } else {
+                node = node.literalChild(segment);
+            }
+        }
+        if (node.handlers.containsKey(method)) {
+            throw new IllegalArgumentException("Duplicate route: " + method + " " + template);
+        }
+        node.handlers.put(method, new Route(handler, names.toArray(new String[0]), template));
+        maxParams = Math.max(maxParams, names.size());
+        return this;
+    }
+
+    /**
+     * Finds the route for the exchange and runs its handler.
+     *
+     * @return HANDLED if a handler ran, otherwise why nothing matched
+     */
+    public Result dispatch(HttpExchange exchange) throws IOException {
+        String path = exchange.getRequestURI().getPath();
+        if (path == null || path.isEmpty() || path.charAt(0) != '/') {
+            return Result.NOT_FOUND;
+        }
+
+        int[] bounds = new int[maxParams * 2];
+        Node node = match(root, path, 1, bounds, 0);
+        if (node == null) {
+            return Result.NOT_FOUND;
+        }
+        Route route = node.handlers.get(exchange.getRequestMethod());
+        if (route == null) {
+            return Result.METHOD_NOT_ALLOWED;
+        }
+        // Шаблон, а не путь: метки метрик не размножаются по ID
+        HttpMetrics.routeMatched(route.template);
+        route.handler.handle(new Request(exchange, entityName, path, route.paramNames, bounds));
+        return Result.HANDLED;
+    }
+
+    /**
+     * Matches the segment starting at {@code start}; literals first, then the parameter,
+     * backtracking if the rest of the path does not match below the literal.
+     */
+    private static Node match(Node node, String path, int start, int[] bounds, int param) {
+        int end = path.indexOf('/', start);
+        if (end < 0) {
+            end = path.length();
+        }
+        boolean last = end == path.length();
+
+        Node literal = node.findLiteral(path, start, end);
+        if (literal != null) {
+            Node found = last ? literal.terminal() : match(literal, path, end + 1, bounds, param);
+            if (found != null) {
+                return found;
+            }
+        }
+
+        Node child = node.param;
+        if (child != null && end > start && (!node.paramIsInt || isDigits(path, start, end))) {
+            bounds[param * 2] = start;
+            bounds[param * 2 + 1] = end;
+            return last ? child.terminal() : match(child, path, end + 1, bounds, param + 1);
+        }
+        return null;
+    }
+
+    private static boolean isDigits(String path, int start, int end) {
+        for (int i = start; i < end; i++) {
+            char c = path.charAt(i);
+            if (c < '0' || c > '9') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static final class Route {
+        private final Handler handler;
+        private final String[] paramNames;
+        private final String template;
+
+        private Route(Handler handler, String[] paramNames, String template) {
+            this.handler = handler;
+            this.paramNames = paramNames;
+            this.template = template;
+        }
+    }
+
+    private static final class Node {
+        private String[] literals = new String[0];
+        private Node[] literalChildren = new Node[0];
+        private Node param;
+        private boolean paramIsInt;
+        private final Map<String, Route> handlers = new HashMap<>();
+
+        private Node literalChild(String segment) {
+            for (int i = 0; i < literals.length; i++) {
+                if (literals[i].equals(segment)) {
+                    return literalChildren[i];
+                }
+            }
+            literals = Arrays.copyOf(literals, literals.length + 1);
+            literalChildren = Arrays.copyOf(literalChildren, literalChildren.length + 1);
+            literals[literals.length - 1] = segment;
+            return literalChildren[literalChildren.length - 1] = new Node();
+        }
+
+        private Node paramChild(boolean isInt, String template) {
+            if (param == null) {
+                param = new Node();
+                paramIsInt = isInt;
+            } else if (paramIsInt != isInt) {
+                throw new IllegalArgumentException("Conflicting parameter types at the same position: " + template);
+            }
+            return param;
+        }
+
+        private Node findLiteral(String path, int start, int end) {
+            int length = end - start;
+            for (int i = 0; i < literals.length; i++) {
+                String literal = literals[i];
+                if (literal.length() == length && path.regionMatches(start, literal, 0, length)) {
+                    return literalChildren[i];
+                }
+            }
+            return null;
+        }
+
+        private Node terminal() {
+            return handlers.isEmpty() ? null : this;
+        }
+    }
+}
@@ -5,7 +5,10 @@ import com.sport.exception.EntityNotFoundException;
 import com.sport.exception.ValidationException;
 import com.sport.factory.ServiceFactory; // Импортируем фабрику
 import com.sport.service.interfaces.TeamService;
+import com.sport.util.BulkImport;
 import com.sport.util.JsonUtil;
+import com.sport.util.Log;
+import com.sport.util.Page;
 import com.sun.net.httpserver.HttpExchange;
 import com.sun.net.httpserver.HttpHandler;
 
@@ -20,11 +23,25 @@ import java.util.Map;
 
 public class TeamController implements HttpHandler {
 
+    private static final Log LOG = Log.get(TeamController.class);
+
     private final TeamService teamService;
+    private final Router router;
 
     public TeamController() {
         // ИСПОЛЬЗУЕМ ФАБРИКУ (Dependency Injection через Factory)
         this.teamService = ServiceFactory.createTeamService();
+        this.router = new Router("Team")
+                .get("/api/teams/stats", this::handleStatistics)
+                .get("/api/teams/{id:int}", this::handleGetById)
+                .get("/api/teams", this::handleGetAll)
+                .post("/api/teams", this::handleCreate)
+                .post("/api/teams/batch", this::handleCreateBatch)
+                .post("/api/teams/import", this::handleImport)
+                .get("/api/teams/export", this::handleExport)
+                .put("/api/teams/batch", this::handleUpdateBatch)
+                .put("/api/teams/{id:int}", this::handleUpdate)
+                .delete("/api/teams/{id:int}", this::handleDelete);
     }
 
     @Override
@@ -39,115 +56,145 @@ public class TeamController implements HttpHandler {
             return;
         }
 
-        String method = exchange.getRequestMethod();
-        String path = exchange.getRequestURI().getPath();
-
         try {
-            switch (method) {
-                case "GET":
-                    handleGet(exchange, path);
-                    break;
-                case "POST":
-                    handlePost(exchange, path);
+            switch (router.dispatch(exchange)) {
+                case NOT_FOUND:
+                    sendResponse(exchange, 404, JsonUtil.createErrorResponse("Endpoint not found"));
                     break;
-                case "PUT":
-                    handlePut(exchange, path);
-                    break;
-                case "DELETE":
-                    handleDelete(exchange, path);
+                case METHOD_NOT_ALLOWED:
+                    sendResponse(exchange, 405, JsonUtil.createErrorResponse("Method not allowed"));
                     break;
                 default:
-                    sendResponse(exchange, 405, JsonUtil.createErrorResponse("Method not allowed"));
+                    break;
             }
         } catch (EntityNotFoundException e) {
             sendResponse(exchange, 404, JsonUtil.createErrorResponse(e.getMessage()));
         } catch (ValidationException e) {
             sendResponse(exchange, 400, JsonUtil.createErrorResponse(e.getMessage()));
         } catch (Exception e) {
-            e.printStackTrace();
+            LOG.error("Request failed", e, "method", exchange.getRequestMethod(),
+                    "path", exchange.getRequestURI().getPath());
+            if (exchange.getResponseCode() != -1) {
+                // Заголовки уже отправлены: 500 не отправить, обрываем соединение, чтобы клиент увидел неполный ответ
+                throw new IOException("Response failed after headers were sent", e);
+            }
             sendResponse(exchange, 500, JsonUtil.createErrorResponse("Internal server error: " + e.getMessage()));
         }
     }
 
-    private void handleGet(HttpExchange exchange, String path) throws IOException {
-        // GET /api/teams/stats
-        if (path.equals("/api/teams/stats")) {
-            Map<String, Object> stats = teamService.getTeamStatistics();
-            sendResponse(exchange, 200, JsonUtil.createSuccessResponse(stats));
+    // GET /api/teams/stats
+    private void handleStatistics(Request request) throws IOException {
+        if (ConditionalGet.answered(request,
+                ConditionalGet.etag("team-stats", teamService.getDataVersion()),
+                teamService.getDataTimestamp())) {
             return;
         }
+        Map<String, Object> stats = teamService.getTeamStatistics();
+        sendSuccess(request, 200, stats);
+    }
+
+    // GET /api/teams/{id}
+    private void handleGetById(Request request) throws IOException {
+        Team team = teamService.getTeamById(request.pathInt("id"));
+        sendSuccess(request, 200, team);
+    }
 
-        // GET /api/teams/{id}
-        if (path.matches("/api/teams/\\d+")) {
-            Integer id = extractIdFromPath(path);
-            Team team = teamService.getTeamById(id);
-            sendResponse(exchange, 200, JsonUtil.createSuccessResponse(team));
+    // GET /api/teams (список + фильтры)
+    // GET /api/teams?limit=50&after=<nextCursor>[&fields=summary] (keyset-страница из БД)
+    private void handleGetAll(Request request) throws IOException {
+        if (request.hasQuery("limit") || request.hasQuery("after")) {
+            String after = request.query("after");
+            int limit = request.queryInt("limit", Page.DEFAULT_LIMIT);
+            Page<?> page = request.summaryFields()
+                    ? teamService.getTeamSummariesPage(after, limit)
+                    : teamService.getTeamsPage(after, limit);
+            sendSuccess(request, 200, page);
             return;
         }
-
-        // GET /api/teams (список + фильтры)
-        if (path.equals("/api/teams")) {
-            String query = exchange.getRequestURI().getQuery();
-
-            if (query != null && query.contains("sport=")) {
-                String sport = extractQueryParam(query, "sport");
-                List<Team> teams = teamService.getTeamsBySport(sport);
-                sendResponse(exchange, 200, JsonUtil.createSuccessResponse(teams));
-
-            } else if (query != null && query.contains("location=")) {
-                String location = extractQueryParam(query, "location");
-                List<Team> teams = teamService.getTeamsByLocation(location);
-                sendResponse(exchange, 200, JsonUtil.createSuccessResponse(teams));
-
-            } else if (query != null && query.contains("sort=")) {
-                String sortBy = extractQueryParam(query, "sort");
-                boolean ascending = !query.contains("order=desc");
-                List<Team> teams = teamService.sortTeams(sortBy, ascending);
-                sendResponse(exchange, 200, JsonUtil.createSuccessResponse(teams));
-
-            } else {
-                List<Team> teams = teamService.getAllTeams();
-                sendResponse(exchange, 200, JsonUtil.createSuccessResponse(teams));
-            }
+        if (ConditionalGet.answered(request,
+                ConditionalGet.etag("teams", teamService.getDataVersion()),
+                teamService.getDataTimestamp())) {
             return;
         }
+        List<Team> teams;
+        if (request.hasQuery("sport")) {
+            teams = teamService.getTeamsBySport(request.query("sport"));
 
-        sendResponse(exchange, 404, JsonUtil.createErrorResponse("Endpoint not found"));
-    }
+        } else if (request.hasQuery("location")) {
+            teams = teamService.getTeamsByLocation(request.query("location"));
+
+        } else if (request.hasQuery("sort")) {
+            boolean ascending = !"desc".equals(request.query("order"));
+            teams = teamService.sortTeams(request.query("sort"), ascending);
 
-    private void handlePost(HttpExchange exchange, String path) throws IOException {
-        if (path.equals("/api/teams")) {
-            String requestBody = readRequestBody(exchange);
-            Team team = JsonUtil.fromJson(requestBody, Team.class);
-            Team created = teamService.createTeam(team);
-            sendResponse(exchange, 201, JsonUtil.createSuccessResponse(created));
         } else {
-            sendResponse(exchange, 404, JsonUtil.createErrorResponse("Endpoint not found"));
+            teams = teamService.getAllTeams();
         }
+        sendSuccess(request, 200, teams);
     }
 
-    private void handlePut(HttpExchange exchange, String path) throws IOException {
-        if (path.matches("/api/teams/\\d+")) {
-            Integer id = extractIdFromPath(path);
-            String requestBody = readRequestBody(exchange);
-            Team team = JsonUtil.fromJson(requestBody, Team.class);
+    // POST /api/teams
+    private void handleCreate(Request request) throws IOException {
+        String requestBody = readRequestBody(request.exchange());
+        Team team = JsonUtil.fromJson(requestBody, Team.class);
+        Team created = teamService.createTeam(team);
+        sendSuccess(request, 201, created);
+    }
 
-            team.setId(id);
-            Team updated = teamService.updateTeam(team);
-            sendResponse(exchange, 200, JsonUtil.createSuccessResponse(updated));
-        } else {
-            sendResponse(exchange, 404, JsonUtil.createErrorResponse("Endpoint not found"));
-        }
+    // POST /api/teams/batch - JSON-массив команд, одна транзакция
+    private void handleCreateBatch(Request request) throws IOException {
+        List<Team> teams = JsonUtil.fromJsonList(readRequestBody(request.exchange()), Team.class);
+        List<Team> created = teamService.createTeams(teams);
+        sendSuccess(request, 201, created);
     }
 
-    private void handleDelete(HttpExchange exchange, String path) throws IOException {
-        if (path.matches("/api/teams/\\d+")) {
-            Integer id = extractIdFromPath(path);
-            teamService.deleteTeam(id);
-            sendResponse(exchange, 200, JsonUtil.createSuccessResponse("Team deleted successfully"));
-        } else {
-            sendResponse(exchange, 404, JsonUtil.createErrorResponse("Endpoint not found"));
+    // POST /api/teams/import?format=csv|ndjson - тело читается потоком прямо в COPY,
+    // плохие строки пропускаются и перечисляются в отчёте
+    private void handleImport(Request request) throws IOException {
+        BulkImport.Format format = request.importFormat();
+        BulkImport.Report report;
+        try (InputStream body = request.exchange().getRequestBody()) {
+            report = teamService.importTeams(body, format);
         }
+        sendSuccess(request, 200, report);
+    }
+
+    // GET /api/teams/export?format=ndjson|csv - строки идут из курсора (NDJSON) или COPY TO STDOUT (CSV)
+    // прямо в chunked-ответ, память не зависит от числа строк
+    private void handleExport(Request request) throws IOException {
+        BulkImport.Format format = request.exportFormat();
+        HttpExchange exchange = request.exchange();
+        exchange.getResponseHeaders().set("Content-Type", format.contentType());
+        exchange.getResponseHeaders().set("Content-Disposition",
+                "attachment; filename=\"teams." + format.extension() + "\"");
+        // Без try-with-resources: при ошибке посреди выгрузки ответ нельзя завершать как успешный
+        ResponseCompression.StreamingBody body = ResponseCompression.stream(exchange, 200);
+        teamService.exportTeams(body, format);
+        body.close();
+    }
+
+    // PUT /api/teams/batch - JSON-массив команд с id
+    private void handleUpdateBatch(Request request) throws IOException {
+        List<Team> teams = JsonUtil.fromJsonList(readRequestBody(request.exchange()), Team.class);
+        List<Team> updated = teamService.updateTeams(teams);
+        sendSuccess(request, 200, updated);
+    }
+
+    // PUT /api/teams/{id}
+    private void handleUpdate(Request request) throws IOException {
+        Integer id = request.pathInt("id");
+        String requestBody = readRequestBody(request.exchange());
+        Team team = JsonUtil.fromJson(requestBody, Team.class);
+
+        team.setId(id);
+        Team updated = teamService.updateTeam(team);
+        sendSuccess(request, 200, updated);
+    }
+
+    // DELETE /api/teams/{id}
+    private void handleDelete(Request request) throws IOException {
+        teamService.deleteTeam(request.pathInt("id"));
+        sendSuccess(request, 200, "Team deleted successfully");
     }
 
     // Вспомогательные методы
@@ -164,7 +211,24 @@ public class TeamController implements HttpHandler {
         }
     }
 
+    private void sendSuccess(Request request, int statusCode, Object data) throws IOException {
+        HttpExchange exchange = request.exchange();
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        // Заголовки отправит поток: малый ответ - как есть, большой - сжатым, если клиент принимает
+        // Без try-with-resources: close() завершил бы усечённое тело как успешный ответ
+        ResponseCompression.NegotiatingOutputStream body = ResponseCompression.open(exchange, statusCode);
+        try {
+            JsonUtil.writeSuccessResponse(body, data, request.queryFlag("pretty"), ConditionalGet.timestamp(request));
+        } catch (IOException | RuntimeException e) {
+            body.abort();
+            throw e;
+        }
+        body.close();
+    }
+
+    // Только ошибки: ETag мог быть выставлен до того, как обработчик упал
     private void sendResponse(HttpExchange exchange, int statusCode, String response) throws IOException {
+        ConditionalGet.clear(exchange);
         byte[] responseBytes = response.getBytes(StandardCharsets.UTF_8);
         exchange.getResponseHeaders().set("Content-Type", "application/json");
         exchange.sendResponseHeaders(statusCode, responseBytes.length);
@@ -172,20 +236,4 @@ public class TeamController implements HttpHandler {
             os.write(responseBytes);
         }
     }
-
-    private Integer extractIdFromPath(String path) {
-        String[] parts = path.split("/");
-        return Integer.parseInt(parts[parts.length - 1]);
-    }
-
-    private String extractQueryParam(String query, String paramName) {
-        String[] pairs = query.split("&");
-        for (String pair : pairs) {
-            String[] keyValue = pair.split("=");
-            if (keyValue.length > 1 && keyValue[0].equals(paramName)) {
-                return keyValue[1];
-            }
-        }
-        return "";
-    }
-}
\ No newline at end of file
+}
@@ -0,0 +1,69 @@
+package com.sport.domain;
+
+import java.util.Objects;
+
+/**
+ * Read-only projection of a player for list views: identity, name, rating and team.
+ * Loaded with a narrow column list, so list pages and the dashboard do not
+ * transfer or serialize the fields they do not show.
+ */
+public final class PlayerSummary {
+
+    private final Integer id;
+    private final String firstName;
+    private final String lastName;
+    private final Double rating;
+    private final Integer teamId;
+
+    public PlayerSummary(Integer id, String firstName, String lastName, Double rating, Integer teamId) {
+        this.id = id;
+        this.firstName = firstName;
+        this.lastName = lastName;
+        this.rating = rating;
+        this.teamId = teamId;
+    }
+
+    public static PlayerSummary of(Player player) {
+        return new PlayerSummary(player.getId(), player.getFirstName(), player.getLastName(),
+                player.getRating(), player.getTeamId());
+    }
+
+    public Integer getId() {
+        return id;
+    }
+
+    public String getFirstName() {
+        return firstName;
+    }
+
+    public String getLastName() {
+        return lastName;
+    }
+
+    public Double getRating() {
+        return rating;
+    }
+
+    public Integer getTeamId() {
+        return teamId;
+    }
+
+    @Override
+    public String toString() {
+        return "PlayerSummary{id=" + id + ", name='" + firstName + " " + lastName + "', rating=" + rating
+                + ", teamId=" + teamId + '}';
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof PlayerSummary)) return false;
+        PlayerSummary that = (PlayerSummary) o;
+        return Objects.equals(id, that.id);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(id);
+    }
+}
@@ -0,0 +1,53 @@
+package com.sport.domain;
+
+import java.util.Objects;
+
+/**
+ * Read-only projection of a team for list views: identity, name and sport.
+ */
+public final class TeamSummary {
+
+    private final Integer id;
+    private final String name;
+    private final String sport;
+
+    public TeamSummary(Integer id, String name, String sport) {
+        this.id = id;
+        this.name = name;
+        this.sport = sport;
+    }
+
+    public static TeamSummary of(Team team) {
+        return new TeamSummary(team.getId(), team.getName(), team.getSport());
+    }
+
+    public Integer getId() {
+        return id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getSport() {
+        return sport;
+    }
+
+    @Override
+    public String toString() {
+        return "TeamSummary{id=" + id + ", name='" + name + "', sport='" + sport + "'}";
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof TeamSummary)) return false;
+        TeamSummary that = (TeamSummary) o;
+        return Objects.equals(id, that.id);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(id);
+    }
+}
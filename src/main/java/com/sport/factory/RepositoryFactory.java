@@ -1,9 +1,15 @@
 package com.sport.factory;
 
+import com.sport.repository.impl.CachingPlayerRepository;
+import com.sport.repository.impl.CachingTeamRepository;
 import com.sport.repository.impl.PlayerRepositoryImpl;
 import com.sport.repository.impl.TeamRepositoryImpl;
 import com.sport.repository.interfaces.PlayerRepository;
 import com.sport.repository.interfaces.TeamRepository;
+import com.sport.util.Metrics;
+
+import java.util.List;
+import java.util.Map;
 
 /**
  * Factory pattern implementation for creating repository instances.
@@ -11,9 +17,17 @@ import com.sport.repository.interfaces.TeamRepository;
  */
 public class RepositoryFactory {
     
-    // Singleton instances (eager initialization)
-    private static final TeamRepository TEAM_REPOSITORY = new TeamRepositoryImpl();
-    private static final PlayerRepository PLAYER_REPOSITORY = new PlayerRepositoryImpl();
+    // Every call that reaches the database is timed; cache hits are not (see entity-cache stats)
+    private static final Metrics.Family<Metrics.Timer> CALLS = Metrics.timer("repository_call_duration_seconds",
+            "Repository method latency, database calls only", "repository", "method");
+    private static final Metrics.Family<Metrics.Counter> ERRORS = Metrics.counter("repository_call_errors_total",
+            "Repository calls that threw", "repository", "method");
+    
+    // Singleton instances (eager initialization), behind a shared read-through cache by ID
+    private static final CachingTeamRepository TEAM_REPOSITORY = new CachingTeamRepository(
+            Metrics.timed(TeamRepository.class, new TeamRepositoryImpl(), CALLS, ERRORS, "team"));
+    private static final CachingPlayerRepository PLAYER_REPOSITORY = new CachingPlayerRepository(
+            Metrics.timed(PlayerRepository.class, new PlayerRepositoryImpl(), CALLS, ERRORS, "player"));
     
     // Private constructor to prevent instantiation
     private RepositoryFactory() {
@@ -38,6 +52,15 @@ public class RepositoryFactory {
         return PLAYER_REPOSITORY;
     }
     
+    /**
+     * Returns hit/miss/eviction statistics of the entity caches.
+     * 
+     * @return one map per cache
+     */
+    public static List<Map<String, Object>> getCacheStatistics() {
+        return List.of(TEAM_REPOSITORY.getCacheStatistics(), PLAYER_REPOSITORY.getCacheStatistics());
+    }
+    
     /**
      * Creates repository by type using generics.
      * Demonstrates Factory pattern with generics.
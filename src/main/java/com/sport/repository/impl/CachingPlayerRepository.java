@@ -0,0 +1,182 @@
+package com.sport.repository.impl;
+
+import com.sport.domain.Player;
+import com.sport.domain.PlayerSummary;
+import com.sport.repository.interfaces.PlayerRepository;
+import com.sport.util.BulkImport;
+import com.sport.util.EntityCache;
+import com.sport.util.PageCursor;
+
+import java.io.OutputStream;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * Decorator that serves findById and existsById from an {@link EntityCache}.
+ * Writes go to the database first and then invalidate the cached entry, so the
+ * next read loads the row as stored (with its timestamps); everything else
+ * is passed through unchanged.
+ */
+public class CachingPlayerRepository implements PlayerRepository {
+
+    private final PlayerRepository delegate;
+    private final EntityCache<Integer, Player> cache = new EntityCache<>("player");
+
+    public CachingPlayerRepository(PlayerRepository delegate) {
+        this.delegate = delegate;
+    }
+
+    public Map<String, Object> getCacheStatistics() {
+        return cache.getStatistics();
+    }
+
+    @Override
+    public Player save(Player player) {
+        Player saved = delegate.save(player);
+        // Сбрасывает и отрицательную запись по этому id
+        cache.invalidate(saved.getId());
+        return saved;
+    }
+
+    @Override
+    public List<Player> saveAll(List<Player> players) {
+        List<Player> saved = delegate.saveAll(players);
+        saved.forEach(player -> cache.invalidate(player.getId()));
+        return saved;
+    }
+
+    @Override
+    public Optional<Player> findById(Integer id) {
+        return cache.get(id, delegate::findById);
+    }
+
+    @Override
+    public List<Player> findAll() {
+        return delegate.findAll();
+    }
+
+    @Override
+    public Stream<Player> streamAll() {
+        return delegate.streamAll();
+    }
+
+    @Override
+    public long forEachEntity(Consumer<? super Player> action) {
+        return delegate.forEachEntity(action);
+    }
+
+    @Override
+    public long exportCsv(OutputStream out) {
+        return delegate.exportCsv(out);
+    }
+
+    @Override
+    public List<Player> findUpdatedSince(LocalDateTime since) {
+        return delegate.findUpdatedSince(since);
+    }
+
+    @Override
+    public List<Integer> findAllIds() {
+        return delegate.findAllIds();
+    }
+
+    @Override
+    public Player update(Player player) {
+        try {
+            return delegate.update(player);
+        } finally {
+            // В кэш не кладём объект из запроса: у него нет created_at/updated_at, а при ошибке
+            // строка и вовсе не записана. Следующее чтение загрузит строку из БД
+            cache.invalidate(player.getId());
+        }
+    }
+
+    @Override
+    public List<Player> updateAll(List<Player> players) {
+        try {
+            return delegate.updateAll(players);
+        } finally {
+            // Как и в update: при откате кэш мог успеть загрузить строки во время транзакции
+            players.forEach(player -> cache.invalidate(player.getId()));
+        }
+    }
+
+    @Override
+    public void importAll(BulkImport.Source<Player> source, BulkImport.Report report) {
+        try {
+            delegate.importAll(source, report);
+        } finally {
+            // Какие строки изменил COPY, кэш не знает: сбрасываем целиком
+            cache.invalidateAll();
+        }
+    }
+
+    @Override
+    public boolean deleteById(Integer id) {
+        try {
+            return delegate.deleteById(id);
+        } finally {
+            cache.invalidate(id);
+        }
+    }
+
+    @Override
+    public boolean existsById(Integer id) {
+        return findById(id).isPresent();
+    }
+
+    @Override
+    public boolean existsAllById(Collection<Integer> ids) {
+        return delegate.existsAllById(ids);
+    }
+
+    @Override
+    public long count() {
+        return delegate.count();
+    }
+
+    @Override
+    public List<Player> findByTeamId(Integer teamId) {
+        return delegate.findByTeamId(teamId);
+    }
+
+    @Override
+    public List<Player> findByPosition(String position) {
+        return delegate.findByPosition(position);
+    }
+
+    @Override
+    public List<Player> findByRatingGreaterThan(Double minRating) {
+        return delegate.findByRatingGreaterThan(minRating);
+    }
+
+    @Override
+    public List<Player> findByAgeBetween(Integer minAge, Integer maxAge) {
+        return delegate.findByAgeBetween(minAge, maxAge);
+    }
+
+    @Override
+    public List<Player> searchByName(String namePart) {
+        return delegate.searchByName(namePart);
+    }
+
+    @Override
+    public List<Player> findFreeAgents() {
+        return delegate.findFreeAgents();
+    }
+
+    @Override
+    public List<Player> findPage(PageCursor after, int limit) {
+        return delegate.findPage(after, limit);
+    }
+
+    @Override
+    public List<PlayerSummary> findSummaryPage(PageCursor after, int limit) {
+        return delegate.findSummaryPage(after, limit);
+    }
+}
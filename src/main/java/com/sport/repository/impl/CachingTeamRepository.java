@@ -0,0 +1,172 @@
+package com.sport.repository.impl;
+
+import com.sport.domain.Team;
+import com.sport.domain.TeamSummary;
+import com.sport.repository.interfaces.TeamRepository;
+import com.sport.util.BulkImport;
+import com.sport.util.EntityCache;
+import com.sport.util.PageCursor;
+
+import java.io.OutputStream;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * Decorator that serves findById and existsById from an {@link EntityCache}.
+ * Writes go to the database first and then invalidate the cached entry, so the
+ * next read loads the row as stored (with its timestamps); everything else
+ * is passed through unchanged.
+ */
+public class CachingTeamRepository implements TeamRepository {
+
+    private final TeamRepository delegate;
+    private final EntityCache<Integer, Team> cache = new EntityCache<>("team");
+
+    public CachingTeamRepository(TeamRepository delegate) {
+        this.delegate = delegate;
+    }
+
+    public Map<String, Object> getCacheStatistics() {
+        return cache.getStatistics();
+    }
+
+    @Override
+    public Team save(Team team) {
+        Team saved = delegate.save(team);
+        // Сбрасывает и отрицательную запись по этому id
+        cache.invalidate(saved.getId());
+        return saved;
+    }
+
+    @Override
+    public List<Team> saveAll(List<Team> teams) {
+        List<Team> saved = delegate.saveAll(teams);
+        saved.forEach(team -> cache.invalidate(team.getId()));
+        return saved;
+    }
+
+    @Override
+    public Optional<Team> findById(Integer id) {
+        return cache.get(id, delegate::findById);
+    }
+
+    @Override
+    public List<Team> findAll() {
+        return delegate.findAll();
+    }
+
+    @Override
+    public Stream<Team> streamAll() {
+        return delegate.streamAll();
+    }
+
+    @Override
+    public long forEachEntity(Consumer<? super Team> action) {
+        return delegate.forEachEntity(action);
+    }
+
+    @Override
+    public long exportCsv(OutputStream out) {
+        return delegate.exportCsv(out);
+    }
+
+    @Override
+    public List<Team> findUpdatedSince(LocalDateTime since) {
+        return delegate.findUpdatedSince(since);
+    }
+
+    @Override
+    public List<Integer> findAllIds() {
+        return delegate.findAllIds();
+    }
+
+    @Override
+    public Team update(Team team) {
+        try {
+            return delegate.update(team);
+        } finally {
+            // В кэш не кладём объект из запроса: у него нет created_at/updated_at, а при ошибке
+            // строка и вовсе не записана. Следующее чтение загрузит строку из БД
+            cache.invalidate(team.getId());
+        }
+    }
+
+    @Override
+    public List<Team> updateAll(List<Team> teams) {
+        try {
+            return delegate.updateAll(teams);
+        } finally {
+            // Как и в update: при откате кэш мог успеть загрузить строки во время транзакции
+            teams.forEach(team -> cache.invalidate(team.getId()));
+        }
+    }
+
+    @Override
+    public void importAll(BulkImport.Source<Team> source, BulkImport.Report report) {
+        try {
+            delegate.importAll(source, report);
+        } finally {
+            // Какие строки изменил COPY, кэш не знает: сбрасываем целиком
+            cache.invalidateAll();
+        }
+    }
+
+    @Override
+    public boolean deleteById(Integer id) {
+        try {
+            return delegate.deleteById(id);
+        } finally {
+            cache.invalidate(id);
+        }
+    }
+
+    @Override
+    public boolean existsById(Integer id) {
+        return findById(id).isPresent();
+    }
+
+    @Override
+    public boolean existsAllById(Collection<Integer> ids) {
+        return delegate.existsAllById(ids);
+    }
+
+    @Override
+    public long count() {
+        return delegate.count();
+    }
+
+    @Override
+    public List<Team> findBySport(String sport) {
+        return delegate.findBySport(sport);
+    }
+
+    @Override
+    public List<Team> findByLocation(String location) {
+        return delegate.findByLocation(location);
+    }
+
+    @Override
+    public List<Team> findByCoach(String coach) {
+        return delegate.findByCoach(coach);
+    }
+
+    @Override
+    public List<Team> searchByName(String namePart) {
+        return delegate.searchByName(namePart);
+    }
+
+    @Override
+    public List<Team> findPage(PageCursor after, int limit) {
+        return delegate.findPage(after, limit);
+    }
+
+    @Override
+    public List<TeamSummary> findSummaryPage(PageCursor after, int limit) {
+        return delegate.findSummaryPage(after, limit);
+    }
+}
@@ -1,35 +1,112 @@
 package com.sport.repository.impl;
 
 import com.sport.domain.Player;
+import com.sport.domain.PlayerSummary;
 import com.sport.exception.EntityNotFoundException;
 import com.sport.repository.interfaces.PlayerRepository;
+import com.sport.util.BulkImport;
 import com.sport.util.DBConnection;
-
+import com.sport.util.JdbcBatch;
+import com.sport.util.JdbcStreams;
+import com.sport.util.Log;
+import com.sport.util.PageCursor;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
 import java.sql.*;
+import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 public class PlayerRepositoryImpl implements PlayerRepository {
 
-    // SQL запросы
-    private static final String INSERT_SQL =
+    private static final Log LOG = Log.get(PlayerRepositoryImpl.class);
+
+    // Явный список колонок: порядок совпадает с индексами в mapResultSetToPlayer
+    private static final String COLUMNS =
+            "id, first_name, last_name, age, position, rating, team_id, jersey_number, created_at, updated_at";
+    private static final String SELECT_PLAYER = "SELECT " + COLUMNS + " ";
+    // Те же колонки для RETURNING пакетных вставок и обновлений (его добавляет драйвер)
+    private static final String[] COLUMN_NAMES = COLUMNS.split(", ");
+
+    // Проекция для списков: только то, что показывает PlayerSummary (см. mapSummary)
+    private static final String SELECT_SUMMARY = "SELECT id, first_name, last_name, rating, team_id ";
+
+    // SQL запросы: записи возвращают сохранённую строку целиком, с временными метками из БД
+    private static final String BATCH_INSERT_SQL =
             "INSERT INTO players (first_name, last_name, age, position, rating, team_id, jersey_number, created_at, updated_at) " +
-                    "VALUES (?, ?, ?, ?, ?, ?, ?, CURRENT_TIMESTAMP, CURRENT_TIMESTAMP) RETURNING id";
+                    "VALUES (?, ?, ?, ?, ?, ?, ?, CURRENT_TIMESTAMP, CURRENT_TIMESTAMP)";
+    private static final String INSERT_SQL = BATCH_INSERT_SQL + " RETURNING " + COLUMNS;
 
-    private static final String FIND_ALL = "SELECT * FROM players ORDER BY last_name, first_name";
-    private static final String FIND_BY_ID = "SELECT * FROM players WHERE id = ?";
-    private static final String UPDATE_SQL =
+    private static final String FIND_ALL = SELECT_PLAYER + "FROM players ORDER BY last_name, first_name";
+    private static final String FIND_BY_ID = SELECT_PLAYER + "FROM players WHERE id = ?";
+    private static final String BATCH_UPDATE_SQL =
             "UPDATE players SET first_name=?, last_name=?, age=?, position=?, rating=?, team_id=?, jersey_number=?, updated_at=CURRENT_TIMESTAMP WHERE id=?";
+    private static final String UPDATE_SQL = BATCH_UPDATE_SQL + " RETURNING " + COLUMNS;
     private static final String DELETE_SQL = "DELETE FROM players WHERE id=?";
 
+    // Выгрузка: заголовок CSV = имена колонок COLUMNS
+    private static final String EXPORT_CSV =
+            "COPY (" + SELECT_PLAYER + "FROM players ORDER BY id) TO STDOUT WITH (FORMAT csv, HEADER)";
+
+    // Импорт через COPY: временная таблица живёт до конца транзакции
+    private static final String CREATE_STAGING =
+            "CREATE TEMP TABLE player_import (line bigint, id int, first_name text, last_name text, age int, " +
+                    "position text, rating double precision, team_id int, jersey_number int) ON COMMIT DROP";
+    private static final String COPY_STAGING =
+            "COPY player_import (line, id, first_name, last_name, age, position, rating, team_id, jersey_number) " +
+                    "FROM STDIN WITH (FORMAT csv)";
+    private static final String REJECT_UNKNOWN_TEAM =
+            "DELETE FROM player_import s WHERE team_id IS NOT NULL " +
+                    "AND NOT EXISTS (SELECT 1 FROM teams t WHERE t.id = s.team_id) RETURNING line, team_id";
+    private static final String REJECT_UNKNOWN_ID =
+            "DELETE FROM player_import s WHERE id IS NOT NULL " +
+                    "AND NOT EXISTS (SELECT 1 FROM players p WHERE p.id = s.id) RETURNING line, id";
+    private static final String MERGE_UPDATE =
+            "UPDATE players p SET first_name = s.first_name, last_name = s.last_name, age = s.age, " +
+                    "position = s.position, rating = s.rating, team_id = s.team_id, jersey_number = s.jersey_number, " +
+                    "updated_at = CURRENT_TIMESTAMP FROM player_import s WHERE p.id = s.id";
+    private static final String MERGE_INSERT =
+            "INSERT INTO players (first_name, last_name, age, position, rating, team_id, jersey_number, created_at, updated_at) " +
+                    "SELECT first_name, last_name, age, position, rating, team_id, jersey_number, " +
+                    "CURRENT_TIMESTAMP, CURRENT_TIMESTAMP FROM player_import WHERE id IS NULL ORDER BY line";
+
+    // Агрегаты и проверки существования без загрузки строк
+    private static final String COUNT_SQL = "SELECT COUNT(*) FROM players";
+    private static final String EXISTS_SQL = "SELECT 1 FROM players WHERE id = ? LIMIT 1";
+    private static final String EXISTS_ALL_SQL = "SELECT COUNT(*) FROM players WHERE id = ANY(?)";
+
     // SQL для поиска
-    private static final String FIND_BY_TEAM = "SELECT * FROM players WHERE team_id = ? ORDER BY last_name";
-    private static final String FIND_BY_POS = "SELECT * FROM players WHERE position = ? ORDER BY rating DESC";
-    private static final String FIND_BY_RATING = "SELECT * FROM players WHERE rating >= ? ORDER BY rating DESC";
-    private static final String FIND_AGE_BETWEEN = "SELECT * FROM players WHERE age BETWEEN ? AND ? ORDER BY age";
-    private static final String SEARCH_NAME = "SELECT * FROM players WHERE first_name ILIKE ? OR last_name ILIKE ? ORDER BY last_name";
-    private static final String FIND_FREE_AGENTS = "SELECT * FROM players WHERE team_id IS NULL ORDER BY rating DESC";
+    private static final String FIND_BY_TEAM = SELECT_PLAYER + "FROM players WHERE team_id = ? ORDER BY last_name";
+    private static final String FIND_BY_POS = SELECT_PLAYER + "FROM players WHERE position = ? ORDER BY rating DESC";
+    private static final String FIND_BY_RATING = SELECT_PLAYER + "FROM players WHERE rating >= ? ORDER BY rating DESC";
+    private static final String FIND_AGE_BETWEEN = SELECT_PLAYER + "FROM players WHERE age BETWEEN ? AND ? ORDER BY age";
+    private static final String SEARCH_NAME = SELECT_PLAYER + "FROM players WHERE first_name ILIKE ? OR last_name ILIKE ? ORDER BY last_name";
+    private static final String FIND_FREE_AGENTS = SELECT_PLAYER + "FROM players WHERE team_id IS NULL ORDER BY rating DESC";
+
+    // SQL для синхронизации пула в памяти
+    private static final String FIND_UPDATED_SINCE = SELECT_PLAYER + "FROM players WHERE updated_at > ? ORDER BY updated_at";
+    private static final String FIND_ALL_IDS = "SELECT id FROM players";
+
+    // Keyset-пагинация: сравнение кортежей идёт по тому же индексу, что и ORDER BY
+    private static final String FIND_FIRST_PAGE =
+            SELECT_PLAYER + "FROM players ORDER BY last_name, first_name, id LIMIT ?";
+    private static final String FIND_PAGE_AFTER =
+            SELECT_PLAYER + "FROM players WHERE (last_name, first_name, id) > (?, ?, ?) " +
+                    "ORDER BY last_name, first_name, id LIMIT ?";
+    private static final String FIND_FIRST_SUMMARY_PAGE =
+            SELECT_SUMMARY + "FROM players ORDER BY last_name, first_name, id LIMIT ?";
+    private static final String FIND_SUMMARY_PAGE_AFTER =
+            SELECT_SUMMARY + "FROM players WHERE (last_name, first_name, id) > (?, ?, ?) " +
+                    "ORDER BY last_name, first_name, id LIMIT ?";
 
     @Override
     public Player save(Player player) {
@@ -39,13 +116,23 @@ public class PlayerRepositoryImpl implements PlayerRepository {
             setPlayerParams(stmt, player);
 
             ResultSet rs = stmt.executeQuery();
-            if (rs.next()) {
-                player.setId(rs.getInt("id")); // Используем Integer!
+            if (!rs.next()) {
+                throw new SQLException("INSERT returned no row");
             }
+            return mapResultSetToPlayer(rs);
         } catch (SQLException e) {
             throw new RuntimeException("Failed to save player", e);
         }
-        return player;
+    }
+
+    @Override
+    public List<Player> saveAll(List<Player> players) {
+        try {
+            return JdbcBatch.insertAll(BATCH_INSERT_SQL, COLUMN_NAMES, players, this::setPlayerParams,
+                    this::mapResultSetToPlayer);
+        } catch (SQLException e) {
+            throw new RuntimeException("Failed to save players", e);
+        }
     }
 
     @Override
@@ -60,14 +147,60 @@ public class PlayerRepositoryImpl implements PlayerRepository {
                 return Optional.of(mapResultSetToPlayer(rs));
             }
         } catch (SQLException e) {
-            e.printStackTrace();
+            LOG.error("Failed to find player", e, "id", id);
         }
         return Optional.empty();
     }
 
     @Override
     public List<Player> findAll() {
-        return executeQuery(FIND_ALL);
+        // Через курсор: драйвер не держит весь результат в памяти рядом со списком
+        List<Player> list = new ArrayList<>();
+        try {
+            JdbcStreams.forEach(FIND_ALL, this::mapResultSetToPlayer, list::add);
+        } catch (SQLException e) { LOG.error("Failed to load players", e); }
+        return list;
+    }
+
+    @Override
+    public Stream<Player> streamAll() {
+        return JdbcStreams.stream(FIND_ALL, this::mapResultSetToPlayer);
+    }
+
+    @Override
+    public long forEachEntity(Consumer<? super Player> action) {
+        try {
+            return JdbcStreams.forEach(FIND_ALL, this::mapResultSetToPlayer, action);
+        } catch (SQLException e) {
+            throw new RuntimeException("Failed to scan players", e);
+        }
+    }
+
+    @Override
+    public List<Player> findUpdatedSince(LocalDateTime since) {
+        List<Player> list = new ArrayList<>();
+        try (Connection conn = DBConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(FIND_UPDATED_SINCE)) {
+            stmt.setTimestamp(1, Timestamp.valueOf(since));
+            ResultSet rs = stmt.executeQuery();
+            while (rs.next()) list.add(mapResultSetToPlayer(rs));
+        } catch (SQLException e) {
+            throw new RuntimeException("Failed to load changed players", e);
+        }
+        return list;
+    }
+
+    @Override
+    public List<Integer> findAllIds() {
+        List<Integer> ids = new ArrayList<>();
+        try (Connection conn = DBConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(FIND_ALL_IDS)) {
+            ResultSet rs = stmt.executeQuery();
+            while (rs.next()) ids.add(rs.getInt(1));
+        } catch (SQLException e) {
+            throw new RuntimeException("Failed to load player ids", e);
+        }
+        return ids;
     }
 
     @Override
@@ -78,14 +211,70 @@ public class PlayerRepositoryImpl implements PlayerRepository {
             setPlayerParams(stmt, player);
             stmt.setInt(8, player.getId()); // ID последний
 
-            int rowsAffected = stmt.executeUpdate();
-            if (rowsAffected == 0) {
+            ResultSet rs = stmt.executeQuery();
+            if (!rs.next()) {
                 throw new EntityNotFoundException("Player", player.getId());
             }
+            return mapResultSetToPlayer(rs);
         } catch (SQLException e) {
             throw new RuntimeException("Failed to update player", e);
         }
-        return player;
+    }
+
+    @Override
+    public List<Player> updateAll(List<Player> players) {
+        try {
+            return JdbcBatch.updateAll(BATCH_UPDATE_SQL, COLUMN_NAMES, players, (stmt, player) -> {
+                setPlayerParams(stmt, player);
+                stmt.setInt(8, player.getId());
+            }, this::mapResultSetToPlayer, player -> {
+                throw new EntityNotFoundException("Player", player.getId());
+            });
+        } catch (SQLException e) {
+            throw new RuntimeException("Failed to update players", e);
+        }
+    }
+
+    @Override
+    public long exportCsv(OutputStream out) {
+        try {
+            return JdbcStreams.copyOut(EXPORT_CSV, out);
+        } catch (SQLException e) {
+            throw new RuntimeException("Failed to export players", e);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to export players", e);
+        }
+    }
+
+    @Override
+    public void importAll(BulkImport.Source<Player> source, BulkImport.Report report) {
+        try (Connection conn = DBConnection.getConnection()) {
+            conn.setAutoCommit(false);
+            try (Statement stmt = conn.createStatement()) {
+                stmt.execute(CREATE_STAGING);
+                BulkImport.copyIn(conn, COPY_STAGING, source, (row, player) -> row
+                        .add(player.getId())
+                        .add(player.getFirstName())
+                        .add(player.getLastName())
+                        .add(player.getAge())
+                        .add(player.getPosition())
+                        .add(player.getRating())
+                        .add(player.getTeamId())
+                        .add(player.getJerseyNumber()));
+
+                // Проверки ссылок одним запросом на всю таблицу, а не на каждую строку
+                BulkImport.rejectWhere(conn, REJECT_UNKNOWN_TEAM, report, "Team with ID %s does not exist");
+                BulkImport.rejectWhere(conn, REJECT_UNKNOWN_ID, report, "Player with ID %s does not exist");
+                report.setUpdated(stmt.executeUpdate(MERGE_UPDATE));
+                report.setInserted(stmt.executeUpdate(MERGE_INSERT));
+                conn.commit();
+            } catch (SQLException | RuntimeException e) {
+                conn.rollback();
+                throw e;
+            }
+        } catch (SQLException e) {
+            throw new RuntimeException("Failed to import players", e);
+        }
     }
 
     @Override
@@ -95,7 +284,7 @@ public class PlayerRepositoryImpl implements PlayerRepository {
             stmt.setInt(1, id);
             return stmt.executeUpdate() > 0;
         } catch (SQLException e) {
-            e.printStackTrace();
+            LOG.error("Failed to delete player", e, "id", id);
             return false;
         }
     }
@@ -110,7 +299,7 @@ public class PlayerRepositoryImpl implements PlayerRepository {
             stmt.setInt(1, teamId);
             ResultSet rs = stmt.executeQuery();
             while (rs.next()) list.add(mapResultSetToPlayer(rs));
-        } catch (SQLException e) { e.printStackTrace(); }
+        } catch (SQLException e) { LOG.error("Failed to find players by team", e, "teamId", teamId); }
         return list;
     }
 
@@ -127,7 +316,7 @@ public class PlayerRepositoryImpl implements PlayerRepository {
             stmt.setDouble(1, minRating);
             ResultSet rs = stmt.executeQuery();
             while (rs.next()) list.add(mapResultSetToPlayer(rs));
-        } catch (SQLException e) { e.printStackTrace(); }
+        } catch (SQLException e) { LOG.error("Failed to find players by rating", e, "minRating", minRating); }
         return list;
     }
 
@@ -140,7 +329,7 @@ public class PlayerRepositoryImpl implements PlayerRepository {
             stmt.setInt(2, maxAge);
             ResultSet rs = stmt.executeQuery();
             while (rs.next()) list.add(mapResultSetToPlayer(rs));
-        } catch (SQLException e) { e.printStackTrace(); }
+        } catch (SQLException e) { LOG.error("Failed to find players by age", e, "minAge", minAge, "maxAge", maxAge); }
         return list;
     }
 
@@ -154,7 +343,7 @@ public class PlayerRepositoryImpl implements PlayerRepository {
             stmt.setString(2, pattern);
             ResultSet rs = stmt.executeQuery();
             while (rs.next()) list.add(mapResultSetToPlayer(rs));
-        } catch (SQLException e) { e.printStackTrace(); }
+        } catch (SQLException e) { LOG.error("Failed to search players", e); }
         return list;
     }
 
@@ -163,6 +352,37 @@ public class PlayerRepositoryImpl implements PlayerRepository {
         return executeQuery(FIND_FREE_AGENTS);
     }
 
+    @Override
+    public List<Player> findPage(PageCursor after, int limit) {
+        return queryPage(FIND_FIRST_PAGE, FIND_PAGE_AFTER, after, limit, this::mapResultSetToPlayer);
+    }
+
+    @Override
+    public List<PlayerSummary> findSummaryPage(PageCursor after, int limit) {
+        return queryPage(FIND_FIRST_SUMMARY_PAGE, FIND_SUMMARY_PAGE_AFTER, after, limit, this::mapSummary);
+    }
+
+    private <T> List<T> queryPage(String firstSql, String afterSql, PageCursor after, int limit,
+                                  JdbcStreams.RowMapper<T> mapper) {
+        List<T> list = new ArrayList<>(limit);
+        try (Connection conn = DBConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(after == null ? firstSql : afterSql)) {
+            if (after == null) {
+                stmt.setInt(1, limit);
+            } else {
+                stmt.setString(1, after.getKey(0));
+                stmt.setString(2, after.getKey(1));
+                stmt.setInt(3, after.getId());
+                stmt.setInt(4, limit);
+            }
+            ResultSet rs = stmt.executeQuery();
+            while (rs.next()) list.add(mapper.map(rs));
+        } catch (SQLException e) {
+            throw new RuntimeException("Failed to load players page", e);
+        }
+        return list;
+    }
+
     // --- Вспомогательные методы ---
 
     private void setPlayerParams(PreparedStatement stmt, Player player) throws SQLException {
@@ -185,10 +405,10 @@ public class PlayerRepositoryImpl implements PlayerRepository {
     private List<Player> executeQuery(String sql) {
         List<Player> list = new ArrayList<>();
         try (Connection conn = DBConnection.getConnection();
-             Statement stmt = conn.createStatement();
-             ResultSet rs = stmt.executeQuery(sql)) {
+             PreparedStatement stmt = conn.prepareStatement(sql);
+             ResultSet rs = stmt.executeQuery()) {
             while (rs.next()) list.add(mapResultSetToPlayer(rs));
-        } catch (SQLException e) { e.printStackTrace(); }
+        } catch (SQLException e) { LOG.error("Player query failed", e, "sql", sql); }
         return list;
     }
 
@@ -199,25 +419,79 @@ public class PlayerRepositoryImpl implements PlayerRepository {
             stmt.setString(1, param);
             ResultSet rs = stmt.executeQuery();
             while (rs.next()) list.add(mapResultSetToPlayer(rs));
-        } catch (SQLException e) { e.printStackTrace(); }
+        } catch (SQLException e) { LOG.error("Player query failed", e, "sql", sql); }
         return list;
     }
 
+    // Колонки по номеру в порядке COLUMNS: без поиска имени в метаданных на каждое поле
     private Player mapResultSetToPlayer(ResultSet rs) throws SQLException {
-        // Убрали createdAt и updatedAt, так как их нет в классе Player
         return new Player.Builder()
-                .id(rs.getInt("id"))
-                .firstName(rs.getString("first_name"))
-                .lastName(rs.getString("last_name"))
-                .age(rs.getInt("age"))
-                .position(rs.getString("position"))
-                .rating(rs.getDouble("rating"))
-                .teamId(rs.getObject("team_id") != null ? rs.getInt("team_id") : null)
-                .jerseyNumber(rs.getInt("jersey_number"))
+                .id(rs.getInt(1))
+                .firstName(rs.getString(2))
+                .lastName(rs.getString(3))
+                .age(rs.getInt(4))
+                .position(rs.getString(5))
+                .rating(rs.getDouble(6))
+                .teamId(nullableInt(rs, 7))
+                .jerseyNumber(rs.getInt(8))
+                .createdAt(toLocalDateTime(rs.getTimestamp(9)))
+                .updatedAt(toLocalDateTime(rs.getTimestamp(10)))
                 .build();
     }
 
-    // Заглушки
-    @Override public boolean existsById(Integer id) { return findById(id).isPresent(); }
-    @Override public long count() { return findAll().size(); }
+    // Порядок SELECT_SUMMARY
+    private PlayerSummary mapSummary(ResultSet rs) throws SQLException {
+        return new PlayerSummary(rs.getInt(1), rs.getString(2), rs.getString(3), rs.getDouble(4), nullableInt(rs, 5));
+    }
+
+    // Одно чтение колонки вместо getObject + getInt
+    private static Integer nullableInt(ResultSet rs, int column) throws SQLException {
+        int value = rs.getInt(column);
+        return rs.wasNull() ? null : value;
+    }
+
+    private LocalDateTime toLocalDateTime(Timestamp timestamp) {
+        return timestamp != null ? timestamp.toLocalDateTime() : null;
+    }
+
+    // --- Агрегаты ---
+
+    @Override
+    public boolean existsById(Integer id) {
+        try (Connection conn = DBConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(EXISTS_SQL)) {
+            stmt.setInt(1, id);
+            ResultSet rs = stmt.executeQuery();
+            return rs.next();
+        } catch (SQLException e) {
+            throw new RuntimeException("Failed to check player existence", e);
+        }
+    }
+
+    @Override
+    public boolean existsAllById(Collection<Integer> ids) {
+        Set<Integer> distinctIds = ids.stream().filter(Objects::nonNull).collect(Collectors.toSet());
+        if (distinctIds.isEmpty()) {
+            return true;
+        }
+        try (Connection conn = DBConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(EXISTS_ALL_SQL)) {
+            stmt.setArray(1, conn.createArrayOf("integer", distinctIds.toArray()));
+            ResultSet rs = stmt.executeQuery();
+            return rs.next() && rs.getLong(1) == distinctIds.size();
+        } catch (SQLException e) {
+            throw new RuntimeException("Failed to check player existence", e);
+        }
+    }
+
+    @Override
+    public long count() {
+        try (Connection conn = DBConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(COUNT_SQL)) {
+            ResultSet rs = stmt.executeQuery();
+            return rs.next() ? rs.getLong(1) : 0;
+        } catch (SQLException e) {
+            throw new RuntimeException("Failed to count players", e);
+        }
+    }
 }
\ No newline at end of file
@@ -1,49 +1,121 @@
 package com.sport.repository.impl;
 
 import com.sport.domain.Team;
+import com.sport.domain.TeamSummary;
 import com.sport.exception.EntityNotFoundException;
 import com.sport.repository.interfaces.TeamRepository;
+import com.sport.util.BulkImport;
 import com.sport.util.DBConnection;
+import com.sport.util.JdbcBatch;
+import com.sport.util.JdbcStreams;
+import com.sport.util.Log;
+import com.sport.util.PageCursor;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
 import java.sql.*;
+import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 public class TeamRepositoryImpl implements TeamRepository {
 
-    // SQL запросы
-    private static final String INSERT_SQL = "INSERT INTO teams (name, sport, coach, location, founded_year) VALUES (?, ?, ?, ?, ?) RETURNING id";
-    private static final String FIND_ALL = "SELECT * FROM teams ORDER BY name";
-    private static final String FIND_BY_ID = "SELECT * FROM teams WHERE id = ?";
-    private static final String UPDATE_SQL = "UPDATE teams SET name=?, sport=?, coach=?, location=?, founded_year=?, updated_at=CURRENT_TIMESTAMP WHERE id=?";
+    private static final Log LOG = Log.get(TeamRepositoryImpl.class);
+
+    // Явный список колонок: порядок совпадает с индексами в mapRow
+    private static final String COLUMNS = "id, name, sport, coach, location, founded_year, updated_at";
+    private static final String SELECT_TEAM = "SELECT " + COLUMNS + " ";
+    // Те же колонки для RETURNING пакетных вставок и обновлений (его добавляет драйвер)
+    private static final String[] COLUMN_NAMES = COLUMNS.split(", ");
+
+    // Проекция для списков (TeamSummary, см. mapSummary)
+    private static final String SELECT_SUMMARY = "SELECT id, name, sport ";
+
+    // SQL запросы: записи возвращают сохранённую строку целиком, с временными метками из БД
+    private static final String BATCH_INSERT_SQL =
+            "INSERT INTO teams (name, sport, coach, location, founded_year) VALUES (?, ?, ?, ?, ?)";
+    private static final String INSERT_SQL = BATCH_INSERT_SQL + " RETURNING " + COLUMNS;
+    private static final String FIND_ALL = SELECT_TEAM + "FROM teams ORDER BY name";
+    private static final String FIND_BY_ID = SELECT_TEAM + "FROM teams WHERE id = ?";
+    private static final String BATCH_UPDATE_SQL = "UPDATE teams SET name=?, sport=?, coach=?, location=?, founded_year=?, updated_at=CURRENT_TIMESTAMP WHERE id=?";
+    private static final String UPDATE_SQL = BATCH_UPDATE_SQL + " RETURNING " + COLUMNS;
     private static final String DELETE_SQL = "DELETE FROM teams WHERE id=?";
 
+    // Выгрузка: заголовок CSV = имена колонок COLUMNS
+    private static final String EXPORT_CSV =
+            "COPY (" + SELECT_TEAM + "FROM teams ORDER BY id) TO STDOUT WITH (FORMAT csv, HEADER)";
+
+    // Импорт через COPY: временная таблица живёт до конца транзакции
+    private static final String CREATE_STAGING =
+            "CREATE TEMP TABLE team_import (line bigint, id int, name text, sport text, coach text, " +
+                    "location text, founded_year int) ON COMMIT DROP";
+    private static final String COPY_STAGING =
+            "COPY team_import (line, id, name, sport, coach, location, founded_year) FROM STDIN WITH (FORMAT csv)";
+    private static final String REJECT_UNKNOWN_ID =
+            "DELETE FROM team_import s WHERE id IS NOT NULL " +
+                    "AND NOT EXISTS (SELECT 1 FROM teams t WHERE t.id = s.id) RETURNING line, id";
+    private static final String MERGE_UPDATE =
+            "UPDATE teams t SET name = s.name, sport = s.sport, coach = s.coach, location = s.location, " +
+                    "founded_year = s.founded_year, updated_at = CURRENT_TIMESTAMP FROM team_import s WHERE t.id = s.id";
+    private static final String MERGE_INSERT =
+            "INSERT INTO teams (name, sport, coach, location, founded_year) " +
+                    "SELECT name, sport, coach, location, founded_year FROM team_import WHERE id IS NULL ORDER BY line";
+
+    // Агрегаты и проверки существования без загрузки строк
+    private static final String COUNT_SQL = "SELECT COUNT(*) FROM teams";
+    private static final String EXISTS_SQL = "SELECT 1 FROM teams WHERE id = ? LIMIT 1";
+    private static final String EXISTS_ALL_SQL = "SELECT COUNT(*) FROM teams WHERE id = ANY(?)";
+
     // Поиск
-    private static final String FIND_BY_SPORT = "SELECT * FROM teams WHERE sport = ?";
-    private static final String FIND_BY_LOCATION = "SELECT * FROM teams WHERE location = ?";
-    private static final String FIND_BY_COACH = "SELECT * FROM teams WHERE coach = ?";
-    private static final String SEARCH_BY_NAME = "SELECT * FROM teams WHERE name ILIKE ?";
+    private static final String FIND_BY_SPORT = SELECT_TEAM + "FROM teams WHERE sport = ?";
+    private static final String FIND_BY_LOCATION = SELECT_TEAM + "FROM teams WHERE location = ?";
+    private static final String FIND_BY_COACH = SELECT_TEAM + "FROM teams WHERE coach = ?";
+    private static final String SEARCH_BY_NAME = SELECT_TEAM + "FROM teams WHERE name ILIKE ?";
+
+    // Синхронизация пула в памяти
+    private static final String FIND_UPDATED_SINCE = SELECT_TEAM + "FROM teams WHERE updated_at > ? ORDER BY updated_at";
+    private static final String FIND_ALL_IDS = "SELECT id FROM teams";
+
+    // Keyset-пагинация: сравнение кортежей идёт по тому же индексу, что и ORDER BY
+    private static final String FIND_FIRST_PAGE = SELECT_TEAM + "FROM teams ORDER BY name, id LIMIT ?";
+    private static final String FIND_PAGE_AFTER =
+            SELECT_TEAM + "FROM teams WHERE (name, id) > (?, ?) ORDER BY name, id LIMIT ?";
+    private static final String FIND_FIRST_SUMMARY_PAGE = SELECT_SUMMARY + "FROM teams ORDER BY name, id LIMIT ?";
+    private static final String FIND_SUMMARY_PAGE_AFTER =
+            SELECT_SUMMARY + "FROM teams WHERE (name, id) > (?, ?) ORDER BY name, id LIMIT ?";
 
     @Override
     public Team save(Team team) {
         try (Connection conn = DBConnection.getConnection();
              PreparedStatement stmt = conn.prepareStatement(INSERT_SQL)) {
 
-            stmt.setString(1, team.getName());
-            stmt.setString(2, team.getSport());
-            stmt.setString(3, team.getCoach());
-            stmt.setString(4, team.getLocation());
-            stmt.setInt(5, team.getFoundedYear()); // Используем getFoundedYear
+            setTeamParams(stmt, team);
 
             ResultSet rs = stmt.executeQuery();
-            if (rs.next()) {
-                team.setId(rs.getInt("id")); // ВАЖНО: getInt, а не getLong
+            if (!rs.next()) {
+                throw new SQLException("INSERT returned no row");
             }
+            return mapRow(rs);
         } catch (SQLException e) {
             throw new RuntimeException("Error saving team", e);
         }
-        return team;
+    }
+
+    @Override
+    public List<Team> saveAll(List<Team> teams) {
+        try {
+            return JdbcBatch.insertAll(BATCH_INSERT_SQL, COLUMN_NAMES, teams, this::setTeamParams, this::mapRow);
+        } catch (SQLException e) {
+            throw new RuntimeException("Error saving teams", e);
+        }
     }
 
     @Override
@@ -57,46 +129,136 @@ public class TeamRepositoryImpl implements TeamRepository {
                 return Optional.of(mapRow(rs));
             }
         } catch (SQLException e) {
-            e.printStackTrace();
+            LOG.error("Failed to find team", e, "id", id);
         }
         return Optional.empty();
     }
 
     @Override
     public List<Team> findAll() {
+        // Через курсор: драйвер не держит весь результат в памяти рядом со списком
+        List<Team> teams = new ArrayList<>();
+        try {
+            JdbcStreams.forEach(FIND_ALL, this::mapRow, teams::add);
+        } catch (SQLException e) {
+            LOG.error("Failed to load teams", e);
+        }
+        return teams;
+    }
+
+    @Override
+    public Stream<Team> streamAll() {
+        return JdbcStreams.stream(FIND_ALL, this::mapRow);
+    }
+
+    @Override
+    public long forEachEntity(Consumer<? super Team> action) {
+        try {
+            return JdbcStreams.forEach(FIND_ALL, this::mapRow, action);
+        } catch (SQLException e) {
+            throw new RuntimeException("Error scanning teams", e);
+        }
+    }
+
+    @Override
+    public List<Team> findUpdatedSince(LocalDateTime since) {
         List<Team> teams = new ArrayList<>();
         try (Connection conn = DBConnection.getConnection();
-             Statement stmt = conn.createStatement();
-             ResultSet rs = stmt.executeQuery(FIND_ALL)) {
+             PreparedStatement stmt = conn.prepareStatement(FIND_UPDATED_SINCE)) {
+            stmt.setTimestamp(1, Timestamp.valueOf(since));
+            ResultSet rs = stmt.executeQuery();
             while (rs.next()) {
                 teams.add(mapRow(rs));
             }
         } catch (SQLException e) {
-            e.printStackTrace();
+            throw new RuntimeException("Error loading changed teams", e);
         }
         return teams;
     }
 
+    @Override
+    public List<Integer> findAllIds() {
+        List<Integer> ids = new ArrayList<>();
+        try (Connection conn = DBConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(FIND_ALL_IDS)) {
+            ResultSet rs = stmt.executeQuery();
+            while (rs.next()) {
+                ids.add(rs.getInt(1));
+            }
+        } catch (SQLException e) {
+            throw new RuntimeException("Error loading team ids", e);
+        }
+        return ids;
+    }
+
     @Override
     public Team update(Team team) {
         try (Connection conn = DBConnection.getConnection();
              PreparedStatement stmt = conn.prepareStatement(UPDATE_SQL)) {
 
-            stmt.setString(1, team.getName());
-            stmt.setString(2, team.getSport());
-            stmt.setString(3, team.getCoach());
-            stmt.setString(4, team.getLocation());
-            stmt.setInt(5, team.getFoundedYear());
+            setTeamParams(stmt, team);
             stmt.setInt(6, team.getId());
 
-            int rows = stmt.executeUpdate();
-            if (rows == 0) {
+            ResultSet rs = stmt.executeQuery();
+            if (!rs.next()) {
                 throw new EntityNotFoundException("Team", team.getId());
             }
+            return mapRow(rs);
+        } catch (SQLException e) {
+            throw new RuntimeException("Failed to update team", e);
+        }
+    }
+
+    @Override
+    public List<Team> updateAll(List<Team> teams) {
+        try {
+            return JdbcBatch.updateAll(BATCH_UPDATE_SQL, COLUMN_NAMES, teams, (stmt, team) -> {
+                setTeamParams(stmt, team);
+                stmt.setInt(6, team.getId());
+            }, this::mapRow, team -> {
+                throw new EntityNotFoundException("Team", team.getId());
+            });
         } catch (SQLException e) {
-            e.printStackTrace();
+            throw new RuntimeException("Error updating teams", e);
+        }
+    }
+
+    @Override
+    public long exportCsv(OutputStream out) {
+        try {
+            return JdbcStreams.copyOut(EXPORT_CSV, out);
+        } catch (SQLException e) {
+            throw new RuntimeException("Error exporting teams", e);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Error exporting teams", e);
+        }
+    }
+
+    @Override
+    public void importAll(BulkImport.Source<Team> source, BulkImport.Report report) {
+        try (Connection conn = DBConnection.getConnection()) {
+            conn.setAutoCommit(false);
+            try (Statement stmt = conn.createStatement()) {
+                stmt.execute(CREATE_STAGING);
+                BulkImport.copyIn(conn, COPY_STAGING, source, (row, team) -> row
+                        .add(team.getId())
+                        .add(team.getName())
+                        .add(team.getSport())
+                        .add(team.getCoach())
+                        .add(team.getLocation())
+                        .add(team.getFoundedYear()));
+
+                BulkImport.rejectWhere(conn, REJECT_UNKNOWN_ID, report, "Team with ID %s does not exist");
+                report.setUpdated(stmt.executeUpdate(MERGE_UPDATE));
+                report.setInserted(stmt.executeUpdate(MERGE_INSERT));
+                conn.commit();
+            } catch (SQLException | RuntimeException e) {
+                conn.rollback();
+                throw e;
+            }
+        } catch (SQLException e) {
+            throw new RuntimeException("Error importing teams", e);
         }
-        return team;
     }
 
     @Override
@@ -106,7 +268,7 @@ public class TeamRepositoryImpl implements TeamRepository {
             stmt.setInt(1, id);
             return stmt.executeUpdate() > 0;
         } catch (SQLException e) {
-            e.printStackTrace();
+            LOG.error("Failed to delete team", e, "id", id);
             return false;
         }
     }
@@ -121,6 +283,38 @@ public class TeamRepositoryImpl implements TeamRepository {
         return executeQuery(SEARCH_BY_NAME, "%" + namePart + "%");
     }
 
+    @Override
+    public List<Team> findPage(PageCursor after, int limit) {
+        return queryPage(FIND_FIRST_PAGE, FIND_PAGE_AFTER, after, limit, this::mapRow);
+    }
+
+    @Override
+    public List<TeamSummary> findSummaryPage(PageCursor after, int limit) {
+        return queryPage(FIND_FIRST_SUMMARY_PAGE, FIND_SUMMARY_PAGE_AFTER, after, limit, this::mapSummary);
+    }
+
+    private <T> List<T> queryPage(String firstSql, String afterSql, PageCursor after, int limit,
+                                  JdbcStreams.RowMapper<T> mapper) {
+        List<T> teams = new ArrayList<>(limit);
+        try (Connection conn = DBConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(after == null ? firstSql : afterSql)) {
+            if (after == null) {
+                stmt.setInt(1, limit);
+            } else {
+                stmt.setString(1, after.getKey(0));
+                stmt.setInt(2, after.getId());
+                stmt.setInt(3, limit);
+            }
+            ResultSet rs = stmt.executeQuery();
+            while (rs.next()) {
+                teams.add(mapper.map(rs));
+            }
+        } catch (SQLException e) {
+            throw new RuntimeException("Error loading teams page", e);
+        }
+        return teams;
+    }
+
     private List<Team> executeQuery(String sql, String param) {
         List<Team> list = new ArrayList<>();
         try (Connection conn = DBConnection.getConnection();
@@ -128,21 +322,78 @@ public class TeamRepositoryImpl implements TeamRepository {
             stmt.setString(1, param);
             ResultSet rs = stmt.executeQuery();
             while (rs.next()) list.add(mapRow(rs));
-        } catch (SQLException e) { e.printStackTrace(); }
+        } catch (SQLException e) { LOG.error("Team query failed", e, "sql", sql); }
         return list;
     }
 
+    // Колонки по номеру в порядке COLUMNS: без поиска имени в метаданных на каждое поле
+    private void setTeamParams(PreparedStatement stmt, Team team) throws SQLException {
+        stmt.setString(1, team.getName());
+        stmt.setString(2, team.getSport());
+        stmt.setString(3, team.getCoach());
+        stmt.setString(4, team.getLocation());
+        stmt.setInt(5, team.getFoundedYear());
+    }
+
     private Team mapRow(ResultSet rs) throws SQLException {
         return new Team.Builder()
-                .id(rs.getInt("id"))
-                .name(rs.getString("name"))
-                .sport(rs.getString("sport"))
-                .coach(rs.getString("coach"))
-                .location(rs.getString("location"))
-                .foundedYear(rs.getInt("founded_year"))
+                .id(rs.getInt(1))
+                .name(rs.getString(2))
+                .sport(rs.getString(3))
+                .coach(rs.getString(4))
+                .location(rs.getString(5))
+                .foundedYear(rs.getInt(6))
+                .updatedAt(toLocalDateTime(rs.getTimestamp(7)))
                 .build();
     }
 
-    @Override public boolean existsById(Integer id) { return findById(id).isPresent(); }
-    @Override public long count() { return findAll().size(); }
+    // Порядок SELECT_SUMMARY
+    private TeamSummary mapSummary(ResultSet rs) throws SQLException {
+        return new TeamSummary(rs.getInt(1), rs.getString(2), rs.getString(3));
+    }
+
+    private LocalDateTime toLocalDateTime(Timestamp timestamp) {
+        return timestamp != null ? timestamp.toLocalDateTime() : null;
+    }
+
+    // Агрегаты без загрузки строк
+
+    @Override
+    public boolean existsById(Integer id) {
+        try (Connection conn = DBConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(EXISTS_SQL)) {
+            stmt.setInt(1, id);
+            ResultSet rs = stmt.executeQuery();
+            return rs.next();
+        } catch (SQLException e) {
+            throw new RuntimeException("Error checking team existence", e);
+        }
+    }
+
+    @Override
+    public boolean existsAllById(Collection<Integer> ids) {
+        Set<Integer> distinctIds = ids.stream().filter(Objects::nonNull).collect(Collectors.toSet());
+        if (distinctIds.isEmpty()) {
+            return true;
+        }
+        try (Connection conn = DBConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(EXISTS_ALL_SQL)) {
+            stmt.setArray(1, conn.createArrayOf("integer", distinctIds.toArray()));
+            ResultSet rs = stmt.executeQuery();
+            return rs.next() && rs.getLong(1) == distinctIds.size();
+        } catch (SQLException e) {
+            throw new RuntimeException("Error checking team existence", e);
+        }
+    }
+
+    @Override
+    public long count() {
+        try (Connection conn = DBConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(COUNT_SQL)) {
+            ResultSet rs = stmt.executeQuery();
+            return rs.next() ? rs.getLong(1) : 0;
+        } catch (SQLException e) {
+            throw new RuntimeException("Error counting teams", e);
+        }
+    }
 }
\ No newline at end of file
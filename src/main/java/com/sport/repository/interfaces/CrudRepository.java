@@ -1,7 +1,14 @@
 package com.sport.repository.interfaces;
 
+import com.sport.util.BulkImport;
+
+import java.io.OutputStream;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 /**
  * Generic CRUD Repository interface.
@@ -16,10 +23,19 @@ public interface CrudRepository<T, ID> {
      * Saves an entity to the database.
      * 
      * @param entity the entity to save
-     * @return the saved entity with generated ID
+     * @return the row as stored, with generated ID and timestamps; the argument is not modified
      */
     T save(T entity);
     
+    /**
+     * Saves all entities in one transaction using JDBC batching.
+     * Either all rows are inserted or none.
+     * 
+     * @param entities the entities to save
+     * @return the rows as stored, in input order; the arguments are not modified
+     */
+    List<T> saveAll(List<T> entities);
+    
     /**
      * Finds an entity by its ID.
      * 
@@ -35,14 +51,77 @@ public interface CrudRepository<T, ID> {
      */
     List<T> findAll();
     
+    /**
+     * Streams all entities in findAll order without loading the whole result set;
+     * rows are fetched from a server-side cursor in batches.
+     * The stream holds a database connection until it is closed.
+     * 
+     * @return lazy stream of all entities, to be used in try-with-resources
+     */
+    Stream<T> streamAll();
+    
+    /**
+     * Calls the action for every entity in findAll order, fetching rows in batches.
+     * 
+     * @param action called once per entity while the connection is held
+     * @return number of entities processed
+     */
+    long forEachEntity(Consumer<? super T> action);
+    
+    /**
+     * Writes all entities as CSV with a header row, ordered by ID, using COPY TO STDOUT.
+     * Header names are the column names, which the CSV import accepts.
+     * 
+     * @param out receives the CSV as the server sends it; not closed
+     * @return number of entities written
+     */
+    long exportCsv(OutputStream out);
+    
+    /**
+     * Retrieves entities modified after the given time (by updated_at).
+     * Used to reconcile in-memory data pools with changes made outside the application.
+     * 
+     * @param since the exclusive lower bound for updated_at
+     * @return changed entities ordered by updated_at
+     */
+    List<T> findUpdatedSince(LocalDateTime since);
+    
+    /**
+     * Retrieves the IDs of all entities without loading the rows.
+     * 
+     * @return list of all IDs
+     */
+    List<ID> findAllIds();
+    
     /**
      * Updates an existing entity.
      * 
      * @param entity the entity to update
-     * @return the updated entity
+     * @return the row as stored after the update
      */
     T update(T entity);
     
+    /**
+     * Updates all entities in one transaction using JDBC batching.
+     * If any entity does not exist, nothing is updated.
+     * 
+     * @param entities the entities to update
+     * @return the rows as stored after the update, in input order
+     * @throws com.sport.exception.EntityNotFoundException for the first missing entity
+     */
+    List<T> updateAll(List<T> entities);
+    
+    /**
+     * Bulk import through COPY: the source's records are copied into a temporary
+     * staging table and merged in one transaction. Records with an ID update that
+     * entity, records without one are inserted. Rows that fail database-side checks
+     * (unknown ID, broken reference) are rejected in the report; everything else commits.
+     * 
+     * @param source validated records, read while the COPY is open
+     * @param report receives rejected rows and the inserted/updated counts
+     */
+    void importAll(BulkImport.Source<T> source, BulkImport.Report report);
+    
     /**
      * Deletes an entity by its ID.
      * 
@@ -53,14 +132,24 @@ public interface CrudRepository<T, ID> {
     
     /**
      * Checks if an entity exists by its ID.
+     * Runs an existence query without loading the entity.
      * 
      * @param id the entity ID
      * @return true if exists
      */
     boolean existsById(ID id);
     
+    /**
+     * Checks that every given ID exists, using a single query.
+     * 
+     * @param ids the entity IDs
+     * @return true if all exist (also for an empty collection)
+     */
+    boolean existsAllById(Collection<ID> ids);
+    
     /**
      * Counts total number of entities.
+     * Runs SELECT COUNT(*) on the database side.
      * 
      * @return the count
      */
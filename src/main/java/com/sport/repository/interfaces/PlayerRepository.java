@@ -1,6 +1,8 @@
 package com.sport.repository.interfaces;
 
 import com.sport.domain.Player;
+import com.sport.domain.PlayerSummary;
+import com.sport.util.PageCursor;
 import java.util.List;
 
 public interface PlayerRepository extends CrudRepository<Player, Integer> {
@@ -34,4 +36,18 @@ public interface PlayerRepository extends CrudRepository<Player, Integer> {
      * Найти свободных агентов (без команды).
      */
     List<Player> findFreeAgents();
+
+    /**
+     * Страница игроков в порядке (last_name, first_name, id), начиная строго после курсора.
+     * Курсор несёт last_name и first_name последней строки предыдущей страницы.
+     *
+     * @param after курсор или null для первой страницы
+     * @param limit максимальное число строк
+     */
+    List<Player> findPage(PageCursor after, int limit);
+
+    /**
+     * То же, что findPage, но читает только колонки PlayerSummary.
+     */
+    List<PlayerSummary> findSummaryPage(PageCursor after, int limit);
 }
\ No newline at end of file
@@ -1,6 +1,8 @@
 package com.sport.repository.interfaces;
 
 import com.sport.domain.Team;
+import com.sport.domain.TeamSummary;
+import com.sport.util.PageCursor;
 import java.util.List;
 
 // Внимание: поменял Long на Integer, так как в базе id - это int4 (Serial)
@@ -10,4 +12,17 @@ public interface TeamRepository extends CrudRepository<Team, Integer> {
     List<Team> findByLocation(String location);
     List<Team> findByCoach(String coach);
     List<Team> searchByName(String namePart);
+
+    /**
+     * Страница команд в порядке (name, id), начиная строго после курсора (несёт name).
+     *
+     * @param after курсор или null для первой страницы
+     * @param limit максимальное число строк
+     */
+    List<Team> findPage(PageCursor after, int limit);
+
+    /**
+     * То же, что findPage, но читает только колонки TeamSummary.
+     */
+    List<TeamSummary> findSummaryPage(PageCursor after, int limit);
 }
\ No newline at end of file
@@ -0,0 +1,43 @@
+package com.sport.service.impl;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Helpers for the immutable group-by counters used by the aggregate views.
+ */
+final class CountMaps {
+
+    private CountMaps() {
+        throw new UnsupportedOperationException("Utility class cannot be instantiated");
+    }
+
+    /**
+     * Returns a copy of the counters with {@code delta} added to {@code key}.
+     * Keys that drop to zero are removed; a null key leaves the counters unchanged.
+     */
+    static Map<String, Long> adjust(Map<String, Long> counts, String key, long delta) {
+        if (key == null || delta == 0) {
+            return counts;
+        }
+        Map<String, Long> next = new HashMap<>(counts);
+        long value = next.getOrDefault(key, 0L) + delta;
+        if (value == 0) {
+            next.remove(key);
+        } else {
+            next.put(key, value);
+        }
+        return Collections.unmodifiableMap(next);
+    }
+
+    /**
+     * Moves one count from {@code oldKey} to {@code newKey}.
+     */
+    static Map<String, Long> move(Map<String, Long> counts, String oldKey, String newKey) {
+        if (oldKey != null && oldKey.equals(newKey)) {
+            return counts;
+        }
+        return adjust(adjust(counts, oldKey, -1), newKey, 1);
+    }
+}
@@ -0,0 +1,64 @@
+package com.sport.service.impl;
+
+import com.sport.util.Log;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs the periodic reconciliation of in-memory data pools on a shared daemon thread.
+ * Writes made through the services are applied to the pools directly; this pass only
+ * catches rows changed or deleted outside the application.
+ */
+final class DataPoolReconciler {
+
+    static final long INTERVAL_MS = Long.getLong("datapool.reconcileIntervalMs", 30_000L);
+
+    // CURRENT_TIMESTAMP is the transaction start time, so a row committed after the
+    // last pass can carry an updated_at slightly older than the watermark
+    static final long OVERLAP_SECONDS = 5;
+
+    // Lower bound for an empty table
+    static final LocalDateTime INITIAL_WATERMARK = LocalDateTime.of(1970, 1, 1, 0, 0);
+
+    private static final Log LOG = Log.get(DataPoolReconciler.class);
+
+    private static final ScheduledExecutorService SCHEDULER = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "data-pool-reconciler");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private DataPoolReconciler() {
+        throw new UnsupportedOperationException("Utility class cannot be instantiated");
+    }
+
+    /**
+     * Schedules a reconciliation task with the configured interval.
+     * Disabled when -Ddatapool.reconcileIntervalMs is 0.
+     *
+     * @param poolName name used in error messages
+     * @param task     the reconciliation pass
+     */
+    static void schedule(String poolName, Runnable task) {
+        if (INTERVAL_MS <= 0) {
+            return;
+        }
+        SCHEDULER.scheduleWithFixedDelay(() -> {
+            try {
+                task.run();
+            } catch (RuntimeException e) {
+                LOG.error("Reconciliation failed", e, "pool", poolName);
+            }
+        }, INTERVAL_MS, INTERVAL_MS, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Returns the later of the current watermark and a row's updated_at.
+     */
+    static LocalDateTime advance(LocalDateTime watermark, LocalDateTime updatedAt) {
+        return updatedAt != null && updatedAt.isAfter(watermark) ? updatedAt : watermark;
+    }
+}
@@ -0,0 +1,152 @@
+package com.sport.service.impl;
+
+import com.sport.domain.Player;
+import com.sport.util.SnapshotStore;
+
+import java.math.BigDecimal;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Running totals behind the player statistics: count, rating and age sums and the
+ * number of players per position. Immutable and updated per change by the player
+ * {@link SnapshotStore}, so statistics are read in O(1) instead of a pass over the pool.
+ * Ratings are summed as decimals so adding and subtracting them never drifts.
+ */
+public final class PlayerAggregates {
+
+    /**
+     * Registered with the player {@link SnapshotStore}.
+     */
+    public static final SnapshotStore.View<Player, PlayerAggregates> VIEW = new SnapshotStore.View<>() {
+        @Override
+        public PlayerAggregates build(List<Player> players) {
+            return PlayerAggregates.build(players);
+        }
+
+        @Override
+        public PlayerAggregates update(PlayerAggregates current, Player removed, Player added) {
+            return current.update(removed, added);
+        }
+    };
+
+    private final long count;
+    private final long ratedCount;
+    private final BigDecimal ratingSum;
+    private final long agedCount;
+    private final long ageSum;
+    private final Map<String, Long> byPosition;
+
+    private PlayerAggregates(long count, long ratedCount, BigDecimal ratingSum,
+                             long agedCount, long ageSum, Map<String, Long> byPosition) {
+        this.count = count;
+        this.ratedCount = ratedCount;
+        this.ratingSum = ratingSum;
+        this.agedCount = agedCount;
+        this.ageSum = ageSum;
+        this.byPosition = byPosition;
+    }
+
+    static PlayerAggregates build(List<Player> players) {
+        long ratedCount = 0;
+        BigDecimal ratingSum = BigDecimal.ZERO;
+        long agedCount = 0;
+        long ageSum = 0;
+        Map<String, Long> byPosition = new HashMap<>();
+
+        for (Player player : players) {
+            if (player.getRating() != null) {
+                ratedCount++;
+                ratingSum = ratingSum.add(BigDecimal.valueOf(player.getRating()));
+            }
+            if (player.getAge() != null) {
+                agedCount++;
+                ageSum += player.getAge();
+            }
+            if (player.getPosition() != null) {
+                byPosition.merge(player.getPosition(), 1L, Long::sum);
+            }
+        }
+        return new PlayerAggregates(players.size(), ratedCount, ratingSum,
+                agedCount, ageSum, Collections.unmodifiableMap(byPosition));
+    }
+
+    private PlayerAggregates update(Player removed, Player added) {
+        long count = this.count;
+        long ratedCount = this.ratedCount;
+        BigDecimal ratingSum = this.ratingSum;
+        long agedCount = this.agedCount;
+        long ageSum = this.ageSum;
+
+        if (removed != null) {
+            count--;
+            if (removed.getRating() != null) {
+                ratedCount--;
+                ratingSum = ratingSum.subtract(BigDecimal.valueOf(removed.getRating()));
+            }
+            if (removed.getAge() != null) {
+                agedCount--;
+                ageSum -= removed.getAge();
+            }
+        }
+        if (added != null) {
+            count++;
+            if (added.getRating() != null) {
+                ratedCount++;
+                ratingSum = ratingSum.add(BigDecimal.valueOf(added.getRating()));
+            }
+            if (added.getAge() != null) {
+                agedCount++;
+                ageSum += added.getAge();
+            }
+        }
+
+        return new PlayerAggregates(count, ratedCount, ratingSum, agedCount, ageSum,
+                CountMaps.move(byPosition,
+                        removed == null ? null : removed.getPosition(),
+                        added == null ? null : added.getPosition()));
+    }
+
+    long count() {
+        return count;
+    }
+
+    double averageRating() {
+        return ratedCount == 0 ? 0.0 : ratingSum.doubleValue() / ratedCount;
+    }
+
+    double averageAge() {
+        return agedCount == 0 ? 0.0 : (double) ageSum / agedCount;
+    }
+
+    Map<String, Long> playersByPosition() {
+        return byPosition;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        PlayerAggregates that = (PlayerAggregates) o;
+        return count == that.count
+                && ratedCount == that.ratedCount
+                && ratingSum.compareTo(that.ratingSum) == 0
+                && agedCount == that.agedCount
+                && ageSum == that.ageSum
+                && byPosition.equals(that.byPosition);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(count, ratedCount, ratingSum.stripTrailingZeros(), agedCount, ageSum, byPosition);
+    }
+
+    @Override
+    public String toString() {
+        return "PlayerAggregates{count=" + count + ", ratingSum=" + ratingSum + ", ageSum=" + ageSum +
+                ", byPosition=" + byPosition + '}';
+    }
+}
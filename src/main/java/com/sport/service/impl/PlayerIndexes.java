@@ -0,0 +1,297 @@
+package com.sport.service.impl;
+
+import com.sport.domain.Player;
+import com.sport.util.OrderStatisticTree;
+import com.sport.util.SnapshotStore;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Objects;
+
+/**
+ * Secondary indexes over the player data pool: by team, by case-folded position,
+ * free agents, by ID and the rating leaderboard. Immutable; every change produces
+ * a new value that is published together with the pool snapshot, so lookups cost
+ * O(K + log N) instead of a full scan or sort.
+ * All indexes are persistent {@link OrderStatisticTree}s: a bucket such as "team 7"
+ * is a key range of one tree ordered by (key, {@link #NAME_ORDER}), so a single-player
+ * write costs O(log N) per index and never copies a bucket, and buckets list players
+ * in the same order as the whole pool.
+ */
+public final class PlayerIndexes {
+
+    /**
+     * Highest rating first; ties broken by ID so the order is total.
+     */
+    static final Comparator<Player> RATING_ORDER = Comparator
+            .comparingDouble(PlayerIndexes::rating).reversed()
+            .thenComparing(Player::getId);
+
+    static final Comparator<Player> ID_ORDER = Comparator.comparing(Player::getId);
+
+    /**
+     * Order of the player listing, as in FIND_ALL (last_name, first_name; NULLs last), then ID.
+     */
+    static final Comparator<Player> NAME_ORDER = Comparator
+            .comparing(Player::getLastName, Comparator.nullsLast(Comparator.<String>naturalOrder()))
+            .thenComparing(Player::getFirstName, Comparator.nullsLast(Comparator.<String>naturalOrder()))
+            .thenComparing(Player::getId);
+
+    private static final Comparator<Player> TEAM_ORDER = Comparator
+            .comparing(Player::getTeamId)
+            .thenComparing(NAME_ORDER);
+
+    private static final Comparator<Player> POSITION_ORDER = Comparator
+            .comparing((Player player) -> positionKey(player.getPosition()))
+            .thenComparing(NAME_ORDER);
+
+    /**
+     * Registered with the player {@link SnapshotStore}.
+     */
+    public static final SnapshotStore.View<Player, PlayerIndexes> VIEW = new SnapshotStore.View<>() {
+        @Override
+        public PlayerIndexes build(List<Player> players) {
+            return PlayerIndexes.build(players);
+        }
+
+        @Override
+        public PlayerIndexes update(PlayerIndexes current, Player removed, Player added) {
+            return current.update(removed, added);
+        }
+    };
+
+    private final OrderStatisticTree<Player> byTeam;
+    private final OrderStatisticTree<Player> byPosition;
+    private final OrderStatisticTree<Player> freeAgents;
+    private final OrderStatisticTree<Player> byId;
+    private final OrderStatisticTree<Player> leaderboard;
+
+    private PlayerIndexes(OrderStatisticTree<Player> byTeam, OrderStatisticTree<Player> byPosition,
+                          OrderStatisticTree<Player> freeAgents, OrderStatisticTree<Player> byId,
+                          OrderStatisticTree<Player> leaderboard) {
+        this.byTeam = byTeam;
+        this.byPosition = byPosition;
+        this.freeAgents = freeAgents;
+        this.byId = byId;
+        this.leaderboard = leaderboard;
+    }
+
+    // --- Lookups ---
+
+    // Buckets are returned in NAME_ORDER, like the pool listing
+
+    /**
+     * Players whose team ID equals the argument. Team 0 is a valid key here, although
+     * such players are also free agents.
+     */
+    List<Player> byTeam(Integer teamId) {
+        if (teamId == null) {
+            return List.of();
+        }
+        Player next = teamId == Integer.MAX_VALUE ? null : firstOfKey().teamId(teamId + 1).build();
+        return keyRange(byTeam, firstOfKey().teamId(teamId).build(), next);
+    }
+
+    List<Player> byPosition(String position) {
+        if (position == null) {
+            return List.of();
+        }
+        String key = positionKey(position);
+        // key + '\0' - наименьшая строка больше key, с неё начинается следующий ключ
+        return keyRange(byPosition, firstOfKey().position(key).build(),
+                firstOfKey().position(key + '\0').build());
+    }
+
+    List<Player> freeAgents() {
+        return freeAgents.range(0, freeAgents.size());
+    }
+
+    Player byId(Integer id) {
+        return id == null ? null : byId.find(probe(id, 0.0));
+    }
+
+    // --- Leaderboard ---
+
+    int size() {
+        return leaderboard.size();
+    }
+
+    /**
+     * Returns a page of the leaderboard, highest rating first.
+     */
+    List<Player> topRated(int offset, int limit) {
+        return leaderboard.range(offset, limit);
+    }
+
+    /**
+     * 1-based competition rank ("1224"): players with equal rating share a rank.
+     */
+    int rankOf(Player player) {
+        return leaderboard.countLessThan(probe(Integer.MIN_VALUE, rating(player))) + 1;
+    }
+
+    /**
+     * Share of players with a strictly lower rating, in percent.
+     */
+    double percentileOf(Player player) {
+        int total = leaderboard.size();
+        if (total == 0) {
+            return 0.0;
+        }
+        int atOrAbove = leaderboard.countLessThan(probe(Integer.MAX_VALUE, rating(player)));
+        return (total - atOrAbove) * 100.0 / total;
+    }
+
+    /**
+     * Rating at the given percentile (nearest rank), or 0.0 for an empty pool.
+     */
+    double ratingAtPercentile(double percentile) {
+        int total = leaderboard.size();
+        if (total == 0) {
+            return 0.0;
+        }
+        double clamped = Math.max(0.0, Math.min(100.0, percentile));
+        int index = (int) Math.round((100.0 - clamped) / 100.0 * (total - 1));
+        return rating(leaderboard.get(index));
+    }
+
+    // --- Maintenance ---
+
+    private static PlayerIndexes build(List<Player> players) {
+        List<Player> onTeams = new ArrayList<>();
+        List<Player> withPosition = new ArrayList<>();
+        List<Player> freeAgents = new ArrayList<>();
+
+        for (Player player : players) {
+            if (player.getTeamId() != null) {
+                onTeams.add(player);
+            }
+            if (isFreeAgent(player)) {
+                freeAgents.add(player);
+            }
+            if (player.getPosition() != null) {
+                withPosition.add(player);
+            }
+        }
+
+        return new PlayerIndexes(OrderStatisticTree.of(onTeams, TEAM_ORDER),
+                OrderStatisticTree.of(withPosition, POSITION_ORDER),
+                OrderStatisticTree.of(freeAgents, NAME_ORDER),
+                OrderStatisticTree.of(players, ID_ORDER), OrderStatisticTree.of(players, RATING_ORDER));
+    }
+
+    private PlayerIndexes update(Player removed, Player added) {
+        return new PlayerIndexes(
+                replaceInTree(byTeam, onTeam(removed), onTeam(added)),
+                replaceInTree(byPosition, withPosition(removed), withPosition(added)),
+                replaceInTree(freeAgents, freeAgent(removed), freeAgent(added)),
+                replaceInTree(byId, removed, added),
+                replaceInTree(leaderboard, removed, added));
+    }
+
+    // Each helper returns the player only if it belongs in the corresponding tree
+
+    private static Player onTeam(Player player) {
+        return player != null && player.getTeamId() != null ? player : null;
+    }
+
+    private static Player withPosition(Player player) {
+        return player != null && player.getPosition() != null ? player : null;
+    }
+
+    private static Player freeAgent(Player player) {
+        return player != null && isFreeAgent(player) ? player : null;
+    }
+
+    /**
+     * Returns the elements from the first probe of a key up to the first probe of the
+     * next key; a null {@code next} means up to the end of the tree.
+     */
+    private static List<Player> keyRange(OrderStatisticTree<Player> tree, Player first, Player next) {
+        int from = tree.countLessThan(first);
+        int to = next != null ? tree.countLessThan(next) : tree.size();
+        return tree.range(from, to - from);
+    }
+
+    /**
+     * Probe that sorts before every player with the same key: NAME_ORDER puts NULL names
+     * last, so the empty name is the smallest one.
+     */
+    private static Player.Builder firstOfKey() {
+        return new Player.Builder().lastName("").firstName("").id(Integer.MIN_VALUE);
+    }
+
+    private static OrderStatisticTree<Player> replaceInTree(OrderStatisticTree<Player> tree,
+                                                            Player removed, Player added) {
+        OrderStatisticTree<Player> next = tree;
+        if (removed != null) {
+            next = next.remove(removed);
+        }
+        if (added != null) {
+            next = next.insert(added);
+        }
+        return next;
+    }
+
+    /**
+     * Two indexes are equal when every tree holds the same player objects in the same order,
+     * so a stale copy of a player counts as a difference.
+     */
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        PlayerIndexes that = (PlayerIndexes) o;
+        return sameElements(byTeam, that.byTeam)
+                && sameElements(byPosition, that.byPosition)
+                && sameElements(freeAgents, that.freeAgents)
+                && sameElements(byId, that.byId)
+                && sameElements(leaderboard, that.leaderboard);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(byTeam.size(), byPosition.size(), freeAgents.size(), byId.size(), leaderboard.size());
+    }
+
+    @Override
+    public String toString() {
+        return "PlayerIndexes{onTeams=" + byTeam.size() + ", withPosition=" + byPosition.size() +
+                ", freeAgents=" + freeAgents.size() + ", players=" + byId.size() + '}';
+    }
+
+    private static boolean sameElements(OrderStatisticTree<Player> a, OrderStatisticTree<Player> b) {
+        if (a.size() != b.size()) {
+            return false;
+        }
+        List<Player> left = a.range(0, a.size());
+        List<Player> right = b.range(0, b.size());
+        for (int i = 0; i < left.size(); i++) {
+            if (left.get(i) != right.get(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Search key for the trees: compares like a player with the given ID and rating.
+     */
+    private static Player probe(Integer id, double rating) {
+        return new Player.Builder().id(id).rating(rating).build();
+    }
+
+    static boolean isFreeAgent(Player player) {
+        return player.getTeamId() == null || player.getTeamId() == 0;
+    }
+
+    static String positionKey(String position) {
+        return position.toLowerCase(Locale.ROOT);
+    }
+
+    static double rating(Player player) {
+        return player.getRating() != null ? player.getRating() : 0.0;
+    }
+}
@@ -1,45 +1,153 @@
 package com.sport.service.impl;
 
 import com.sport.domain.Player;
+import com.sport.domain.PlayerSummary;
 import com.sport.exception.EntityNotFoundException;
 import com.sport.exception.ValidationException;
 import com.sport.repository.interfaces.PlayerRepository;
 import com.sport.repository.interfaces.TeamRepository;
 import com.sport.service.interfaces.PlayerService;
-
+import com.sport.util.BulkImport;
+import com.sport.util.JsonUtil;
+import com.sport.util.Log;
+import com.sport.util.OrderStatisticTree;
+import com.sport.util.Page;
+import com.sport.util.PageCursor;
+import com.sport.util.SnapshotStore;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.time.LocalDateTime;
 import java.util.*;
+import java.util.function.BiFunction;
+import java.util.function.Function;
 import java.util.function.Predicate;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 /**
  * Implementation of PlayerService.
  */
 public class PlayerServiceImpl implements PlayerService {
 
+    private static final Log LOG = Log.get(PlayerServiceImpl.class);
+
     private final PlayerRepository playerRepository;
     private final TeamRepository teamRepository; // Добавили поле
 
-    // In-memory data pool
-    private final List<Player> playerDataPool;
+    // In-memory data pool: readers see an immutable snapshot, writes publish a new one
+    private final SnapshotStore<Player> playerDataPool;
+
+    // Пул в порядке списка (как FIND_ALL): сами items хранятся в порядке вставки
+    private static final SnapshotStore.View<Player, OrderStatisticTree<Player>> BY_NAME =
+            SnapshotStore.sortedView(PlayerIndexes.NAME_ORDER);
+
+    // Upper bound for one batch request
+    private static final int MAX_BATCH_SIZE = 10_000;
+
+    // Serialises every pool write with the reconciliation pass and full reloads. A pass reads
+    // rows and applies them under this lock, so it cannot overwrite a newer row that a writer
+    // committed and put into the pool while the pass was reading.
+    private final Object poolLock = new Object();
+
+    // Latest updated_at seen in the pool, used by the reconciliation pass; guarded by poolLock
+    private LocalDateTime watermark = DataPoolReconciler.INITIAL_WATERMARK;
 
     // ОБНОВЛЕННЫЙ КОНСТРУКТОР: принимает ДВА репозитория
     public PlayerServiceImpl(PlayerRepository playerRepository, TeamRepository teamRepository) {
         this.playerRepository = playerRepository;
         this.teamRepository = teamRepository;
-        this.playerDataPool = new ArrayList<>();
+        this.playerDataPool = new SnapshotStore<>(Player::getId, List.of(PlayerIndexes.VIEW, PlayerAggregates.VIEW, BY_NAME));
         refreshDataPool();
+        DataPoolReconciler.schedule("player", this::reconcileDataPool);
     }
 
+    /**
+     * Initial load. Writes update the pool incrementally; only a bulk import reloads it again.
+     */
     private void refreshDataPool() {
-        playerDataPool.clear();
-        playerDataPool.addAll(playerRepository.findAll());
+        try {
+            rebuildDataPool();
+        } catch (RuntimeException e) {
+            // Как и раньше с findAll: без БД стартуем с пустым пулом, догонит сверка
+            LOG.error("Initial load of player pool failed, starting empty", e);
+            synchronized (poolLock) {
+                watermark = DataPoolReconciler.INITIAL_WATERMARK;
+                playerDataPool.replaceAll(List.of());
+            }
+        }
+    }
+
+    /**
+     * Full reload. The pool and the watermark change only after every row was read,
+     * so a failed reload keeps the current snapshot. Pool writes wait until it is done.
+     */
+    private void rebuildDataPool() {
+        synchronized (poolLock) {
+            List<Player> players = new ArrayList<>();
+            LocalDateTime[] latest = {watermark};
+            // Строки идут из курсора пачками; watermark считаем в том же проходе
+            playerRepository.forEachEntity(player -> {
+                players.add(player);
+                latest[0] = DataPoolReconciler.advance(latest[0], player.getUpdatedAt());
+            });
+            playerDataPool.replaceAll(players);
+            watermark = latest[0];
+        }
+    }
+
+    /**
+     * Applies rows changed since the last watermark and drops rows deleted
+     * outside the application.
+     */
+    private void reconcileDataPool() {
+        synchronized (poolLock) {
+            Set<Integer> pooledIds = playerDataPool.snapshot().stream()
+                    .map(Player::getId)
+                    .collect(Collectors.toCollection(HashSet::new));
+
+            List<Player> changed = playerRepository.findUpdatedSince(
+                    watermark.minusSeconds(DataPoolReconciler.OVERLAP_SECONDS));
+            Set<Integer> liveIds = new HashSet<>(playerRepository.findAllIds());
+
+            // Only ids pooled before the id scan can be judged deleted; newer ones were just created
+            pooledIds.removeAll(liveIds);
+
+            List<Player> upserts = new ArrayList<>();
+            for (Player player : changed) {
+                if (liveIds.contains(player.getId())) {
+                    upserts.add(player);
+                }
+                watermark = DataPoolReconciler.advance(watermark, player.getUpdatedAt());
+            }
+            playerDataPool.apply(upserts, pooledIds);
+            pooledIds.forEach(JsonUtil::invalidatePlayer);
+            upserts.forEach(player -> JsonUtil.invalidatePlayer(player.getId()));
+        }
+    }
+
+    private PlayerIndexes indexes() {
+        return playerDataPool.snapshot().view(PlayerIndexes.VIEW);
+    }
+
+    private PlayerAggregates aggregates() {
+        return playerDataPool.snapshot().view(PlayerAggregates.VIEW);
+    }
+
+    private List<Player> inNameOrder() {
+        OrderStatisticTree<Player> byName = playerDataPool.snapshot().view(BY_NAME);
+        return byName.range(0, byName.size());
     }
 
     @Override
     public Player createPlayer(Player player) {
         validatePlayer(player);
         Player saved = playerRepository.save(player);
-        refreshDataPool();
+        synchronized (poolLock) {
+            playerDataPool.put(saved);
+        }
         return saved;
     }
 
@@ -51,7 +159,42 @@ public class PlayerServiceImpl implements PlayerService {
 
     @Override
     public List<Player> getAllPlayers() {
-        return new ArrayList<>(playerDataPool);
+        return new ArrayList<>(inNameOrder());
+    }
+
+    @Override
+    public Page<Player> getPlayersPage(String after, int limit) {
+        return page(after, limit, playerRepository::findPage,
+                last -> new PageCursor(last.getId(), last.getLastName(), last.getFirstName()));
+    }
+
+    @Override
+    public Page<PlayerSummary> getPlayerSummariesPage(String after, int limit) {
+        return page(after, limit, playerRepository::findSummaryPage,
+                last -> new PageCursor(last.getId(), last.getLastName(), last.getFirstName()));
+    }
+
+    // Страницы полных игроков и проекций идут в одном порядке, курсоры взаимозаменяемы
+    private <T> Page<T> page(String after, int limit, BiFunction<PageCursor, Integer, List<T>> fetch,
+                             Function<T, PageCursor> cursorOf) {
+        if (limit < 1 || limit > Page.MAX_LIMIT) {
+            throw new ValidationException("Player", "limit must be between 1 and " + Page.MAX_LIMIT);
+        }
+        PageCursor cursor = null;
+        if (after != null && !after.isEmpty()) {
+            try {
+                cursor = PageCursor.decode(after, 2);
+            } catch (IllegalArgumentException e) {
+                throw new ValidationException("Player", "Invalid page cursor", e);
+            }
+        }
+        // Лишняя строка показывает, есть ли следующая страница, без отдельного COUNT
+        List<T> rows = fetch.apply(cursor, limit + 1);
+        if (rows.size() <= limit) {
+            return new Page<>(rows, limit, null);
+        }
+        String next = cursorOf.apply(rows.get(limit - 1)).encode();
+        return new Page<>(new ArrayList<>(rows.subList(0, limit)), limit, next);
     }
 
     @Override
@@ -65,55 +208,160 @@ public class PlayerServiceImpl implements PlayerService {
         }
 
         Player updated = playerRepository.update(player);
-        refreshDataPool();
+        synchronized (poolLock) {
+            playerDataPool.put(updated);
+        }
+        JsonUtil.invalidatePlayer(updated.getId());
+        return updated;
+    }
+
+    @Override
+    public List<Player> createPlayers(List<Player> players) {
+        validatePlayers(players, false);
+        List<Player> saved = playerRepository.saveAll(players);
+        // Весь пакет публикуется в пуле одной новой версией
+        synchronized (poolLock) {
+            playerDataPool.apply(saved, List.of());
+        }
+        return saved;
+    }
+
+    @Override
+    public List<Player> updatePlayers(List<Player> players) {
+        validatePlayers(players, true);
+        List<Player> updated = playerRepository.updateAll(players);
+        synchronized (poolLock) {
+            playerDataPool.apply(updated, List.of());
+        }
+        updated.forEach(player -> JsonUtil.invalidatePlayer(player.getId()));
         return updated;
     }
 
+    @Override
+    public BulkImport.Report importPlayers(InputStream body, BulkImport.Format format) {
+        BulkImport.Report report = new BulkImport.Report("players", format);
+        Set<Integer> ids = new HashSet<>();
+        // Поля проверяем по мере чтения; ссылки на команды и ID проверит SQL по staging-таблице
+        playerRepository.importAll(sink -> BulkImport.readRecords(body, format, Player.class,
+                PlayerServiceImpl::playerFromCsv, report, (line, player) -> {
+                    if (player.getId() != null && player.getId() == 0) {
+                        player.setId(null);
+                    }
+                    List<String> errors = fieldErrors(player);
+                    if (player.getId() != null && !ids.add(player.getId())) {
+                        errors.add("Player ID " + player.getId() + " appears more than once");
+                    }
+                    if (errors.isEmpty()) {
+                        sink.accept(line, player);
+                    } else {
+                        report.reject(line, errors);
+                    }
+                }), report);
+
+        // Один полный перезапуск пула на весь импорт вместо обновления по строке
+        try {
+            rebuildDataPool();
+        } catch (RuntimeException e) {
+            // Импорт уже зафиксирован; пул догонит сверка
+            LOG.warn("Reload of player pool after import failed", e);
+        }
+        return report.finish();
+    }
+
+    @Override
+    public long exportPlayers(OutputStream out, BulkImport.Format format) {
+        if (format == BulkImport.Format.CSV) {
+            return playerRepository.exportCsv(out);
+        }
+        // Курсор БД, а не пул: выгрузка видит ровно то, что зафиксировано, и не держит список в памяти
+        try (Stream<Player> players = playerRepository.streamAll()) {
+            return JsonUtil.writeLines(players.iterator(), Player.class, out);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to write player export", e);
+        }
+    }
+
+    // Заголовки CSV приходят нормализованными: без регистра и подчёркиваний
+    private static Player playerFromCsv(Map<String, String> record) {
+        return new Player.Builder()
+                .id(BulkImport.intField(record, "id"))
+                .firstName(BulkImport.stringField(record, "firstname"))
+                .lastName(BulkImport.stringField(record, "lastname"))
+                .age(BulkImport.intField(record, "age"))
+                .position(BulkImport.stringField(record, "position"))
+                .rating(BulkImport.doubleField(record, "rating"))
+                .teamId(BulkImport.intField(record, "teamid"))
+                .jerseyNumber(BulkImport.intField(record, "jerseynumber"))
+                .build();
+    }
+
     @Override
     public void deletePlayer(Integer id) {
         if (!playerRepository.deleteById(id)) {
             throw new EntityNotFoundException("Player", id);
         }
-        refreshDataPool();
+        synchronized (poolLock) {
+            playerDataPool.remove(id);
+        }
+        JsonUtil.invalidatePlayer(id);
     }
 
     // --- STREAM API & LAMBDA DEMO ---
 
+    // Lookups below are served from the secondary indexes of the current snapshot
+
     @Override
     public List<Player> getPlayersByTeam(Integer teamId) {
-        return playerDataPool.stream()
-                .filter(player -> {
-                    Integer tid = player.getTeamId();
-                    return tid != null && tid.equals(teamId);
-                })
-                .collect(Collectors.toList());
+        return new ArrayList<>(indexes().byTeam(teamId));
     }
 
     @Override
     public List<Player> getPlayersByPosition(String position) {
-        return playerDataPool.stream()
-                .filter(player -> player.getPosition().equalsIgnoreCase(position))
-                .collect(Collectors.toList());
+        return new ArrayList<>(indexes().byPosition(position));
     }
 
     @Override
     public List<Player> getTopRatedPlayers(int limit) {
-        return playerDataPool.stream()
-                .sorted(Comparator.comparingDouble(Player::getRating).reversed())
-                .limit(limit)
-                .collect(Collectors.toList());
+        return new ArrayList<>(indexes().topRated(0, limit));
     }
 
     @Override
     public List<Player> getFreeAgents() {
-        return playerDataPool.stream()
-                .filter(player -> player.getTeamId() == null || player.getTeamId() == 0)
-                .collect(Collectors.toList());
+        return new ArrayList<>(indexes().freeAgents());
+    }
+
+    // --- LEADERBOARD ---
+
+    @Override
+    public List<Player> getLeaderboard(int offset, int limit) {
+        return new ArrayList<>(indexes().topRated(offset, limit));
+    }
+
+    @Override
+    public Map<String, Object> getPlayerRanking(Integer playerId) {
+        PlayerIndexes indexes = indexes();
+        Player player = indexes.byId(playerId);
+        if (player == null) {
+            throw new EntityNotFoundException("Player", playerId);
+        }
+
+        Map<String, Object> ranking = new LinkedHashMap<>();
+        ranking.put("playerId", player.getId());
+        ranking.put("rating", player.getRating());
+        ranking.put("rank", indexes.rankOf(player));
+        ranking.put("totalPlayers", indexes.size());
+        ranking.put("percentile", Math.round(indexes.percentileOf(player) * 100.0) / 100.0);
+        return ranking;
+    }
+
+    @Override
+    public double getRatingAtPercentile(double percentile) {
+        return indexes().ratingAtPercentile(percentile);
     }
 
     @Override
     public List<Player> filterPlayers(Predicate<Player> predicate) {
-        return playerDataPool.stream()
+        return inNameOrder().stream()
                 .filter(predicate)
                 .collect(Collectors.toList());
     }
@@ -144,7 +392,7 @@ public class PlayerServiceImpl implements PlayerService {
             comparator = comparator.reversed();
         }
 
-        return playerDataPool.stream()
+        return playerDataPool.snapshot().stream()
                 .sorted(comparator)
                 .collect(Collectors.toList());
     }
@@ -152,35 +400,105 @@ public class PlayerServiceImpl implements PlayerService {
     @Override
     public Map<String, Object> getPlayerStatistics() {
         Map<String, Object> stats = new HashMap<>();
+        // Running totals from one snapshot, so all numbers describe the same version of the pool
+        PlayerAggregates aggregates = aggregates();
 
-        stats.put("totalPlayers", (long) playerDataPool.size());
-        stats.put("averageRating", calculateAverageRating());
-        stats.put("averageAge", playerDataPool.stream()
-                .mapToInt(Player::getAge).average().orElse(0.0));
-
-        Map<String, Long> playersByPosition = playerDataPool.stream()
-                .collect(Collectors.groupingBy(Player::getPosition, Collectors.counting()));
-        stats.put("playersByPosition", playersByPosition);
+        stats.put("totalPlayers", aggregates.count());
+        stats.put("averageRating", aggregates.averageRating());
+        stats.put("averageAge", aggregates.averageAge());
+        stats.put("playersByPosition", aggregates.playersByPosition());
 
         return stats;
     }
 
     @Override
     public double calculateAverageRating() {
-        return playerDataPool.stream()
-                .mapToDouble(Player::getRating)
-                .average()
-                .orElse(0.0);
+        return aggregates().averageRating();
     }
 
     @Override
     public long countPlayers() {
-        return playerDataPool.size();
+        return playerDataPool.snapshot().size();
+    }
+
+    @Override
+    public long getDataVersion() {
+        return playerDataPool.snapshot().version();
+    }
+
+    @Override
+    public long getDataTimestamp() {
+        return playerDataPool.snapshot().timestamp();
     }
 
     // --- VALIDATION ---
 
     private void validatePlayer(Player player) {
+        List<String> errors = fieldErrors(player);
+
+        // Валидация команды (используем второй репозиторий)
+        if (player.getTeamId() != null && player.getTeamId() != 0) {
+            if (!teamRepository.existsById(player.getTeamId())) {
+                errors.add("Team with ID " + player.getTeamId() + " does not exist");
+            }
+        }
+
+        if (!errors.isEmpty()) {
+            throw new ValidationException("Player", errors);
+        }
+    }
+
+    /**
+     * Validates a whole batch and reports all errors at once, prefixed with the item index.
+     * Team references are checked with one query for the distinct team IDs of the batch.
+     */
+    private void validatePlayers(List<Player> players, boolean update) {
+        if (players == null || players.isEmpty()) {
+            throw new ValidationException("Player", "Batch must contain at least one player");
+        }
+        if (players.size() > MAX_BATCH_SIZE) {
+            throw new ValidationException("Player", "Batch must not contain more than " + MAX_BATCH_SIZE + " players");
+        }
+
+        List<String> errors = new ArrayList<>();
+        Set<Integer> ids = new HashSet<>();
+        Set<Integer> teamIds = new TreeSet<>();
+        for (int i = 0; i < players.size(); i++) {
+            Player player = players.get(i);
+            if (player == null) {
+                errors.add("[" + i + "] Player is required");
+                continue;
+            }
+            for (String error : fieldErrors(player)) {
+                errors.add("[" + i + "] " + error);
+            }
+            if (update) {
+                if (player.getId() == null || player.getId() == 0) {
+                    errors.add("[" + i + "] Player ID is required for update");
+                } else if (!ids.add(player.getId())) {
+                    errors.add("[" + i + "] Player ID " + player.getId() + " appears more than once");
+                }
+            }
+            if (player.getTeamId() != null && player.getTeamId() != 0) {
+                teamIds.add(player.getTeamId());
+            }
+        }
+
+        if (!teamIds.isEmpty() && !teamRepository.existsAllById(teamIds)) {
+            // Редкий случай: ищем, каких именно команд нет (existsById идёт через кэш)
+            for (Integer teamId : teamIds) {
+                if (!teamRepository.existsById(teamId)) {
+                    errors.add("Team with ID " + teamId + " does not exist");
+                }
+            }
+        }
+
+        if (!errors.isEmpty()) {
+            throw new ValidationException("Player", errors);
+        }
+    }
+
+    private List<String> fieldErrors(Player player) {
         List<String> errors = new ArrayList<>();
 
         if (player.getFirstName() == null || player.getFirstName().trim().isEmpty()) {
@@ -189,25 +507,18 @@ public class PlayerServiceImpl implements PlayerService {
         if (player.getLastName() == null || player.getLastName().trim().isEmpty()) {
             errors.add("Last name is required");
         }
-        if (player.getAge() < 16 || player.getAge() > 50) {
+        if (player.getAge() == null || player.getAge() < 16 || player.getAge() > 50) {
             errors.add("Age must be between 16 and 50");
         }
         if (player.getPosition() == null || player.getPosition().trim().isEmpty()) {
             errors.add("Position is required");
         }
-        if (player.getRating() < 0.0 || player.getRating() > 10.0) {
+        if (player.getRating() == null || player.getRating() < 0.0 || player.getRating() > 10.0) {
             errors.add("Rating must be between 0.0 and 10.0");
         }
-
-        // Валидация команды (используем второй репозиторий)
-        if (player.getTeamId() != null && player.getTeamId() != 0) {
-            if (!teamRepository.existsById(player.getTeamId())) {
-                errors.add("Team with ID " + player.getTeamId() + " does not exist");
-            }
-        }
-
-        if (!errors.isEmpty()) {
-            throw new ValidationException("Player", errors);
+        if (player.getJerseyNumber() == null) {
+            errors.add("Jersey number is required");
         }
+        return errors;
     }
-}
\ No newline at end of file
+}
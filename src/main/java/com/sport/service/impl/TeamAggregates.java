@@ -0,0 +1,168 @@
+package com.sport.service.impl;
+
+import com.sport.domain.Team;
+import com.sport.util.OrderStatisticTree;
+import com.sport.util.SnapshotStore;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Running totals behind the team statistics: count, teams per sport and location,
+ * the founded-year sum and the teams ordered by founded year for the oldest team.
+ * Immutable and updated per change by the team {@link SnapshotStore}, so statistics
+ * are read in O(1) (oldest team in O(log N)) instead of a pass over the pool.
+ */
+final class TeamAggregates {
+
+    /**
+     * Oldest first; ties broken by ID so the order is total.
+     */
+    static final Comparator<Team> FOUNDED_ORDER = Comparator
+            .comparingInt(TeamAggregates::foundedYear)
+            .thenComparing(Team::getId);
+
+    /**
+     * Registered with the team {@link SnapshotStore}.
+     */
+    static final SnapshotStore.View<Team, TeamAggregates> VIEW = new SnapshotStore.View<>() {
+        @Override
+        public TeamAggregates build(List<Team> teams) {
+            return TeamAggregates.build(teams);
+        }
+
+        @Override
+        public TeamAggregates update(TeamAggregates current, Team removed, Team added) {
+            return current.update(removed, added);
+        }
+    };
+
+    private final long count;
+    private final Map<String, Long> bySport;
+    private final Map<String, Long> byLocation;
+    private final long foundedYearSum;
+    // Only teams with a known founded year (not 0)
+    private final OrderStatisticTree<Team> byFoundedYear;
+
+    private TeamAggregates(long count, Map<String, Long> bySport, Map<String, Long> byLocation,
+                           long foundedYearSum, OrderStatisticTree<Team> byFoundedYear) {
+        this.count = count;
+        this.bySport = bySport;
+        this.byLocation = byLocation;
+        this.foundedYearSum = foundedYearSum;
+        this.byFoundedYear = byFoundedYear;
+    }
+
+    static TeamAggregates build(List<Team> teams) {
+        Map<String, Long> bySport = new HashMap<>();
+        Map<String, Long> byLocation = new HashMap<>();
+        long foundedYearSum = 0;
+        List<Team> dated = new ArrayList<>();
+
+        for (Team team : teams) {
+            if (team.getSport() != null) {
+                bySport.merge(team.getSport(), 1L, Long::sum);
+            }
+            if (team.getLocation() != null) {
+                byLocation.merge(team.getLocation(), 1L, Long::sum);
+            }
+            if (hasFoundedYear(team)) {
+                foundedYearSum += team.getFoundedYear();
+                dated.add(team);
+            }
+        }
+        return new TeamAggregates(teams.size(), Collections.unmodifiableMap(bySport),
+                Collections.unmodifiableMap(byLocation), foundedYearSum,
+                OrderStatisticTree.of(dated, FOUNDED_ORDER));
+    }
+
+    private TeamAggregates update(Team removed, Team added) {
+        long count = this.count;
+        long foundedYearSum = this.foundedYearSum;
+        OrderStatisticTree<Team> byFoundedYear = this.byFoundedYear;
+
+        if (removed != null) {
+            count--;
+            if (hasFoundedYear(removed)) {
+                foundedYearSum -= removed.getFoundedYear();
+                byFoundedYear = byFoundedYear.remove(removed);
+            }
+        }
+        if (added != null) {
+            count++;
+            if (hasFoundedYear(added)) {
+                foundedYearSum += added.getFoundedYear();
+                byFoundedYear = byFoundedYear.insert(added);
+            }
+        }
+
+        return new TeamAggregates(count,
+                CountMaps.move(bySport,
+                        removed == null ? null : removed.getSport(),
+                        added == null ? null : added.getSport()),
+                CountMaps.move(byLocation,
+                        removed == null ? null : removed.getLocation(),
+                        added == null ? null : added.getLocation()),
+                foundedYearSum, byFoundedYear);
+    }
+
+    long count() {
+        return count;
+    }
+
+    Map<String, Long> teamsBySport() {
+        return bySport;
+    }
+
+    Map<String, Long> teamsByLocation() {
+        return byLocation;
+    }
+
+    double averageFoundedYear() {
+        return byFoundedYear.isEmpty() ? 0.0 : (double) foundedYearSum / byFoundedYear.size();
+    }
+
+    /**
+     * Returns the team with the earliest known founded year, or null.
+     */
+    Team oldestTeam() {
+        return byFoundedYear.isEmpty() ? null : byFoundedYear.get(0);
+    }
+
+    private static boolean hasFoundedYear(Team team) {
+        return foundedYear(team) != 0;
+    }
+
+    private static int foundedYear(Team team) {
+        return team.getFoundedYear() != null ? team.getFoundedYear() : 0;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        TeamAggregates that = (TeamAggregates) o;
+        return count == that.count
+                && foundedYearSum == that.foundedYearSum
+                && bySport.equals(that.bySport)
+                && byLocation.equals(that.byLocation)
+                && byFoundedYear.size() == that.byFoundedYear.size()
+                && Objects.equals(oldestTeam(), that.oldestTeam());
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(count, foundedYearSum, bySport, byLocation, byFoundedYear.size());
+    }
+
+    @Override
+    public String toString() {
+        return "TeamAggregates{count=" + count + ", foundedYearSum=" + foundedYearSum +
+                ", bySport=" + bySport + ", byLocation=" + byLocation + '}';
+    }
+}
@@ -1,14 +1,30 @@
 package com.sport.service.impl;
 
 import com.sport.domain.Team;
+import com.sport.domain.TeamSummary;
 import com.sport.exception.EntityNotFoundException;
 import com.sport.exception.ValidationException;
 import com.sport.repository.interfaces.TeamRepository;
 import com.sport.service.interfaces.TeamService;
+import com.sport.util.BulkImport;
+import com.sport.util.JsonUtil;
+import com.sport.util.Log;
+import com.sport.util.OrderStatisticTree;
+import com.sport.util.Page;
+import com.sport.util.PageCursor;
+import com.sport.util.SnapshotStore;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.time.LocalDateTime;
 import java.util.*;
+import java.util.function.BiFunction;
+import java.util.function.Function;
 import java.util.function.Predicate;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 /**
  * Implementation of TeamService.
@@ -17,28 +33,118 @@ import java.util.stream.Collectors;
  */
 public class TeamServiceImpl implements TeamService {
 
+    private static final Log LOG = Log.get(TeamServiceImpl.class);
+
     private final TeamRepository teamRepository;
 
     // In-memory data pool for demonstration (Requirement #3)
-    private final List<Team> teamDataPool;
+    // Readers see an immutable snapshot, writes publish a new one
+    private final SnapshotStore<Team> teamDataPool;
+
+    // Пул в порядке списка (как FIND_ALL: name, NULL последними), затем ID
+    private static final SnapshotStore.View<Team, OrderStatisticTree<Team>> BY_NAME = SnapshotStore.sortedView(
+            Comparator.comparing(Team::getName, Comparator.nullsLast(Comparator.<String>naturalOrder()))
+                    .thenComparing(Team::getId));
+
+    // Upper bound for one batch request
+    private static final int MAX_BATCH_SIZE = 10_000;
+
+    // Serialises every pool write with the reconciliation pass and full reloads. A pass reads
+    // rows and applies them under this lock, so it cannot overwrite a newer row that a writer
+    // committed and put into the pool while the pass was reading.
+    private final Object poolLock = new Object();
+
+    // Latest updated_at seen in the pool, used by the reconciliation pass; guarded by poolLock
+    private LocalDateTime watermark = DataPoolReconciler.INITIAL_WATERMARK;
 
     public TeamServiceImpl(TeamRepository teamRepository) {
         this.teamRepository = teamRepository;
-        this.teamDataPool = new ArrayList<>();
+        this.teamDataPool = new SnapshotStore<>(Team::getId, List.of(TeamAggregates.VIEW, BY_NAME));
         // Load initial data into memory pool
         refreshDataPool();
+        DataPoolReconciler.schedule("team", this::reconcileDataPool);
     }
 
+    /**
+     * Initial load. Writes update the pool incrementally; only a bulk import reloads it again.
+     */
     private void refreshDataPool() {
-        teamDataPool.clear();
-        teamDataPool.addAll(teamRepository.findAll());
+        try {
+            rebuildDataPool();
+        } catch (RuntimeException e) {
+            // Как и раньше с findAll: без БД стартуем с пустым пулом, догонит сверка
+            LOG.error("Initial load of team pool failed, starting empty", e);
+            synchronized (poolLock) {
+                watermark = DataPoolReconciler.INITIAL_WATERMARK;
+                teamDataPool.replaceAll(List.of());
+            }
+        }
+    }
+
+    /**
+     * Full reload. The pool and the watermark change only after every row was read,
+     * so a failed reload keeps the current snapshot. Pool writes wait until it is done.
+     */
+    private void rebuildDataPool() {
+        synchronized (poolLock) {
+            List<Team> teams = new ArrayList<>();
+            LocalDateTime[] latest = {watermark};
+            // Строки идут из курсора пачками; watermark считаем в том же проходе
+            teamRepository.forEachEntity(team -> {
+                teams.add(team);
+                latest[0] = DataPoolReconciler.advance(latest[0], team.getUpdatedAt());
+            });
+            teamDataPool.replaceAll(teams);
+            watermark = latest[0];
+        }
+    }
+
+    /**
+     * Applies rows changed since the last watermark and drops rows deleted
+     * outside the application.
+     */
+    private void reconcileDataPool() {
+        synchronized (poolLock) {
+            Set<Integer> pooledIds = teamDataPool.snapshot().stream()
+                    .map(Team::getId)
+                    .collect(Collectors.toCollection(HashSet::new));
+
+            List<Team> changed = teamRepository.findUpdatedSince(
+                    watermark.minusSeconds(DataPoolReconciler.OVERLAP_SECONDS));
+            Set<Integer> liveIds = new HashSet<>(teamRepository.findAllIds());
+
+            // Only ids pooled before the id scan can be judged deleted; newer ones were just created
+            pooledIds.removeAll(liveIds);
+
+            List<Team> upserts = new ArrayList<>();
+            for (Team team : changed) {
+                if (liveIds.contains(team.getId())) {
+                    upserts.add(team);
+                }
+                watermark = DataPoolReconciler.advance(watermark, team.getUpdatedAt());
+            }
+            teamDataPool.apply(upserts, pooledIds);
+            pooledIds.forEach(JsonUtil::invalidateTeam);
+            upserts.forEach(team -> JsonUtil.invalidateTeam(team.getId()));
+        }
+    }
+
+    private TeamAggregates aggregates() {
+        return teamDataPool.snapshot().view(TeamAggregates.VIEW);
+    }
+
+    private List<Team> inNameOrder() {
+        OrderStatisticTree<Team> byName = teamDataPool.snapshot().view(BY_NAME);
+        return byName.range(0, byName.size());
     }
 
     @Override
     public Team createTeam(Team team) {
         validateTeam(team);
         Team saved = teamRepository.save(team);
-        refreshDataPool();
+        synchronized (poolLock) {
+            teamDataPool.put(saved);
+        }
         return saved;
     }
 
@@ -50,7 +156,41 @@ public class TeamServiceImpl implements TeamService {
 
     @Override
     public List<Team> getAllTeams() {
-        return new ArrayList<>(teamDataPool);
+        return new ArrayList<>(inNameOrder());
+    }
+
+    @Override
+    public Page<Team> getTeamsPage(String after, int limit) {
+        return page(after, limit, teamRepository::findPage, last -> new PageCursor(last.getId(), last.getName()));
+    }
+
+    @Override
+    public Page<TeamSummary> getTeamSummariesPage(String after, int limit) {
+        return page(after, limit, teamRepository::findSummaryPage,
+                last -> new PageCursor(last.getId(), last.getName()));
+    }
+
+    // Страницы полных команд и проекций идут в одном порядке, курсоры взаимозаменяемы
+    private <T> Page<T> page(String after, int limit, BiFunction<PageCursor, Integer, List<T>> fetch,
+                             Function<T, PageCursor> cursorOf) {
+        if (limit < 1 || limit > Page.MAX_LIMIT) {
+            throw new ValidationException("Team", "limit must be between 1 and " + Page.MAX_LIMIT);
+        }
+        PageCursor cursor = null;
+        if (after != null && !after.isEmpty()) {
+            try {
+                cursor = PageCursor.decode(after, 1);
+            } catch (IllegalArgumentException e) {
+                throw new ValidationException("Team", "Invalid page cursor", e);
+            }
+        }
+        // Лишняя строка показывает, есть ли следующая страница, без отдельного COUNT
+        List<T> rows = fetch.apply(cursor, limit + 1);
+        if (rows.size() <= limit) {
+            return new Page<>(rows, limit, null);
+        }
+        String next = cursorOf.apply(rows.get(limit - 1)).encode();
+        return new Page<>(new ArrayList<>(rows.subList(0, limit)), limit, next);
     }
 
     @Override
@@ -61,35 +201,118 @@ public class TeamServiceImpl implements TeamService {
             throw new ValidationException("Team", "Team ID cannot be 0 for update");
         }
         Team updated = teamRepository.update(team);
-        refreshDataPool();
+        synchronized (poolLock) {
+            teamDataPool.put(updated);
+        }
+        JsonUtil.invalidateTeam(updated.getId());
+        return updated;
+    }
+
+    @Override
+    public List<Team> createTeams(List<Team> teams) {
+        validateTeams(teams, false);
+        List<Team> saved = teamRepository.saveAll(teams);
+        // Весь пакет публикуется в пуле одной новой версией
+        synchronized (poolLock) {
+            teamDataPool.apply(saved, List.of());
+        }
+        return saved;
+    }
+
+    @Override
+    public List<Team> updateTeams(List<Team> teams) {
+        validateTeams(teams, true);
+        List<Team> updated = teamRepository.updateAll(teams);
+        synchronized (poolLock) {
+            teamDataPool.apply(updated, List.of());
+        }
+        updated.forEach(team -> JsonUtil.invalidateTeam(team.getId()));
         return updated;
     }
 
+    @Override
+    public BulkImport.Report importTeams(InputStream body, BulkImport.Format format) {
+        BulkImport.Report report = new BulkImport.Report("teams", format);
+        Set<Integer> ids = new HashSet<>();
+        teamRepository.importAll(sink -> BulkImport.readRecords(body, format, Team.class,
+                TeamServiceImpl::teamFromCsv, report, (line, team) -> {
+                    if (team.getId() != null && team.getId() == 0) {
+                        team.setId(null);
+                    }
+                    List<String> errors = fieldErrors(team);
+                    if (team.getId() != null && !ids.add(team.getId())) {
+                        errors.add("Team ID " + team.getId() + " appears more than once");
+                    }
+                    if (errors.isEmpty()) {
+                        sink.accept(line, team);
+                    } else {
+                        report.reject(line, errors);
+                    }
+                }), report);
+
+        // Один полный перезапуск пула на весь импорт
+        try {
+            rebuildDataPool();
+        } catch (RuntimeException e) {
+            // Импорт уже зафиксирован; пул догонит сверка
+            LOG.warn("Reload of team pool after import failed", e);
+        }
+        return report.finish();
+    }
+
+    @Override
+    public long exportTeams(OutputStream out, BulkImport.Format format) {
+        if (format == BulkImport.Format.CSV) {
+            return teamRepository.exportCsv(out);
+        }
+        // Курсор БД, а не пул: выгрузка видит ровно то, что зафиксировано, и не держит список в памяти
+        try (Stream<Team> teams = teamRepository.streamAll()) {
+            return JsonUtil.writeLines(teams.iterator(), Team.class, out);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to write team export", e);
+        }
+    }
+
+    // Заголовки CSV приходят нормализованными: без регистра и подчёркиваний
+    private static Team teamFromCsv(Map<String, String> record) {
+        return new Team.Builder()
+                .id(BulkImport.intField(record, "id"))
+                .name(BulkImport.stringField(record, "name"))
+                .sport(BulkImport.stringField(record, "sport"))
+                .coach(BulkImport.stringField(record, "coach"))
+                .location(BulkImport.stringField(record, "location"))
+                .foundedYear(BulkImport.intField(record, "foundedyear"))
+                .build();
+    }
+
     @Override
     public void deleteTeam(Integer id) { // void и Integer
         if (!teamRepository.deleteById(id)) {
             throw new EntityNotFoundException("Team", id);
         }
-        refreshDataPool();
+        synchronized (poolLock) {
+            teamDataPool.remove(id);
+        }
+        JsonUtil.invalidateTeam(id);
     }
 
     @Override
     public List<Team> getTeamsBySport(String sport) {
-        return teamDataPool.stream()
+        return inNameOrder().stream()
                 .filter(team -> team.getSport().equalsIgnoreCase(sport))
                 .collect(Collectors.toList());
     }
 
     @Override
     public List<Team> getTeamsByLocation(String location) {
-        return teamDataPool.stream()
+        return inNameOrder().stream()
                 .filter(team -> team.getLocation().toLowerCase().contains(location.toLowerCase()))
                 .collect(Collectors.toList());
     }
 
     @Override
     public List<Team> filterTeams(Predicate<Team> predicate) {
-        return teamDataPool.stream()
+        return inNameOrder().stream()
                 .filter(predicate)
                 .collect(Collectors.toList());
     }
@@ -123,7 +346,7 @@ public class TeamServiceImpl implements TeamService {
             comparator = comparator.reversed();
         }
 
-        return teamDataPool.stream()
+        return teamDataPool.snapshot().stream()
                 .sorted(comparator)
                 .collect(Collectors.toList());
     }
@@ -131,39 +354,82 @@ public class TeamServiceImpl implements TeamService {
     @Override
     public Map<String, Object> getTeamStatistics() {
         Map<String, Object> stats = new HashMap<>();
+        // Running totals from one snapshot, so all numbers describe the same version of the pool
+        TeamAggregates aggregates = aggregates();
 
-        long totalTeams = teamDataPool.size();
-        stats.put("totalTeams", totalTeams);
-
-        Map<String, Long> teamsBySport = teamDataPool.stream()
-                .collect(Collectors.groupingBy(Team::getSport, Collectors.counting()));
-        stats.put("teamsBySport", teamsBySport);
-
-        Map<String, Long> teamsByLocation = teamDataPool.stream()
-                .collect(Collectors.groupingBy(Team::getLocation, Collectors.counting()));
-        stats.put("teamsByLocation", teamsByLocation);
-
-        // Исправлено: проверяем != 0 для примитива int
-        OptionalDouble avgFoundedYear = teamDataPool.stream()
-                .filter(team -> team.getFoundedYear() != 0)
-                .mapToInt(Team::getFoundedYear)
-                .average();
-        stats.put("averageFoundedYear", avgFoundedYear.orElse(0.0));
+        stats.put("totalTeams", aggregates.count());
+        stats.put("teamsBySport", aggregates.teamsBySport());
+        stats.put("teamsByLocation", aggregates.teamsByLocation());
+        stats.put("averageFoundedYear", aggregates.averageFoundedYear());
 
-        teamDataPool.stream()
-                .filter(team -> team.getFoundedYear() != 0)
-                .min(Comparator.comparingInt(Team::getFoundedYear))
-                .ifPresent(team -> stats.put("oldestTeam", team.getName()));
+        Team oldestTeam = aggregates.oldestTeam();
+        if (oldestTeam != null) {
+            stats.put("oldestTeam", oldestTeam.getName());
+        }
 
         return stats;
     }
 
     @Override
     public long countTeams() {
-        return teamRepository.count();
+        // Served from the data pool: the dashboard's quick stats must not hit the database
+        return aggregates().count();
+    }
+
+    @Override
+    public long getDataVersion() {
+        return teamDataPool.snapshot().version();
+    }
+
+    @Override
+    public long getDataTimestamp() {
+        return teamDataPool.snapshot().timestamp();
     }
 
     private void validateTeam(Team team) {
+        List<String> errors = fieldErrors(team);
+        if (!errors.isEmpty()) {
+            throw new ValidationException("Team", errors);
+        }
+    }
+
+    /**
+     * Validates a whole batch and reports all errors at once, prefixed with the item index.
+     */
+    private void validateTeams(List<Team> teams, boolean update) {
+        if (teams == null || teams.isEmpty()) {
+            throw new ValidationException("Team", "Batch must contain at least one team");
+        }
+        if (teams.size() > MAX_BATCH_SIZE) {
+            throw new ValidationException("Team", "Batch must not contain more than " + MAX_BATCH_SIZE + " teams");
+        }
+
+        List<String> errors = new ArrayList<>();
+        Set<Integer> ids = new HashSet<>();
+        for (int i = 0; i < teams.size(); i++) {
+            Team team = teams.get(i);
+            if (team == null) {
+                errors.add("[" + i + "] Team is required");
+                continue;
+            }
+            for (String error : fieldErrors(team)) {
+                errors.add("[" + i + "] " + error);
+            }
+            if (update) {
+                if (team.getId() == null || team.getId() == 0) {
+                    errors.add("[" + i + "] Team ID is required for update");
+                } else if (!ids.add(team.getId())) {
+                    errors.add("[" + i + "] Team ID " + team.getId() + " appears more than once");
+                }
+            }
+        }
+
+        if (!errors.isEmpty()) {
+            throw new ValidationException("Team", errors);
+        }
+    }
+
+    private List<String> fieldErrors(Team team) {
         List<String> errors = new ArrayList<>();
 
         if (team.getName() == null || team.getName().trim().isEmpty()) {
@@ -178,9 +444,9 @@ public class TeamServiceImpl implements TeamService {
         if (team.getLocation() == null || team.getLocation().trim().isEmpty()) {
             errors.add("Location is required");
         }
-
-        if (!errors.isEmpty()) {
-            throw new ValidationException("Team", errors);
+        if (team.getFoundedYear() == null) {
+            errors.add("Founded year is required");
         }
+        return errors;
     }
-}
\ No newline at end of file
+}
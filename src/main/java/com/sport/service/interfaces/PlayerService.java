@@ -1,6 +1,11 @@
 package com.sport.service.interfaces;
 
 import com.sport.domain.Player;
+import com.sport.domain.PlayerSummary;
+import com.sport.util.BulkImport;
+import com.sport.util.Page;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.util.List;
 import java.util.Map;
 import java.util.function.Predicate;
@@ -13,8 +18,22 @@ public interface PlayerService {
 
     List<Player> getAllPlayers();
 
+    Page<Player> getPlayersPage(String after, int limit); // keyset: after = nextCursor прошлой страницы
+
+    Page<PlayerSummary> getPlayerSummariesPage(String after, int limit); // те же страницы, узкие колонки
+
     Player updatePlayer(Player player);
 
+    // --- Batch ---
+
+    List<Player> createPlayers(List<Player> players); // одна транзакция, всё или ничего
+
+    List<Player> updatePlayers(List<Player> players);
+
+    BulkImport.Report importPlayers(InputStream body, BulkImport.Format format); // COPY, ошибки построчно
+
+    long exportPlayers(OutputStream out, BulkImport.Format format); // потоком из БД, возвращает число строк
+
     void deletePlayer(Integer id); // void обычно удобнее для сервиса
 
     List<Player> getPlayersByTeam(Integer teamId);
@@ -25,6 +44,14 @@ public interface PlayerService {
 
     List<Player> getFreeAgents();
 
+    // --- Leaderboard ---
+
+    List<Player> getLeaderboard(int offset, int limit);
+
+    Map<String, Object> getPlayerRanking(Integer playerId); // rank, percentile, totalPlayers
+
+    double getRatingAtPercentile(double percentile);
+
     // --- Functional Programming (Requirement #8) ---
 
     List<Player> filterPlayers(Predicate<Player> predicate);
@@ -36,4 +63,10 @@ public interface PlayerService {
     double calculateAverageRating();
 
     long countPlayers();
-}
\ No newline at end of file
+
+    // --- Conditional GET ---
+
+    long getDataVersion(); // растёт при каждом изменении пула данных
+
+    long getDataTimestamp(); // когда опубликована текущая версия пула, epoch ms
+}
@@ -1,6 +1,11 @@
 package com.sport.service.interfaces;
 
 import com.sport.domain.Team;
+import com.sport.domain.TeamSummary;
+import com.sport.util.BulkImport;
+import com.sport.util.Page;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.util.List;
 import java.util.Map;
 import java.util.function.Predicate;
@@ -13,8 +18,22 @@ public interface TeamService {
 
     List<Team> getAllTeams();
 
+    Page<Team> getTeamsPage(String after, int limit); // keyset: after = nextCursor прошлой страницы
+
+    Page<TeamSummary> getTeamSummariesPage(String after, int limit); // те же страницы, узкие колонки
+
     Team updateTeam(Team team);
 
+    // --- Batch ---
+
+    List<Team> createTeams(List<Team> teams); // одна транзакция, всё или ничего
+
+    List<Team> updateTeams(List<Team> teams);
+
+    BulkImport.Report importTeams(InputStream body, BulkImport.Format format); // COPY, ошибки построчно
+
+    long exportTeams(OutputStream out, BulkImport.Format format); // потоком из БД, возвращает число строк
+
     void deleteTeam(Integer id); // void, так удобнее для API
 
     List<Team> getTeamsBySport(String sport);
@@ -30,4 +49,10 @@ public interface TeamService {
     Map<String, Object> getTeamStatistics();
 
     long countTeams();
-}
\ No newline at end of file
+
+    // --- Conditional GET ---
+
+    long getDataVersion(); // растёт при каждом изменении пула данных
+
+    long getDataTimestamp(); // когда опубликована текущая версия пула, epoch ms
+}
@@ -0,0 +1,445 @@
+package com.sport.util;
+
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyIn;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Bulk import of NDJSON or CSV request bodies through PostgreSQL COPY.
+ * The body is parsed and validated one record at a time and valid rows are written
+ * straight into COPY FROM STDIN of a temporary staging table; the repository then
+ * merges the staging table into the real one with set-based SQL in the same
+ * transaction. Nothing is held in memory per row except reported errors
+ * (the first {@link #MAX_REPORTED_ERRORS}).
+ */
+public final class BulkImport {
+
+    public static final int MAX_REPORTED_ERRORS = 1000;
+
+    // Накопленный COPY-текст отправляется на сервер такими кусками
+    private static final int COPY_CHUNK_CHARS = 64 * 1024;
+
+    public enum Format {
+        CSV("text/csv; charset=utf-8", "csv"),
+        NDJSON("application/x-ndjson", "ndjson");
+
+        private final String contentType;
+        private final String extension;
+
+        Format(String contentType, String extension) {
+            this.contentType = contentType;
+            this.extension = extension;
+        }
+
+        public String contentType() {
+            return contentType;
+        }
+
+        public String extension() {
+            return extension;
+        }
+
+        /**
+         * Format from ?format= if given, otherwise from a Content-Type or Accept value; NDJSON by default.
+         *
+         * @throws IllegalArgumentException for an unknown format name
+         */
+        public static Format of(String name, String mediaType) {
+            if (name != null && !name.isEmpty()) {
+                switch (name.toLowerCase(Locale.ROOT)) {
+                    case "csv":
+                        return CSV;
+                    case "ndjson":
+                    case "jsonl":
+                        return NDJSON;
+                    default:
+                        throw new IllegalArgumentException("format must be 'csv' or 'ndjson'");
+                }
+            }
+            if (mediaType != null && mediaType.toLowerCase(Locale.ROOT).contains("text/csv")) {
+                return CSV;
+            }
+            return NDJSON;
+        }
+    }
+
+    /**
+     * Receives one valid record together with its source line number.
+     */
+    @FunctionalInterface
+    public interface Sink<T> {
+        void accept(long line, T item) throws SQLException;
+    }
+
+    /**
+     * Pushes all valid records of an import into the sink.
+     */
+    @FunctionalInterface
+    public interface Source<T> {
+        void forEach(Sink<T> sink) throws IOException, SQLException;
+    }
+
+    /**
+     * Writes the staging columns of one record, in COPY column order after "line".
+     */
+    @FunctionalInterface
+    public interface RowEncoder<T> {
+        void encode(CopyRow row, T item);
+    }
+
+    private BulkImport() {
+        throw new UnsupportedOperationException("Utility class cannot be instantiated");
+    }
+
+    /**
+     * Parses the body and calls the handler for every record. CSV needs a header line;
+     * header names are matched without case and underscores (first_name = firstName)
+     * and passed to csvMapper in that normalized form. Records that cannot be parsed
+     * are rejected in the report and skipped; an unterminated quoted field is rejected
+     * and ends the input, as it runs to the end of the body.
+     */
+    public static <T> void readRecords(InputStream body, Format format, Class<T> type,
+                                       Function<Map<String, String>, T> csvMapper,
+                                       Report report, Sink<T> handler) throws IOException, SQLException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8), 64 * 1024);
+        if (format == Format.NDJSON) {
+            String text;
+            long line = 0;
+            while ((text = reader.readLine()) != null) {
+                line++;
+                if (text.isBlank()) {
+                    continue;
+                }
+                report.rowRead();
+                T item;
+                try {
+                    item = JsonUtil.fromJson(text, type);
+                } catch (RuntimeException e) {
+                    report.reject(line, "Invalid JSON: " + rootMessage(e));
+                    continue;
+                }
+                if (item == null) {
+                    report.reject(line, "Invalid JSON: empty record");
+                    continue;
+                }
+                handler.accept(line, item);
+            }
+            return;
+        }
+
+        CsvReader csv = new CsvReader(reader);
+        List<String> header;
+        try {
+            header = csv.next();
+        } catch (CsvReader.MalformedRecordException e) {
+            report.reject(e.line(), "Invalid CSV header: " + e.getMessage());
+            return;
+        }
+        if (header == null) {
+            return;
+        }
+        List<String> names = new ArrayList<>(header.size());
+        for (String name : header) {
+            names.add(normalize(name));
+        }
+        while (true) {
+            List<String> fields;
+            try {
+                fields = csv.next();
+            } catch (CsvReader.MalformedRecordException e) {
+                report.rowRead();
+                report.reject(e.line(), "Invalid CSV: " + e.getMessage());
+                return;
+            }
+            if (fields == null) {
+                return;
+            }
+            long line = csv.recordLine();
+            report.rowRead();
+            if (fields.size() != names.size()) {
+                report.reject(line, "Expected " + names.size() + " fields, found " + fields.size());
+                continue;
+            }
+            Map<String, String> record = new HashMap<>();
+            for (int i = 0; i < names.size(); i++) {
+                record.put(names.get(i), fields.get(i));
+            }
+            T item;
+            try {
+                item = csvMapper.apply(record);
+            } catch (IllegalArgumentException e) {
+                report.reject(line, e.getMessage());
+                continue;
+            }
+            handler.accept(line, item);
+        }
+    }
+
+    /**
+     * Integer CSV field; null for a missing column or an empty value.
+     *
+     * @throws IllegalArgumentException if the value is not an integer
+     */
+    public static Integer intField(Map<String, String> record, String name) {
+        String value = record.get(name);
+        if (value == null || value.isBlank()) {
+            return null;
+        }
+        try {
+            return Integer.valueOf(value.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(name + " must be an integer: '" + value + "'");
+        }
+    }
+
+    public static Double doubleField(Map<String, String> record, String name) {
+        String value = record.get(name);
+        if (value == null || value.isBlank()) {
+            return null;
+        }
+        try {
+            return Double.valueOf(value.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(name + " must be a number: '" + value + "'");
+        }
+    }
+
+    /**
+     * String CSV field; null for a missing column or an empty value.
+     */
+    public static String stringField(Map<String, String> record, String name) {
+        String value = record.get(name);
+        return value == null || value.isEmpty() ? null : value;
+    }
+
+    /**
+     * Streams the source into {@code COPY ... FROM STDIN (FORMAT csv)} on the given connection.
+     * The COPY column list must start with the source line number, followed by the columns
+     * written by the encoder. On any failure the COPY is cancelled, so the caller can roll back.
+     *
+     * @return number of rows copied
+     */
+    public static <T> long copyIn(Connection conn, String copySql, Source<T> source,
+                                  RowEncoder<T> encoder) throws SQLException {
+        // Пул отдаёт прокси: COPY API есть только у соединения драйвера
+        CopyIn copy = conn.unwrap(PGConnection.class).getCopyAPI().copyIn(copySql);
+        long start = System.nanoTime();
+        CopyRow row = new CopyRow(copy);
+        long rows = 0;
+        boolean failed = true;
+        try {
+            source.forEach((line, item) -> {
+                row.add(line);
+                encoder.encode(row, item);
+                row.end();
+            });
+            row.flush();
+            rows = copy.endCopy();
+            failed = false;
+            return rows;
+        } catch (IOException e) {
+            cancel(copy);
+            throw new UncheckedIOException("Failed to read import data", e);
+        } catch (SQLException | RuntimeException e) {
+            cancel(copy);
+            throw e;
+        } finally {
+            // Включает чтение и разбор тела запроса: COPY идёт в его темпе
+            QueryTracer.recordCopy(copySql, System.nanoTime() - start, rows, row.bytesWritten, failed);
+        }
+    }
+
+    /**
+     * Runs a {@code DELETE ... RETURNING line, <value>} against the staging table and
+     * rejects every returned line with the message, formatted with the value.
+     *
+     * @return number of rows rejected
+     */
+    public static int rejectWhere(Connection conn, String deleteReturningSql, Report report,
+                                  String messageFormat) throws SQLException {
+        int rejected = 0;
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery(deleteReturningSql)) {
+            while (rs.next()) {
+                report.reject(rs.getLong(1), String.format(messageFormat, rs.getObject(2)));
+                rejected++;
+            }
+        }
+        return rejected;
+    }
+
+    private static void cancel(CopyIn copy) {
+        try {
+            if (copy.isActive()) {
+                copy.cancelCopy();
+            }
+        } catch (SQLException e) {
+            // Соединение всё равно откатывается; первичная ошибка важнее
+        }
+    }
+
+    private static String normalize(String name) {
+        // BOM в начале файла из Excel
+        String trimmed = name.replace("\uFEFF", "").trim();
+        return trimmed.replace("_", "").toLowerCase(Locale.ROOT);
+    }
+
+    private static String rootMessage(Throwable e) {
+        while (e.getCause() != null) {
+            e = e.getCause();
+        }
+        return e.getMessage();
+    }
+
+    /**
+     * One COPY CSV row under construction. Strings are always quoted so an empty string
+     * differs from NULL, which COPY csv writes as an unquoted empty field.
+     */
+    public static final class CopyRow {
+        private final CopyIn copy;
+        private final StringBuilder buffer = new StringBuilder(COPY_CHUNK_CHARS + 1024);
+        private boolean firstField = true;
+        private long bytesWritten;
+
+        private CopyRow(CopyIn copy) {
+            this.copy = copy;
+        }
+
+        public CopyRow add(Object value) {
+            if (!firstField) {
+                buffer.append(',');
+            }
+            firstField = false;
+            if (value instanceof String) {
+                String text = (String) value;
+                buffer.append('"');
+                for (int i = 0; i < text.length(); i++) {
+                    char c = text.charAt(i);
+                    if (c == '"') {
+                        buffer.append('"');
+                    }
+                    buffer.append(c);
+                }
+                buffer.append('"');
+            } else if (value != null) {
+                buffer.append(value);
+            }
+            return this;
+        }
+
+        private void end() throws SQLException {
+            buffer.append('\n');
+            firstField = true;
+            if (buffer.length() >= COPY_CHUNK_CHARS) {
+                flush();
+            }
+        }
+
+        private void flush() throws SQLException {
+            if (buffer.length() == 0) {
+                return;
+            }
+            byte[] bytes = buffer.toString().getBytes(StandardCharsets.UTF_8);
+            copy.writeToCopy(bytes, 0, bytes.length);
+            bytesWritten += bytes.length;
+            buffer.setLength(0);
+        }
+    }
+
+    /**
+     * Outcome of one import, serialized as the response body.
+     */
+    public static final class Report {
+        private final String entity;
+        private final String format;
+        private long rowsRead;
+        private long inserted;
+        private long updated;
+        private long rejected;
+        private final List<RowError> errors = new ArrayList<>();
+        private boolean errorsTruncated;
+        private long elapsedMs;
+        private long rowsPerSecond;
+        private final transient long startNanos = System.nanoTime();
+
+        public Report(String entity, Format format) {
+            this.entity = entity;
+            this.format = format.name().toLowerCase(Locale.ROOT);
+        }
+
+        public void rowRead() {
+            rowsRead++;
+        }
+
+        public void reject(long line, String message) {
+            reject(line, List.of(message));
+        }
+
+        public void reject(long line, List<String> messages) {
+            rejected++;
+            if (errors.size() < MAX_REPORTED_ERRORS) {
+                errors.add(new RowError(line, messages));
+            } else {
+                errorsTruncated = true;
+            }
+        }
+
+        public void setInserted(long inserted) {
+            this.inserted = inserted;
+        }
+
+        public void setUpdated(long updated) {
+            this.updated = updated;
+        }
+
+        /**
+         * Stops the clock; rowsPerSecond counts every record read, accepted or not.
+         */
+        public Report finish() {
+            long nanos = Math.max(1, System.nanoTime() - startNanos);
+            elapsedMs = nanos / 1_000_000;
+            rowsPerSecond = Math.round(rowsRead * 1_000_000_000.0 / nanos);
+            return this;
+        }
+
+        public String getEntity() { return entity; }
+        public String getFormat() { return format; }
+        public long getRowsRead() { return rowsRead; }
+        public long getInserted() { return inserted; }
+        public long getUpdated() { return updated; }
+        public long getRejected() { return rejected; }
+        public List<RowError> getErrors() { return errors; }
+        public boolean isErrorsTruncated() { return errorsTruncated; }
+        public long getElapsedMs() { return elapsedMs; }
+        public long getRowsPerSecond() { return rowsPerSecond; }
+    }
+
+    public static final class RowError {
+        private final long line;
+        private final List<String> errors;
+
+        private RowError(long line, List<String> errors) {
+            this.line = line;
+            this.errors = errors;
+        }
+
+        public long getLine() { return line; }
+        public List<String> getErrors() { return errors; }
+    }
+}
@@ -0,0 +1,601 @@
+package com.sport.util;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
+import java.sql.Statement;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounded JDBC connection pool used by {@link DBConnection}.
+ * Keeps physical PostgreSQL connections open between repository calls and
+ * hands out proxies whose close() returns the connection to the pool,
+ * so repositories keep using plain try-with-resources.
+ * Each physical connection carries its own {@link StatementCache}; statements
+ * are timed by {@link QueryTracer}.
+ */
+public class ConnectionPool {
+
+    // Connections used within this window are not re-validated on borrow
+    private static final long VALIDATION_BYPASS_MS = 500;
+    // How often a borrower blocked on a full pool re-checks for a freed slot
+    private static final long SLOT_RECHECK_MS = 50;
+
+    private final String url;
+    private final Properties connectionProperties;
+    private final int minSize;
+    private final int maxSize;
+    private final long idleTimeoutMs;
+    private final long borrowTimeoutMs;
+    private final long leakThresholdMs;
+    private final boolean leakStackTraces;
+    private final int validationTimeoutSeconds;
+    private final int statementCacheSize;
+
+    // Permits bound the number of borrowed connections to maxSize
+    private final Semaphore permits;
+    // Most recently returned connection is at the head (LIFO keeps hot connections warm)
+    private final LinkedBlockingDeque<PooledConnection> idle = new LinkedBlockingDeque<>();
+    private final Set<PooledConnection> borrowed = ConcurrentHashMap.newKeySet();
+    private final ScheduledExecutorService housekeeper;
+    private volatile boolean shutdown;
+
+    // Counters for sizing the pool under load
+    private final AtomicInteger totalConnections = new AtomicInteger();
+    private final AtomicInteger waitingThreads = new AtomicInteger();
+    private final LongAdder borrowCount = new LongAdder();
+    private final LongAdder borrowTimeouts = new LongAdder();
+    private final LongAdder totalWaitNanos = new LongAdder();
+    private final AtomicLong maxWaitNanos = new AtomicLong();
+    private final LongAdder connectionsCreated = new LongAdder();
+    private final LongAdder connectionsDestroyed = new LongAdder();
+    private final LongAdder validationFailures = new LongAdder();
+    private final LongAdder leaksDetected = new LongAdder();
+    private final LongAdder statementCacheHits = new LongAdder();
+    private final LongAdder statementCacheMisses = new LongAdder();
+    private final LongAdder statementCacheEvictions = new LongAdder();
+
+    private static final Log LOG = Log.get(ConnectionPool.class);
+    // Новое физическое соединение - штатное событие пула, в журнал идёт выборочно
+    private static final Log.Sampler OPEN_SAMPLE = new Log.Sampler(100);
+
+    // Распределения для /api/metrics; счётчики выше экспортирует DBConnection
+    private static final Metrics.Timer BORROW_WAIT = Metrics.timer("db_pool_wait_seconds",
+            "Time spent waiting for a pooled connection").labels();
+    private static final Metrics.Timer CONNECTION_HOLD = Metrics.timer("db_connection_hold_seconds",
+            "Time a connection stays borrowed").labels();
+
+    private ConnectionPool(Builder builder) {
+        this.url = builder.url;
+        this.connectionProperties = new Properties();
+        this.connectionProperties.setProperty("user", builder.user);
+        this.connectionProperties.setProperty("password", builder.password);
+        // PgJDBC switches a reused statement to a named server-side prepare after this many executions
+        this.connectionProperties.setProperty("prepareThreshold", String.valueOf(builder.prepareThreshold));
+        this.minSize = builder.minSize;
+        this.maxSize = builder.maxSize;
+        this.idleTimeoutMs = builder.idleTimeoutMs;
+        this.borrowTimeoutMs = builder.borrowTimeoutMs;
+        this.leakThresholdMs = builder.leakThresholdMs;
+        this.leakStackTraces = builder.leakStackTraces;
+        this.validationTimeoutSeconds = builder.validationTimeoutSeconds;
+        this.statementCacheSize = builder.statementCacheSize;
+        this.permits = new Semaphore(maxSize, true);
+
+        this.housekeeper = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "db-pool-housekeeper");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.housekeeper.scheduleWithFixedDelay(this::housekeep,
+                builder.housekeepingIntervalMs, builder.housekeepingIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Borrows a connection, waiting at most the configured borrow timeout.
+     *
+     * @return a pooled connection; close() returns it to the pool
+     * @throws SQLException if no connection could be obtained in time
+     */
+    public Connection borrow() throws SQLException {
+        if (shutdown) {
+            throw new SQLException("Connection pool has been shut down");
+        }
+
+        long start = System.nanoTime();
+        boolean acquired;
+        waitingThreads.incrementAndGet();
+        try {
+            acquired = permits.tryAcquire(borrowTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for a database connection", e);
+        } finally {
+            waitingThreads.decrementAndGet();
+        }
+        recordWait(System.nanoTime() - start);
+
+        if (!acquired) {
+            borrowTimeouts.increment();
+            throw new SQLTimeoutException(String.format(
+                    "Timed out after %d ms waiting for a database connection (active=%d, max=%d)",
+                    borrowTimeoutMs, borrowed.size(), maxSize));
+        }
+
+        try {
+            PooledConnection pooled = takeIdleOrCreate();
+            pooled.markBorrowed();
+            borrowed.add(pooled);
+            borrowCount.increment();
+            return pooled.newHandle();
+        } catch (SQLException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    /**
+     * Closes all idle connections and stops the housekeeping thread.
+     * Borrowed connections are closed when they are returned.
+     */
+    public void shutdown() {
+        shutdown = true;
+        housekeeper.shutdownNow();
+        PooledConnection pooled;
+        while ((pooled = idle.pollFirst()) != null) {
+            destroy(pooled);
+        }
+    }
+
+    /**
+     * Returns a snapshot of pool occupancy and wait-time counters.
+     *
+     * @return statistics keyed by name
+     */
+    public Map<String, Object> getStatistics() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        long borrows = borrowCount.sum();
+
+        stats.put("minSize", minSize);
+        stats.put("maxSize", maxSize);
+        stats.put("totalConnections", totalConnections.get());
+        stats.put("activeConnections", borrowed.size());
+        stats.put("idleConnections", idle.size());
+        stats.put("waitingThreads", waitingThreads.get());
+        stats.put("borrowCount", borrows);
+        stats.put("borrowTimeouts", borrowTimeouts.sum());
+        stats.put("averageWaitMillis", borrows == 0 ? 0.0 : totalWaitNanos.sum() / (double) borrows / 1_000_000.0);
+        stats.put("maxWaitMillis", maxWaitNanos.get() / 1_000_000.0);
+        stats.put("connectionsCreated", connectionsCreated.sum());
+        stats.put("connectionsDestroyed", connectionsDestroyed.sum());
+        stats.put("validationFailures", validationFailures.sum());
+        stats.put("leaksDetected", leaksDetected.sum());
+
+        long hits = statementCacheHits.sum();
+        long lookups = hits + statementCacheMisses.sum();
+        stats.put("statementCacheSize", statementCacheSize);
+        stats.put("statementCacheHits", hits);
+        stats.put("statementCacheMisses", statementCacheMisses.sum());
+        stats.put("statementCacheEvictions", statementCacheEvictions.sum());
+        stats.put("statementCacheHitRatio", lookups == 0 ? 0.0 : hits / (double) lookups);
+        return stats;
+    }
+
+    // --- Internal pool management ---
+
+    private PooledConnection takeIdleOrCreate() throws SQLException {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(borrowTimeoutMs);
+        while (true) {
+            PooledConnection pooled = idle.pollFirst();
+            if (pooled == null) {
+                if (reserveSlot(maxSize)) {
+                    return open();
+                }
+                // Pool is at maxSize: a connection is being returned or housekeep holds
+                // a reserved slot. Block briefly, then re-check in case that slot was freed.
+                pooled = pollIdle(deadline);
+                if (pooled == null) {
+                    continue;
+                }
+            }
+            if (isUsable(pooled)) {
+                return pooled;
+            }
+            validationFailures.increment();
+            destroy(pooled);
+        }
+    }
+
+    private PooledConnection pollIdle(long deadline) throws SQLException {
+        long remaining = deadline - System.nanoTime();
+        if (remaining <= 0) {
+            throw new SQLTimeoutException(String.format(
+                    "Timed out after %d ms waiting for a free connection slot (total=%d, max=%d)",
+                    borrowTimeoutMs, totalConnections.get(), maxSize));
+        }
+        try {
+            return idle.pollFirst(Math.min(remaining, TimeUnit.MILLISECONDS.toNanos(SLOT_RECHECK_MS)),
+                    TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for a database connection", e);
+        }
+    }
+
+    /**
+     * Reserves room for one more physical connection without exceeding the limit.
+     */
+    private boolean reserveSlot(int limit) {
+        while (true) {
+            int current = totalConnections.get();
+            if (current >= limit) {
+                return false;
+            }
+            if (totalConnections.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    private boolean isUsable(PooledConnection pooled) {
+        if (System.currentTimeMillis() - pooled.lastUsedAt < VALIDATION_BYPASS_MS) {
+            return true;
+        }
+        try {
+            return pooled.physical.isValid(validationTimeoutSeconds);
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Opens a physical connection for a slot already reserved with {@link #reserveSlot(int)}.
+     */
+    private PooledConnection open() throws SQLException {
+        Connection physical;
+        try {
+            physical = DriverManager.getConnection(url, connectionProperties);
+        } catch (SQLException | RuntimeException e) {
+            totalConnections.decrementAndGet();
+            throw e;
+        }
+        connectionsCreated.increment();
+        if (LOG.isDebugEnabled() && OPEN_SAMPLE.next()) {
+            LOG.debug("Database connection established", "total", totalConnections.get(),
+                    "sampled", "1/" + OPEN_SAMPLE.every());
+        }
+        return new PooledConnection(physical);
+    }
+
+    private void destroy(PooledConnection pooled) {
+        totalConnections.decrementAndGet();
+        connectionsDestroyed.increment();
+        try {
+            pooled.physical.close();
+        } catch (SQLException e) {
+            LOG.warn("Error closing pooled connection", "error", e.getMessage());
+        }
+    }
+
+    private void release(PooledConnection pooled) {
+        CONNECTION_HOLD.record(System.nanoTime() - pooled.borrowedNanos);
+        borrowed.remove(pooled);
+        try {
+            if (pooled.statements != null) {
+                pooled.statements.releaseAll();
+            }
+            if (!shutdown && !pooled.broken && pooled.resetState()) {
+                pooled.lastUsedAt = System.currentTimeMillis();
+                idle.offerFirst(pooled);
+            } else {
+                destroy(pooled);
+            }
+        } finally {
+            permits.release();
+        }
+    }
+
+    private void recordWait(long waitedNanos) {
+        BORROW_WAIT.record(waitedNanos);
+        totalWaitNanos.add(waitedNanos);
+        maxWaitNanos.accumulateAndGet(waitedNanos, Math::max);
+    }
+
+    /**
+     * Periodic task: evicts idle connections above minSize, reports leaked
+     * connections and tops the pool back up to minSize.
+     * Never throws: an exception would cancel the scheduled task for good.
+     */
+    private void housekeep() {
+        try {
+            evictAndTopUp();
+        } catch (RuntimeException e) {
+            LOG.error("Pool housekeeping failed", e);
+        }
+    }
+
+    private void evictAndTopUp() {
+        long now = System.currentTimeMillis();
+
+        // Oldest idle connections sit at the tail of the deque
+        Iterator<PooledConnection> it = idle.descendingIterator();
+        while (it.hasNext() && totalConnections.get() > minSize) {
+            PooledConnection pooled = it.next();
+            if (now - pooled.lastUsedAt > idleTimeoutMs && idle.remove(pooled)) {
+                destroy(pooled);
+            }
+        }
+
+        if (leakThresholdMs > 0) {
+            for (PooledConnection pooled : borrowed) {
+                if (!pooled.leakReported && now - pooled.borrowedAt > leakThresholdMs) {
+                    pooled.leakReported = true;
+                    leaksDetected.increment();
+                    // borrowSite (если включён leakStackTraces) показывает, где соединение взяли
+                    LOG.warn("Connection has not been returned (possible leak)", pooled.borrowSite,
+                            "heldMs", now - pooled.borrowedAt);
+                }
+            }
+        }
+
+        try {
+            while (!shutdown && reserveSlot(minSize)) {
+                PooledConnection pooled = open();
+                pooled.lastUsedAt = System.currentTimeMillis();
+                idle.offerLast(pooled);
+            }
+        } catch (SQLException e) {
+            // Database is unavailable; the next borrow will report the error
+        }
+    }
+
+    /**
+     * A physical connection owned by the pool.
+     */
+    private final class PooledConnection {
+        private final Connection physical;
+        private final StatementCache statements;
+        private volatile long lastUsedAt;
+        private volatile long borrowedAt;
+        private volatile long borrowedNanos;
+        private volatile Throwable borrowSite;
+        private volatile boolean leakReported;
+        private volatile boolean broken;
+
+        private PooledConnection(Connection physical) {
+            this.physical = physical;
+            this.statements = statementCacheSize > 0
+                    ? new StatementCache(physical, statementCacheSize,
+                            statementCacheHits, statementCacheMisses, statementCacheEvictions)
+                    : null;
+            this.lastUsedAt = System.currentTimeMillis();
+        }
+
+        private void markBorrowed() {
+            borrowedAt = System.currentTimeMillis();
+            borrowedNanos = System.nanoTime();
+            leakReported = false;
+            // Стек на каждый borrow дорог, поэтому собирается только по явному запросу
+            borrowSite = leakStackTraces ? new Throwable("Connection borrowed here") : null;
+        }
+
+        private Connection newHandle() {
+            return (Connection) Proxy.newProxyInstance(
+                    Connection.class.getClassLoader(),
+                    new Class<?>[]{Connection.class},
+                    new Handle(this));
+        }
+
+        /**
+         * Restores connection defaults before it goes back to the idle list.
+         *
+         * @return false if the connection can no longer be used
+         */
+        private boolean resetState() {
+            try {
+                if (!physical.getAutoCommit()) {
+                    physical.rollback();
+                    physical.setAutoCommit(true);
+                }
+                if (physical.isReadOnly()) {
+                    physical.setReadOnly(false);
+                }
+                physical.clearWarnings();
+                return true;
+            } catch (SQLException e) {
+                return false;
+            }
+        }
+    }
+
+    /**
+     * Logical connection handed to callers. Every borrow gets its own handle,
+     * so a second close() or use after close() cannot affect the next borrower.
+     */
+    private final class Handle implements InvocationHandler {
+        private final PooledConnection pooled;
+        private boolean closed;
+
+        private Handle(PooledConnection pooled) {
+            this.pooled = pooled;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                    if (!closed) {
+                        closed = true;
+                        release(pooled);
+                    }
+                    return null;
+                case "isClosed":
+                    return closed || pooled.physical.isClosed();
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "Pooled" + pooled.physical;
+                default:
+                    break;
+            }
+
+            if (closed) {
+                throw new SQLException("Connection has already been returned to the pool");
+            }
+
+            if (pooled.statements != null
+                    && "prepareStatement".equals(method.getName())
+                    && args.length == 1) {
+                return QueryTracer.trace(pooled.statements.prepare((Connection) proxy, (String) args[0]),
+                        (String) args[0]);
+            }
+
+            try {
+                Object result = method.invoke(pooled.physical, args);
+                if (result instanceof Statement statement) {
+                    // prepareStatement/prepareCall получают SQL сразу, createStatement - при execute
+                    return QueryTracer.trace(statement,
+                            args != null && args.length > 0 && args[0] instanceof String sql ? sql : null);
+                }
+                return result;
+            } catch (InvocationTargetException e) {
+                Throwable cause = e.getCause();
+                // SQLState class 08 = connection exception; do not return it to the pool
+                if (cause instanceof SQLException sqlException
+                        && sqlException.getSQLState() != null
+                        && sqlException.getSQLState().startsWith("08")) {
+                    pooled.broken = true;
+                }
+                throw cause;
+            }
+        }
+    }
+
+    /**
+     * Builder pattern implementation.
+     */
+    public static class Builder {
+        private String url;
+        private String user;
+        private String password;
+        private int minSize = 2;
+        private int maxSize = 10;
+        private long idleTimeoutMs = TimeUnit.MINUTES.toMillis(5);
+        private long borrowTimeoutMs = TimeUnit.SECONDS.toMillis(5);
+        private long leakThresholdMs = TimeUnit.SECONDS.toMillis(30);
+        private boolean leakStackTraces;
+        private long housekeepingIntervalMs = TimeUnit.SECONDS.toMillis(10);
+        private int validationTimeoutSeconds = 2;
+        private int statementCacheSize = 32;
+        private int prepareThreshold = 5;
+
+        public Builder url(String url) {
+            this.url = url;
+            return this;
+        }
+
+        public Builder user(String user) {
+            this.user = user;
+            return this;
+        }
+
+        public Builder password(String password) {
+            this.password = password;
+            return this;
+        }
+
+        public Builder minSize(int minSize) {
+            this.minSize = minSize;
+            return this;
+        }
+
+        public Builder maxSize(int maxSize) {
+            this.maxSize = maxSize;
+            return this;
+        }
+
+        public Builder idleTimeoutMs(long idleTimeoutMs) {
+            this.idleTimeoutMs = idleTimeoutMs;
+            return this;
+        }
+
+        public Builder borrowTimeoutMs(long borrowTimeoutMs) {
+            this.borrowTimeoutMs = borrowTimeoutMs;
+            return this;
+        }
+
+        /**
+         * @param leakThresholdMs how long a connection may stay borrowed before
+         *                        it is reported as leaked; 0 disables detection
+         */
+        public Builder leakThresholdMs(long leakThresholdMs) {
+            this.leakThresholdMs = leakThresholdMs;
+            return this;
+        }
+
+        /**
+         * @param leakStackTraces capture the borrower's stack trace so leak reports
+         *                        show where the connection was taken; off by default
+         */
+        public Builder leakStackTraces(boolean leakStackTraces) {
+            this.leakStackTraces = leakStackTraces;
+            return this;
+        }
+
+        public Builder housekeepingIntervalMs(long housekeepingIntervalMs) {
+            this.housekeepingIntervalMs = housekeepingIntervalMs;
+            return this;
+        }
+
+        public Builder validationTimeoutSeconds(int validationTimeoutSeconds) {
+            this.validationTimeoutSeconds = validationTimeoutSeconds;
+            return this;
+        }
+
+        /**
+         * @param statementCacheSize prepared statements kept per connection; 0 disables caching
+         */
+        public Builder statementCacheSize(int statementCacheSize) {
+            this.statementCacheSize = statementCacheSize;
+            return this;
+        }
+
+        /**
+         * @param prepareThreshold executions before PgJDBC uses a server-side prepared statement
+         */
+        public Builder prepareThreshold(int prepareThreshold) {
+            this.prepareThreshold = prepareThreshold;
+            return this;
+        }
+
+        public ConnectionPool build() {
+            if (url == null || user == null || password == null) {
+                throw new IllegalStateException("url, user and password are required");
+            }
+            if (maxSize < 1 || minSize < 0 || minSize > maxSize) {
+                throw new IllegalStateException("Invalid pool size: min=" + minSize + ", max=" + maxSize);
+            }
+            return new ConnectionPool(this);
+        }
+    }
+}
@@ -0,0 +1,135 @@
+package com.sport.util;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Minimal streaming RFC 4180 CSV reader: comma separator, double-quoted fields with
+ * "" as an escaped quote, quoted fields may contain commas and line breaks, LF, CRLF
+ * or CR line endings. Reads one record at a time, so input size does not matter.
+ */
+public final class CsvReader {
+
+    private final Reader in;
+    private int pushedBack = -2;
+    private long line = 1;
+    private boolean afterCr;
+    private long recordLine;
+
+    /**
+     * @param in the source; should be buffered, it is read one char at a time
+     */
+    public CsvReader(Reader in) {
+        this.in = in;
+    }
+
+    /**
+     * Returns the next record, or null at end of input. Empty lines are skipped.
+     *
+     * @throws MalformedRecordException if the input ends inside a quoted field
+     */
+    public List<String> next() throws IOException {
+        int c = read();
+        while (c == '\n' || c == '\r') {
+            c = read();
+        }
+        if (c < 0) {
+            return null;
+        }
+        recordLine = line;
+
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        boolean wasQuoted = false;
+        while (true) {
+            if (quoted) {
+                if (c < 0) {
+                    throw new MalformedRecordException(recordLine, "Unterminated quoted field");
+                }
+                if (c == '"') {
+                    int next = read();
+                    if (next == '"') {
+                        field.append('"');
+                    } else {
+                        quoted = false;
+                        c = next;
+                        continue;
+                    }
+                } else {
+                    field.append((char) c);
+                }
+            } else if (c == '"' && field.length() == 0 && !wasQuoted) {
+                quoted = true;
+                wasQuoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+                wasQuoted = false;
+            } else if (c == '\n' || c == '\r' || c < 0) {
+                if (c == '\r') {
+                    int next = read();
+                    if (next != '\n') {
+                        unread(next);
+                    }
+                }
+                fields.add(field.toString());
+                return fields;
+            } else {
+                field.append((char) c);
+            }
+            c = read();
+        }
+    }
+
+    /**
+     * Line number (1-based) on which the last returned record started.
+     */
+    public long recordLine() {
+        return recordLine;
+    }
+
+    private int read() throws IOException {
+        if (pushedBack != -2) {
+            // Уже учтён в line при первом чтении
+            int c = pushedBack;
+            pushedBack = -2;
+            return c;
+        }
+        int c = in.read();
+        // CR, LF и CRLF - по одному переводу строки
+        if (c == '\r' || (c == '\n' && !afterCr)) {
+            line++;
+        }
+        afterCr = c == '\r';
+        return c;
+    }
+
+    private void unread(int c) {
+        pushedBack = c;
+    }
+
+    /**
+     * The input is not valid CSV from the given record on. Nothing after it can be read.
+     */
+    public static final class MalformedRecordException extends IOException {
+
+        private static final long serialVersionUID = 1L;
+
+        private final long line;
+
+        MalformedRecordException(long line, String message) {
+            super(message + " starting on line " + line);
+            this.line = line;
+        }
+
+        /**
+         * Line number (1-based) on which the malformed record started.
+         */
+        public long line() {
+            return line;
+        }
+    }
+}
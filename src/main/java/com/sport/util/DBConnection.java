@@ -1,13 +1,14 @@
 package com.sport.util;
 
 import java.sql.Connection;
-import java.sql.DriverManager;
 import java.sql.SQLException;
+import java.util.Map;
 
 /**
  * Database connection utility class.
- * Uses basic DriverManager for JDBC connection to PostgreSQL.
- * This is the simplest approach without connection pooling.
+ * Hands out connections from a bounded {@link ConnectionPool}, so repositories
+ * reuse open PostgreSQL connections instead of reconnecting on every call.
+ * Pool settings can be overridden with -Ddb.pool.* system properties.
  */
 public class DBConnection {
     
@@ -18,16 +19,41 @@ public class DBConnection {
     
     // JDBC Driver class name
     private static final String JDBC_DRIVER = "org.postgresql.Driver";
+
+    // Pool is created on first use, so loading this class never touches the database
+    private static volatile ConnectionPool pool;
+
+    private static final Log LOG = Log.get(DBConnection.class);
+    // Во время отказа БД каждый запрос падает здесь: пишем первый и каждый сотый
+    private static final Log.Sampler FAILURE_SAMPLE = new Log.Sampler(100);
+    private static final Log.Sampler CLOSE_SAMPLE = new Log.Sampler(100);
     
     // Static block to load driver once
     static {
         try {
             Class.forName(JDBC_DRIVER);
-            System.out.println("PostgreSQL JDBC Driver loaded successfully");
+            LOG.info("PostgreSQL JDBC Driver loaded");
         } catch (ClassNotFoundException e) {
-            System.err.println("Failed to load PostgreSQL JDBC Driver: " + e.getMessage());
+            LOG.error("Failed to load PostgreSQL JDBC Driver", e);
             throw new RuntimeException("Failed to load PostgreSQL JDBC Driver", e);
         }
+
+        // Читают текущий пул при каждом опросе; до первого подключения - нули
+        Metrics.gauge("db_pool_active_connections", "Connections currently borrowed", () -> poolStat("activeConnections"));
+        Metrics.gauge("db_pool_idle_connections", "Open connections waiting in the pool", () -> poolStat("idleConnections"));
+        Metrics.gauge("db_pool_waiting_threads", "Threads waiting for a connection", () -> poolStat("waitingThreads"));
+        Metrics.counterFunction("db_pool_borrows_total", "Connections handed out", () -> poolStat("borrowCount"));
+        Metrics.counterFunction("db_pool_borrow_timeouts_total", "Borrows that timed out", () -> poolStat("borrowTimeouts"));
+        Metrics.counterFunction("db_pool_connections_created_total", "Physical connections opened",
+                () -> poolStat("connectionsCreated"));
+        Metrics.counterFunction("db_pool_connections_destroyed_total", "Physical connections closed",
+                () -> poolStat("connectionsDestroyed"));
+        Metrics.counterFunction("db_pool_leaks_detected_total", "Connections held past the leak threshold",
+                () -> poolStat("leaksDetected"));
+        Metrics.counterFunction("db_statement_cache_hits_total", "Prepared statements reused from the cache",
+                () -> poolStat("statementCacheHits"));
+        Metrics.counterFunction("db_statement_cache_misses_total", "Prepared statements created",
+                () -> poolStat("statementCacheMisses"));
     }
     
     /**
@@ -40,24 +66,77 @@ public class DBConnection {
     
     /**
      * Gets a connection to the database.
-     * Uses DriverManager to create a new connection each time.
+     * Borrows from the connection pool; closing the connection returns it to the pool.
      * 
      * @return Connection object
      * @throws SQLException if connection fails
      */
     public static Connection getConnection() throws SQLException {
         try {
-            Connection connection = DriverManager.getConnection(DB_URL, DB_USER, DB_PASSWORD);
-            System.out.println("Database connection established successfully");
-            return connection;
+            return getPool().borrow();
         } catch (SQLException e) {
-            System.err.println("Failed to establish database connection: " + e.getMessage());
+            if (FAILURE_SAMPLE.next()) {
+                LOG.warn("Failed to establish database connection", "error", e.getMessage(),
+                        "sampled", "1/" + FAILURE_SAMPLE.every());
+            }
             throw e;
         }
     }
     
+    /**
+     * Returns pool occupancy and wait-time counters.
+     * 
+     * @return pool statistics
+     */
+    public static Map<String, Object> getPoolStatistics() {
+        return getPool().getStatistics();
+    }
+    
+    /**
+     * Closes all pooled connections. Called on application shutdown.
+     */
+    public static synchronized void shutdown() {
+        if (pool != null) {
+            pool.shutdown();
+            pool = null;
+        }
+    }
+    
+    private static double poolStat(String name) {
+        ConnectionPool current = pool;
+        Object value = current != null ? current.getStatistics().get(name) : null;
+        return value instanceof Number ? ((Number) value).doubleValue() : 0;
+    }
+
+    private static ConnectionPool getPool() {
+        ConnectionPool current = pool;
+        if (current == null) {
+            synchronized (DBConnection.class) {
+                current = pool;
+                if (current == null) {
+                    current = new ConnectionPool.Builder()
+                            .url(DB_URL)
+                            .user(DB_USER)
+                            .password(DB_PASSWORD)
+                            .minSize(Integer.getInteger("db.pool.minSize", 2))
+                            .maxSize(Integer.getInteger("db.pool.maxSize", 10))
+                            .idleTimeoutMs(Long.getLong("db.pool.idleTimeoutMs", 300_000L))
+                            .borrowTimeoutMs(Long.getLong("db.pool.borrowTimeoutMs", 5_000L))
+                            .leakThresholdMs(Long.getLong("db.pool.leakThresholdMs", 30_000L))
+                            .leakStackTraces(Boolean.getBoolean("db.pool.leakStackTraces"))
+                            .statementCacheSize(Integer.getInteger("db.pool.statementCacheSize", 32))
+                            .prepareThreshold(Integer.getInteger("db.pool.prepareThreshold", 5))
+                            .build();
+                    pool = current;
+                }
+            }
+        }
+        return current;
+    }
+    
     /**
      * Closes a database connection safely.
+     * Pooled connections are returned to the pool.
      * 
      * @param connection the connection to close
      */
@@ -65,9 +144,11 @@ public class DBConnection {
         if (connection != null) {
             try {
                 connection.close();
-                System.out.println("Database connection closed successfully");
+                if (LOG.isDebugEnabled() && CLOSE_SAMPLE.next()) {
+                    LOG.debug("Database connection returned", "sampled", "1/" + CLOSE_SAMPLE.every());
+                }
             } catch (SQLException e) {
-                System.err.println("Error closing database connection: " + e.getMessage());
+                LOG.warn("Error closing database connection", "error", e.getMessage());
             }
         }
     }
@@ -81,7 +162,7 @@ public class DBConnection {
         try (Connection connection = getConnection()) {
             return connection != null && !connection.isClosed();
         } catch (SQLException e) {
-            System.err.println("Database connection test failed: " + e.getMessage());
+            LOG.warn("Database connection test failed", "error", e.getMessage());
             return false;
         }
     }
@@ -0,0 +1,354 @@
+package com.sport.util;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Function;
+
+/**
+ * Bounded read-through cache for entities loaded by ID, with W-TinyLFU-style admission.
+ * New entries go to a small LRU window (1% of the size); entries leaving the window
+ * compete with the least recently used entry of the main segmented LRU, and the one
+ * requested more often according to a count-min sketch stays. One-off lookups
+ * therefore cannot flush entities that are read all the time.
+ * <p>
+ * Entries expire a fixed time after they were written (-Dentity.cache.ttlSeconds,
+ * default 60); IDs that were not found are cached too, for a shorter time
+ * (-Dentity.cache.negativeTtlSeconds, default 5). Size: -Dentity.cache.maxSize
+ * (default 10000 per cache). Writers drop the entries they change with
+ * {@link #invalidate}, so the next read loads the row as stored; a load that races
+ * with a write is not stored.
+ * All state is guarded by one lock, which is never held while loading.
+ *
+ * @param <K> the key type
+ * @param <V> the value type
+ */
+public final class EntityCache<K, V> {
+
+    private static final int MAX_SIZE = Integer.getInteger("entity.cache.maxSize", 10_000);
+    private static final long TTL_NANOS = Long.getLong("entity.cache.ttlSeconds", 60) * 1_000_000_000L;
+    private static final long NEGATIVE_TTL_NANOS =
+            Long.getLong("entity.cache.negativeTtlSeconds", 5) * 1_000_000_000L;
+
+    private final String name;
+    private final int maxSize;
+    private final int windowMax;
+    private final int protectedMax;
+    private final long ttlNanos;
+    private final long negativeTtlNanos;
+
+    private final Object lock = new Object();
+    private final Map<K, Node<K, V>> nodes = new HashMap<>();
+    private final Queue<K, V> window = new Queue<>();
+    private final Queue<K, V> probation = new Queue<>();
+    private final Queue<K, V> protectedQueue = new Queue<>();
+    private final FrequencySketch sketch;
+
+    // Bumped by every write; a load started before a write must not store its result
+    private long writeEpoch;
+
+    private long hits;
+    private long negativeHits;
+    private long misses;
+    private long evictions;
+    private long expirations;
+    private long invalidations;
+
+    public EntityCache(String name) {
+        this(name, MAX_SIZE, TTL_NANOS, NEGATIVE_TTL_NANOS);
+    }
+
+    public EntityCache(String name, int maxSize, long ttlNanos, long negativeTtlNanos) {
+        if (maxSize < 2) {
+            throw new IllegalArgumentException("maxSize must be at least 2");
+        }
+        this.name = name;
+        this.maxSize = maxSize;
+        this.windowMax = Math.max(1, maxSize / 100);
+        this.protectedMax = (maxSize - windowMax) * 4 / 5;
+        this.ttlNanos = ttlNanos;
+        this.negativeTtlNanos = negativeTtlNanos;
+        this.sketch = new FrequencySketch(maxSize);
+    }
+
+    /**
+     * Returns the cached value, or loads it and caches the result, including an empty one.
+     *
+     * @param key    the ID
+     * @param loader loads the value on a miss, e.g. repository::findById
+     * @return the value, or empty if it does not exist
+     */
+    public Optional<V> get(K key, Function<K, Optional<V>> loader) {
+        long epoch;
+        synchronized (lock) {
+            sketch.increment(key);
+            Node<K, V> node = nodes.get(key);
+            if (node != null) {
+                if (node.expiresAt - System.nanoTime() > 0) {
+                    onHit(node);
+                    hits++;
+                    if (node.value == null) {
+                        negativeHits++;
+                    }
+                    return Optional.ofNullable(node.value);
+                }
+                unlink(node);
+                expirations++;
+            }
+            misses++;
+            epoch = writeEpoch;
+        }
+
+        Optional<V> loaded = loader.apply(key);
+
+        synchronized (lock) {
+            if (epoch == writeEpoch) {
+                store(key, loaded.orElse(null));
+            }
+        }
+        return loaded;
+    }
+
+    /**
+     * Drops the entry of an updated or deleted entity.
+     */
+    public void invalidate(K key) {
+        synchronized (lock) {
+            writeEpoch++;
+            Node<K, V> node = nodes.get(key);
+            if (node != null) {
+                unlink(node);
+                invalidations++;
+            }
+        }
+    }
+
+    public void invalidateAll() {
+        synchronized (lock) {
+            writeEpoch++;
+            invalidations += nodes.size();
+            nodes.clear();
+            window.clear();
+            probation.clear();
+            protectedQueue.clear();
+        }
+    }
+
+    public Map<String, Object> getStatistics() {
+        synchronized (lock) {
+            Map<String, Object> stats = new LinkedHashMap<>();
+            stats.put("cache", name);
+            stats.put("size", nodes.size());
+            stats.put("maxSize", maxSize);
+            stats.put("hits", hits);
+            stats.put("negativeHits", negativeHits);
+            stats.put("misses", misses);
+            stats.put("evictions", evictions);
+            stats.put("expirations", expirations);
+            stats.put("invalidations", invalidations);
+            stats.put("hitRatio", hits + misses == 0 ? 0.0
+                    : Math.round(hits * 10000.0 / (hits + misses)) / 10000.0);
+            return stats;
+        }
+    }
+
+    // --- Policy (caller holds the lock) ---
+
+    private void store(K key, V value) {
+        long expiresAt = System.nanoTime() + (value != null ? ttlNanos : negativeTtlNanos);
+        Node<K, V> node = nodes.get(key);
+        if (node != null) {
+            node.value = value;
+            node.expiresAt = expiresAt;
+            onHit(node);
+            return;
+        }
+        node = new Node<>(key, value, expiresAt);
+        nodes.put(key, node);
+        window.addLast(node);
+        if (window.size > windowMax) {
+            Node<K, V> candidate = window.removeFirst();
+            probation.addLast(candidate);
+            if (probation.size + protectedQueue.size > maxSize - windowMax) {
+                evict(candidate);
+            }
+        }
+    }
+
+    /**
+     * Main area is over capacity: the window's candidate and the main LRU victim compete,
+     * the one with the higher estimated frequency stays (the victim on a tie).
+     */
+    private void evict(Node<K, V> candidate) {
+        Node<K, V> victim = probation.first();
+        if (victim == candidate) {
+            victim = protectedQueue.size > 0 ? protectedQueue.first() : candidate;
+        }
+        Node<K, V> loser = victim != candidate && sketch.frequency(candidate.key) > sketch.frequency(victim.key)
+                ? victim : candidate;
+        unlink(loser);
+        evictions++;
+    }
+
+    private void onHit(Node<K, V> node) {
+        Queue<K, V> queue = node.queue;
+        if (queue == window || queue == protectedQueue) {
+            queue.moveToLast(node);
+            return;
+        }
+        // Второе обращение в основной области: переводим в защищённый сегмент
+        probation.remove(node);
+        protectedQueue.addLast(node);
+        if (protectedQueue.size > protectedMax) {
+            probation.addLast(protectedQueue.removeFirst());
+        }
+    }
+
+    private void unlink(Node<K, V> node) {
+        node.queue.remove(node);
+        nodes.remove(node.key);
+    }
+
+    private static final class Node<K, V> {
+        private final K key;
+        private V value; // null = cached "not found"
+        private long expiresAt;
+        private Queue<K, V> queue;
+        private Node<K, V> prev;
+        private Node<K, V> next;
+
+        private Node(K key, V value, long expiresAt) {
+            this.key = key;
+            this.value = value;
+            this.expiresAt = expiresAt;
+        }
+    }
+
+    /**
+     * Intrusive doubly linked LRU list, least recently used first.
+     */
+    private static final class Queue<K, V> {
+        private Node<K, V> head;
+        private Node<K, V> tail;
+        private int size;
+
+        Node<K, V> first() {
+            return head;
+        }
+
+        void addLast(Node<K, V> node) {
+            node.queue = this;
+            node.prev = tail;
+            node.next = null;
+            if (tail == null) {
+                head = node;
+            } else {
+                tail.next = node;
+            }
+            tail = node;
+            size++;
+        }
+
+        Node<K, V> removeFirst() {
+            Node<K, V> node = head;
+            remove(node);
+            return node;
+        }
+
+        void remove(Node<K, V> node) {
+            if (node.prev == null) {
+                head = node.next;
+            } else {
+                node.prev.next = node.next;
+            }
+            if (node.next == null) {
+                tail = node.prev;
+            } else {
+                node.next.prev = node.prev;
+            }
+            node.prev = null;
+            node.next = null;
+            node.queue = null;
+            size--;
+        }
+
+        void moveToLast(Node<K, V> node) {
+            if (node != tail) {
+                remove(node);
+                addLast(node);
+            }
+        }
+
+        void clear() {
+            head = null;
+            tail = null;
+            size = 0;
+        }
+    }
+
+    /**
+     * Count-min sketch with four rows of 4-bit counters (stored as bytes, capped at 15).
+     * After 10 * maxSize increments all counters are halved, so old popularity fades.
+     */
+    private static final class FrequencySketch {
+        private static final int ROWS = 4;
+        private static final int MAX_COUNT = 15;
+        private static final int[] SEEDS = {0x9E3779B9, 0x85EBCA6B, 0xC2B2AE35, 0x27D4EB2F};
+
+        private final byte[][] table;
+        private final int mask;
+        private final int sampleSize;
+        private int additions;
+
+        FrequencySketch(int maxSize) {
+            int width = Integer.highestOneBit(Math.max(16, maxSize - 1)) << 1;
+            this.table = new byte[ROWS][width];
+            this.mask = width - 1;
+            this.sampleSize = 10 * maxSize;
+        }
+
+        void increment(Object key) {
+            int hash = spread(key.hashCode());
+            for (int row = 0; row < ROWS; row++) {
+                int index = index(hash, row);
+                if (table[row][index] < MAX_COUNT) {
+                    table[row][index]++;
+                }
+            }
+            if (++additions >= sampleSize) {
+                reset();
+            }
+        }
+
+        int frequency(Object key) {
+            int hash = spread(key.hashCode());
+            int min = MAX_COUNT;
+            for (int row = 0; row < ROWS; row++) {
+                min = Math.min(min, table[row][index(hash, row)]);
+            }
+            return min;
+        }
+
+        private int index(int hash, int row) {
+            int h = hash * SEEDS[row];
+            return (h ^ (h >>> 16)) & mask;
+        }
+
+        private void reset() {
+            for (byte[] row : table) {
+                for (int i = 0; i < row.length; i++) {
+                    row[i] >>= 1;
+                }
+            }
+            additions /= 2;
+        }
+
+        private static int spread(int h) {
+            h ^= h >>> 17;
+            h *= 0xED5AD4BB;
+            h ^= h >>> 11;
+            return h;
+        }
+    }
+}
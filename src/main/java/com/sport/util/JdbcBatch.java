@@ -0,0 +1,129 @@
+package com.sport.util;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Multi-row inserts and updates with JDBC batching, all rows in one transaction.
+ * Rows are sent in chunks of -Ddb.batchSize (default 500) statements per round trip;
+ * any failure rolls the whole batch back.
+ */
+public final class JdbcBatch {
+
+    public static final int BATCH_SIZE = Integer.getInteger("db.batchSize", 500);
+
+    /**
+     * Sets the statement parameters for one item.
+     */
+    @FunctionalInterface
+    public interface ParameterSetter<T> {
+        void set(PreparedStatement stmt, T item) throws SQLException;
+    }
+
+    private JdbcBatch() {
+        throw new UnsupportedOperationException("Utility class cannot be instantiated");
+    }
+
+    /**
+     * Inserts all items and returns the persisted rows, in item order. The items themselves
+     * are not modified. The SQL must not contain RETURNING: the driver adds it for the
+     * requested columns, and mapper reads them in that order.
+     *
+     * @param sql       INSERT statement
+     * @param returning columns to read back, e.g. the repository's select list
+     */
+    public static <T, R> List<R> insertAll(String sql, String[] returning, List<T> items, ParameterSetter<T> setter,
+                                           JdbcStreams.RowMapper<R> mapper) throws SQLException {
+        if (items.isEmpty()) {
+            return new ArrayList<>();
+        }
+        List<R> rows = new ArrayList<>(items.size());
+        try (Connection conn = DBConnection.getConnection()) {
+            conn.setAutoCommit(false);
+            try (PreparedStatement stmt = conn.prepareStatement(sql, returning)) {
+                int from = 0;
+                while (from < items.size()) {
+                    int to = Math.min(from + BATCH_SIZE, items.size());
+                    for (int i = from; i < to; i++) {
+                        setter.set(stmt, items.get(i));
+                        stmt.addBatch();
+                    }
+                    stmt.executeBatch();
+                    try (ResultSet keys = stmt.getGeneratedKeys()) {
+                        for (int i = from; i < to; i++) {
+                            if (!keys.next()) {
+                                throw new SQLException("Driver returned fewer generated keys than rows");
+                            }
+                            rows.add(mapper.map(keys));
+                        }
+                    }
+                    from = to;
+                }
+                conn.commit();
+            } catch (SQLException | RuntimeException e) {
+                conn.rollback();
+                throw e;
+            }
+        }
+        return rows;
+    }
+
+    /**
+     * Runs the update for all items and returns the updated rows, in item order. For every
+     * item whose statement matched no row, onMissing is called before commit; throwing from
+     * it rolls the batch back. As with insertAll, the driver adds RETURNING for the columns.
+     */
+    public static <T, R> List<R> updateAll(String sql, String[] returning, List<T> items, ParameterSetter<T> setter,
+                                           JdbcStreams.RowMapper<R> mapper, Consumer<T> onMissing) throws SQLException {
+        if (items.isEmpty()) {
+            return new ArrayList<>();
+        }
+        List<R> rows = new ArrayList<>(items.size());
+        try (Connection conn = DBConnection.getConnection()) {
+            conn.setAutoCommit(false);
+            try (PreparedStatement stmt = conn.prepareStatement(sql, returning)) {
+                try {
+                    int from = 0;
+                    while (from < items.size()) {
+                        int to = Math.min(from + BATCH_SIZE, items.size());
+                        for (int i = from; i < to; i++) {
+                            setter.set(stmt, items.get(i));
+                            stmt.addBatch();
+                        }
+                        int[] counts = stmt.executeBatch();
+                        try (ResultSet keys = stmt.getGeneratedKeys()) {
+                            for (int i = 0; i < counts.length; i++) {
+                                // Строка в RETURNING есть только у сработавших UPDATE
+                                if (counts[i] == 0) {
+                                    onMissing.accept(items.get(from + i));
+                                } else if (counts[i] == Statement.EXECUTE_FAILED) {
+                                    throw new SQLException("Batch update failed for item " + (from + i));
+                                } else if (!keys.next()) {
+                                    throw new SQLException("Driver returned fewer updated rows than items");
+                                } else {
+                                    rows.add(mapper.map(keys));
+                                }
+                            }
+                        }
+                        from = to;
+                    }
+                } catch (SQLException | RuntimeException e) {
+                    // Statement is cached per connection: do not leave queued rows for the next user
+                    stmt.clearBatch();
+                    throw e;
+                }
+                conn.commit();
+            } catch (SQLException | RuntimeException e) {
+                conn.rollback();
+                throw e;
+            }
+        }
+        return rows;
+    }
+}
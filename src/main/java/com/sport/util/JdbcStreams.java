@@ -0,0 +1,175 @@
+package com.sport.util;
+
+import org.postgresql.PGConnection;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Row-by-row query execution for large scans.
+ * The PostgreSQL driver reads the whole result into memory unless the query runs
+ * inside a transaction with a fetch size, in which case it uses a server-side cursor
+ * and fetches -Ddb.fetchSize rows (default 1000) per round trip. These helpers set
+ * that up on a pooled connection (read-only, auto-commit off); the pool rolls the
+ * transaction back and restores auto-commit when the connection is returned.
+ * {@link #copyOut} is the bulk variant: the server streams COPY output, no cursor needed.
+ */
+public final class JdbcStreams {
+
+    public static final int FETCH_SIZE = Integer.getInteger("db.fetchSize", 1000);
+
+    /**
+     * Maps the current row of a result set.
+     */
+    @FunctionalInterface
+    public interface RowMapper<T> {
+        T map(ResultSet rs) throws SQLException;
+    }
+
+    /**
+     * Sets statement parameters.
+     */
+    @FunctionalInterface
+    public interface Binder {
+        Binder NONE = stmt -> { };
+
+        void bind(PreparedStatement stmt) throws SQLException;
+    }
+
+    private JdbcStreams() {
+        throw new UnsupportedOperationException("Utility class cannot be instantiated");
+    }
+
+    /**
+     * Runs the query and passes every mapped row to the action; the connection is held until it returns.
+     *
+     * @return number of rows processed
+     */
+    public static <T> long forEach(String sql, RowMapper<T> mapper, Consumer<? super T> action) throws SQLException {
+        return forEach(sql, Binder.NONE, mapper, action);
+    }
+
+    public static <T> long forEach(String sql, Binder binder, RowMapper<T> mapper,
+                                   Consumer<? super T> action) throws SQLException {
+        try (Connection conn = DBConnection.getConnection()) {
+            beginCursorTransaction(conn);
+            try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+                stmt.setFetchSize(FETCH_SIZE);
+                binder.bind(stmt);
+                long rows = 0;
+                try (ResultSet rs = stmt.executeQuery()) {
+                    while (rs.next()) {
+                        action.accept(mapper.map(rs));
+                        rows++;
+                    }
+                }
+                conn.commit();
+                return rows;
+            }
+        }
+    }
+
+    /**
+     * Runs the query and returns a lazy stream over the mapped rows. The stream holds a
+     * pooled connection until it is closed, so always use it in try-with-resources.
+     * SQL errors while reading are rethrown as RuntimeException, like the repositories do.
+     */
+    public static <T> Stream<T> stream(String sql, RowMapper<T> mapper) {
+        return stream(sql, Binder.NONE, mapper);
+    }
+
+    public static <T> Stream<T> stream(String sql, Binder binder, RowMapper<T> mapper) {
+        Connection conn = null;
+        PreparedStatement stmt = null;
+        ResultSet rs = null;
+        try {
+            conn = DBConnection.getConnection();
+            beginCursorTransaction(conn);
+            stmt = conn.prepareStatement(sql);
+            stmt.setFetchSize(FETCH_SIZE);
+            binder.bind(stmt);
+            rs = stmt.executeQuery();
+        } catch (SQLException e) {
+            closeQuietly(rs, stmt, conn);
+            throw new RuntimeException("Failed to open result stream", e);
+        }
+
+        ResultSet resultSet = rs;
+        PreparedStatement statement = stmt;
+        Connection connection = conn;
+        Spliterator<T> rows = new Spliterators.AbstractSpliterator<T>(Long.MAX_VALUE,
+                Spliterator.ORDERED | Spliterator.NONNULL) {
+            @Override
+            public boolean tryAdvance(Consumer<? super T> action) {
+                try {
+                    if (!resultSet.next()) {
+                        return false;
+                    }
+                    action.accept(mapper.map(resultSet));
+                    return true;
+                } catch (SQLException e) {
+                    throw new RuntimeException("Failed to read result stream", e);
+                }
+            }
+        };
+        return StreamSupport.stream(rows, false)
+                .onClose(() -> closeQuietly(resultSet, statement, connection));
+    }
+
+    /**
+     * Runs {@code COPY ... TO STDOUT} and writes the server's output to the stream as it arrives.
+     * The output stream is not closed.
+     *
+     * @return number of rows copied
+     */
+    public static long copyOut(String copySql, OutputStream out) throws SQLException, IOException {
+        long start = System.nanoTime();
+        long[] bytes = new long[1];
+        OutputStream counting = new FilterOutputStream(out) {
+            @Override
+            public void write(byte[] b, int off, int len) throws IOException {
+                out.write(b, off, len);
+                bytes[0] += len;
+            }
+        };
+        long rows = 0;
+        boolean failed = true;
+        try (Connection conn = DBConnection.getConnection()) {
+            // Пул отдаёт прокси: COPY API есть только у соединения драйвера
+            rows = conn.unwrap(PGConnection.class).getCopyAPI().copyOut(copySql, counting);
+            failed = false;
+            return rows;
+        } finally {
+            QueryTracer.recordCopy(copySql, System.nanoTime() - start, rows, bytes[0], failed);
+        }
+    }
+
+    private static void beginCursorTransaction(Connection conn) throws SQLException {
+        // Порядок важен: read-only задаётся до начала транзакции
+        conn.setReadOnly(true);
+        conn.setAutoCommit(false);
+    }
+
+    private static void closeQuietly(AutoCloseable... resources) {
+        for (AutoCloseable resource : resources) {
+            if (resource == null) {
+                continue;
+            }
+            try {
+                resource.close();
+            } catch (Exception e) {
+                // Connection goes back to the pool anyway; nothing useful to report
+            }
+        }
+    }
+}
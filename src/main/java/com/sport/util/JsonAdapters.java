@@ -0,0 +1,423 @@
+package com.sport.util;
+
+import com.google.gson.Gson;
+import com.google.gson.TypeAdapter;
+import com.google.gson.TypeAdapterFactory;
+import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+import com.sport.domain.Player;
+import com.sport.domain.PlayerSummary;
+import com.sport.domain.Team;
+import com.sport.domain.TeamSummary;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Objects;
+
+/**
+ * Hand-written Gson adapters for the domain classes and the API envelope.
+ * They read and write fields directly through getters and builders instead of
+ * reflection, and format dates without DateTimeFormatter. Field names and order
+ * match what reflective Gson produced, so the JSON does not change.
+ */
+final class JsonAdapters {
+
+    private JsonAdapters() {
+        throw new UnsupportedOperationException("Utility class cannot be instantiated");
+    }
+
+    // --- LocalDateTime ---
+
+    /**
+     * ISO-8601 local date-time, same output as DateTimeFormatter.ISO_LOCAL_DATE_TIME.
+     */
+    static final class LocalDateTimeAdapter extends TypeAdapter<LocalDateTime> {
+        @Override
+        public void write(JsonWriter out, LocalDateTime value) throws IOException {
+            if (value == null) {
+                out.nullValue();
+            } else {
+                out.value(format(value));
+            }
+        }
+
+        @Override
+        public LocalDateTime read(JsonReader in) throws IOException {
+            if (in.peek() == JsonToken.NULL) {
+                in.nextNull();
+                return null;
+            }
+            return parse(in.nextString());
+        }
+    }
+
+    static String format(LocalDateTime value) {
+        int year = value.getYear();
+        if (year < 0 || year > 9999) {
+            return value.format(DateTimeFormatter.ISO_LOCAL_DATE_TIME);
+        }
+        char[] buf = new char[29];
+        put(buf, 0, year, 4);
+        buf[4] = '-';
+        put(buf, 5, value.getMonthValue(), 2);
+        buf[7] = '-';
+        put(buf, 8, value.getDayOfMonth(), 2);
+        buf[10] = 'T';
+        put(buf, 11, value.getHour(), 2);
+        buf[13] = ':';
+        put(buf, 14, value.getMinute(), 2);
+        buf[16] = ':';
+        put(buf, 17, value.getSecond(), 2);
+        int length = 19;
+        int nano = value.getNano();
+        if (nano != 0) {
+            // Fraction without trailing zeros, as ISO_LOCAL_TIME prints it
+            buf[19] = '.';
+            put(buf, 20, nano, 9);
+            length = 29;
+            while (buf[length - 1] == '0') {
+                length--;
+            }
+        }
+        return new String(buf, 0, length);
+    }
+
+    static LocalDateTime parse(String text) {
+        // Fast path for the common yyyy-MM-ddTHH:mm:ss form
+        if (text.length() == 19 && text.charAt(4) == '-' && text.charAt(7) == '-' && text.charAt(10) == 'T'
+                && text.charAt(13) == ':' && text.charAt(16) == ':') {
+            int year = digits(text, 0, 4);
+            int month = digits(text, 5, 2);
+            int day = digits(text, 8, 2);
+            int hour = digits(text, 11, 2);
+            int minute = digits(text, 14, 2);
+            int second = digits(text, 17, 2);
+            if ((year | month | day | hour | minute | second) >= 0) {
+                return LocalDateTime.of(year, month, day, hour, minute, second);
+            }
+        }
+        return LocalDateTime.parse(text, DateTimeFormatter.ISO_LOCAL_DATE_TIME);
+    }
+
+    private static void put(char[] buf, int offset, int value, int width) {
+        for (int i = offset + width - 1; i >= offset; i--) {
+            buf[i] = (char) ('0' + value % 10);
+            value /= 10;
+        }
+    }
+
+    // Returns -1 if the range contains a non-digit
+    private static int digits(String text, int offset, int width) {
+        int value = 0;
+        for (int i = offset; i < offset + width; i++) {
+            char c = text.charAt(i);
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+            value = value * 10 + (c - '0');
+        }
+        return value;
+    }
+
+    // --- Player ---
+
+    static final class PlayerAdapter extends TypeAdapter<Player> {
+        @Override
+        public void write(JsonWriter out, Player player) throws IOException {
+            out.beginObject();
+            out.name("id");
+            writeInteger(out, player.getId());
+            out.name("firstName").value(player.getFirstName());
+            out.name("lastName").value(player.getLastName());
+            out.name("age");
+            writeInteger(out, player.getAge());
+            out.name("position").value(player.getPosition());
+            out.name("rating");
+            writeDouble(out, player.getRating());
+            out.name("teamId");
+            writeInteger(out, player.getTeamId());
+            out.name("jerseyNumber");
+            writeInteger(out, player.getJerseyNumber());
+            out.name("createdAt");
+            writeDateTime(out, player.getCreatedAt());
+            out.name("updatedAt");
+            writeDateTime(out, player.getUpdatedAt());
+            out.endObject();
+        }
+
+        @Override
+        public Player read(JsonReader in) throws IOException {
+            Player.Builder builder = new Player.Builder();
+            in.beginObject();
+            while (in.hasNext()) {
+                String name = in.nextName();
+                switch (name) {
+                    case "id": builder.id(readInteger(in)); break;
+                    case "firstName": builder.firstName(readString(in)); break;
+                    case "lastName": builder.lastName(readString(in)); break;
+                    case "age": builder.age(readInteger(in)); break;
+                    case "position": builder.position(readString(in)); break;
+                    case "rating": builder.rating(readDouble(in)); break;
+                    case "teamId": builder.teamId(readInteger(in)); break;
+                    case "jerseyNumber": builder.jerseyNumber(readInteger(in)); break;
+                    case "createdAt": builder.createdAt(readDateTime(in)); break;
+                    case "updatedAt": builder.updatedAt(readDateTime(in)); break;
+                    default: in.skipValue();
+                }
+            }
+            in.endObject();
+            return builder.build();
+        }
+    }
+
+    /**
+     * True if both players would serialize to the same JSON.
+     */
+    static boolean samePlayer(Player a, Player b) {
+        return Objects.equals(a.getId(), b.getId())
+                && Objects.equals(a.getFirstName(), b.getFirstName())
+                && Objects.equals(a.getLastName(), b.getLastName())
+                && Objects.equals(a.getAge(), b.getAge())
+                && Objects.equals(a.getPosition(), b.getPosition())
+                && Objects.equals(a.getRating(), b.getRating())
+                && Objects.equals(a.getTeamId(), b.getTeamId())
+                && Objects.equals(a.getJerseyNumber(), b.getJerseyNumber())
+                && Objects.equals(a.getCreatedAt(), b.getCreatedAt())
+                && Objects.equals(a.getUpdatedAt(), b.getUpdatedAt());
+    }
+
+    // --- Team ---
+
+    static final class TeamAdapter extends TypeAdapter<Team> {
+        @Override
+        public void write(JsonWriter out, Team team) throws IOException {
+            out.beginObject();
+            out.name("id");
+            writeInteger(out, team.getId());
+            out.name("name").value(team.getName());
+            out.name("sport").value(team.getSport());
+            out.name("coach").value(team.getCoach());
+            out.name("location").value(team.getLocation());
+            out.name("foundedYear");
+            writeInteger(out, team.getFoundedYear());
+            out.name("createdAt");
+            writeDateTime(out, team.getCreatedAt());
+            out.name("updatedAt");
+            writeDateTime(out, team.getUpdatedAt());
+            out.endObject();
+        }
+
+        @Override
+        public Team read(JsonReader in) throws IOException {
+            Team.Builder builder = new Team.Builder();
+            in.beginObject();
+            while (in.hasNext()) {
+                String name = in.nextName();
+                switch (name) {
+                    case "id": builder.id(readInteger(in)); break;
+                    case "name": builder.name(readString(in)); break;
+                    case "sport": builder.sport(readString(in)); break;
+                    case "coach": builder.coach(readString(in)); break;
+                    case "location": builder.location(readString(in)); break;
+                    case "foundedYear": builder.foundedYear(readInteger(in)); break;
+                    case "createdAt": builder.createdAt(readDateTime(in)); break;
+                    case "updatedAt": builder.updatedAt(readDateTime(in)); break;
+                    default: in.skipValue();
+                }
+            }
+            in.endObject();
+            return builder.build();
+        }
+    }
+
+    /**
+     * True if both teams would serialize to the same JSON.
+     */
+    static boolean sameTeam(Team a, Team b) {
+        return Objects.equals(a.getId(), b.getId())
+                && Objects.equals(a.getName(), b.getName())
+                && Objects.equals(a.getSport(), b.getSport())
+                && Objects.equals(a.getCoach(), b.getCoach())
+                && Objects.equals(a.getLocation(), b.getLocation())
+                && Objects.equals(a.getFoundedYear(), b.getFoundedYear())
+                && Objects.equals(a.getCreatedAt(), b.getCreatedAt())
+                && Objects.equals(a.getUpdatedAt(), b.getUpdatedAt());
+    }
+
+    // --- Projections ---
+
+    static final class PlayerSummaryAdapter extends TypeAdapter<PlayerSummary> {
+        @Override
+        public void write(JsonWriter out, PlayerSummary player) throws IOException {
+            out.beginObject();
+            out.name("id");
+            writeInteger(out, player.getId());
+            out.name("firstName").value(player.getFirstName());
+            out.name("lastName").value(player.getLastName());
+            out.name("rating");
+            writeDouble(out, player.getRating());
+            out.name("teamId");
+            writeInteger(out, player.getTeamId());
+            out.endObject();
+        }
+
+        @Override
+        public PlayerSummary read(JsonReader in) throws IOException {
+            Integer id = null;
+            String firstName = null;
+            String lastName = null;
+            Double rating = null;
+            Integer teamId = null;
+            in.beginObject();
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case "id": id = readInteger(in); break;
+                    case "firstName": firstName = readString(in); break;
+                    case "lastName": lastName = readString(in); break;
+                    case "rating": rating = readDouble(in); break;
+                    case "teamId": teamId = readInteger(in); break;
+                    default: in.skipValue();
+                }
+            }
+            in.endObject();
+            return new PlayerSummary(id, firstName, lastName, rating, teamId);
+        }
+    }
+
+    static final class TeamSummaryAdapter extends TypeAdapter<TeamSummary> {
+        @Override
+        public void write(JsonWriter out, TeamSummary team) throws IOException {
+            out.beginObject();
+            out.name("id");
+            writeInteger(out, team.getId());
+            out.name("name").value(team.getName());
+            out.name("sport").value(team.getSport());
+            out.endObject();
+        }
+
+        @Override
+        public TeamSummary read(JsonReader in) throws IOException {
+            Integer id = null;
+            String name = null;
+            String sport = null;
+            in.beginObject();
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case "id": id = readInteger(in); break;
+                    case "name": name = readString(in); break;
+                    case "sport": sport = readString(in); break;
+                    default: in.skipValue();
+                }
+            }
+            in.endObject();
+            return new TeamSummary(id, name, sport);
+        }
+    }
+
+    // --- ApiResponse ---
+
+    /**
+     * The envelope holds an untyped payload, so the adapter needs the Gson instance
+     * to look up the payload's adapter by runtime type.
+     */
+    static final class ApiResponseAdapterFactory implements TypeAdapterFactory {
+        @Override
+        @SuppressWarnings("unchecked")
+        public <T> TypeAdapter<T> create(Gson gson, TypeToken<T> type) {
+            if (type.getRawType() != JsonUtil.ApiResponse.class) {
+                return null;
+            }
+            TypeAdapter<Object> dataAdapter = gson.getAdapter(Object.class);
+            return (TypeAdapter<T>) new TypeAdapter<JsonUtil.ApiResponse>() {
+                @Override
+                public void write(JsonWriter out, JsonUtil.ApiResponse response) throws IOException {
+                    out.beginObject();
+                    out.name("success").value(response.success);
+                    out.name("message").value(response.message);
+                    out.name("data");
+                    dataAdapter.write(out, response.data);
+                    out.name("timestamp").value(response.timestamp);
+                    out.endObject();
+                }
+
+                @Override
+                public JsonUtil.ApiResponse read(JsonReader in) throws IOException {
+                    boolean success = false;
+                    String message = null;
+                    Object data = null;
+                    long timestamp = 0;
+                    in.beginObject();
+                    while (in.hasNext()) {
+                        switch (in.nextName()) {
+                            case "success": success = in.nextBoolean(); break;
+                            case "message": message = readString(in); break;
+                            case "data": data = dataAdapter.read(in); break;
+                            case "timestamp": timestamp = in.nextLong(); break;
+                            default: in.skipValue();
+                        }
+                    }
+                    in.endObject();
+                    return new JsonUtil.ApiResponse(success, message, data, timestamp);
+                }
+            }.nullSafe();
+        }
+    }
+
+    // --- Field helpers ---
+
+    private static void writeInteger(JsonWriter out, Integer value) throws IOException {
+        if (value == null) {
+            out.nullValue();
+        } else {
+            out.value(value.longValue());
+        }
+    }
+
+    private static void writeDouble(JsonWriter out, Double value) throws IOException {
+        if (value == null) {
+            out.nullValue();
+        } else {
+            out.value(value.doubleValue());
+        }
+    }
+
+    private static void writeDateTime(JsonWriter out, LocalDateTime value) throws IOException {
+        if (value == null) {
+            out.nullValue();
+        } else {
+            out.value(format(value));
+        }
+    }
+
+    private static Integer readInteger(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+        return in.nextInt();
+    }
+
+    private static Double readDouble(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+        return in.nextDouble();
+    }
+
+    private static String readString(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+        return in.nextString();
+    }
+
+    private static LocalDateTime readDateTime(JsonReader in) throws IOException {
+        String text = readString(in);
+        return text == null ? null : parse(text);
+    }
+}
@@ -0,0 +1,152 @@
+package com.sport.util;
+
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiPredicate;
+import java.util.function.Function;
+
+/**
+ * Cache of encoded JSON per entity, keyed by ID. An entry is reused while the entity
+ * it was encoded from is the same object or has equal content, so an update (which puts
+ * a new object into the data pool) re-encodes only that entity and unchanged entities
+ * are written as a copy of the cached fragment instead of running the adapter again.
+ * Fragments are Strings; with compact strings an ASCII fragment takes one byte per char.
+ * Memory is bounded by -Djson.cache.maxBytes; over the limit, arbitrary entries are
+ * dropped until the cache is back at three quarters of it.
+ *
+ * @param <T> the entity type
+ */
+final class JsonFragmentCache<T> {
+
+    private static final long ENTRY_OVERHEAD_BYTES = 64;
+
+    private final String name;
+    private final TypeAdapter<T> encoder;
+    private final Function<T, Integer> idExtractor;
+    private final BiPredicate<T, T> sameContent;
+    private final long maxBytes;
+    private final Map<Integer, Fragment<T>> fragments = new ConcurrentHashMap<>();
+
+    private final AtomicLong bytes = new AtomicLong();
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+    private final AtomicLong invalidations = new AtomicLong();
+
+    JsonFragmentCache(String name, TypeAdapter<T> encoder, Function<T, Integer> idExtractor,
+                      BiPredicate<T, T> sameContent, long maxBytes) {
+        this.name = name;
+        this.encoder = encoder;
+        this.idExtractor = idExtractor;
+        this.sameContent = sameContent;
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * Returns the JSON for the entity, encoding it on a miss.
+     */
+    String encode(T entity) {
+        Integer id = idExtractor.apply(entity);
+        if (id == null) {
+            // Not persisted yet, nothing to key on
+            misses.incrementAndGet();
+            return encoder.toJson(entity);
+        }
+
+        Fragment<T> fragment = fragments.get(id);
+        if (fragment != null && (fragment.source == entity || sameContent.test(fragment.source, entity))) {
+            hits.incrementAndGet();
+            return fragment.json;
+        }
+
+        misses.incrementAndGet();
+        String json = encoder.toJson(entity);
+        Fragment<T> replaced = fragments.put(id, new Fragment<>(entity, json));
+        bytes.addAndGet(size(json) - (replaced != null ? size(replaced.json) : 0));
+        if (bytes.get() > maxBytes) {
+            evict();
+        }
+        return json;
+    }
+
+    /**
+     * Drops the fragment of an updated or deleted entity.
+     */
+    void invalidate(Integer id) {
+        Fragment<T> removed = fragments.remove(id);
+        if (removed != null) {
+            bytes.addAndGet(-size(removed.json));
+            invalidations.incrementAndGet();
+        }
+    }
+
+    Map<String, Object> getStatistics() {
+        long hitCount = hits.get();
+        long missCount = misses.get();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("cache", name);
+        stats.put("entries", fragments.size());
+        stats.put("bytes", bytes.get());
+        stats.put("maxBytes", maxBytes);
+        stats.put("hits", hitCount);
+        stats.put("misses", missCount);
+        stats.put("evictions", evictions.get());
+        stats.put("invalidations", invalidations.get());
+        stats.put("hitRatio", hitCount + missCount == 0 ? 0.0
+                : Math.round(hitCount * 10000.0 / (hitCount + missCount)) / 10000.0);
+        return stats;
+    }
+
+    /**
+     * Adapter that writes through this cache and reads through the plain encoder.
+     * Only for compact output: a cached fragment carries no indentation.
+     */
+    TypeAdapter<T> asAdapter() {
+        return new TypeAdapter<T>() {
+            @Override
+            public void write(JsonWriter out, T value) throws IOException {
+                out.jsonValue(encode(value));
+            }
+
+            @Override
+            public T read(JsonReader in) throws IOException {
+                return encoder.read(in);
+            }
+        }.nullSafe();
+    }
+
+    private void evict() {
+        long target = maxBytes * 3 / 4;
+        Iterator<Map.Entry<Integer, Fragment<T>>> it = fragments.entrySet().iterator();
+        while (bytes.get() > target && it.hasNext()) {
+            Map.Entry<Integer, Fragment<T>> entry = it.next();
+            // Conditional remove: skip entries another thread has just replaced
+            if (fragments.remove(entry.getKey(), entry.getValue())) {
+                bytes.addAndGet(-size(entry.getValue().json));
+                evictions.incrementAndGet();
+            }
+        }
+    }
+
+    private static long size(String json) {
+        return json.length() + ENTRY_OVERHEAD_BYTES;
+    }
+
+    private static final class Fragment<T> {
+        private final T source;
+        private final String json;
+
+        private Fragment(T source, String json) {
+            this.source = source;
+            this.json = json;
+        }
+    }
+}
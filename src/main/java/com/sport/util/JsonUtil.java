@@ -1,31 +1,64 @@
 package com.sport.util;
 
-import com.google.gson.*;
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonIOException;
 import com.google.gson.reflect.TypeToken;
-import java.lang.reflect.Type;
+import com.google.gson.stream.JsonWriter;
+import com.sport.domain.Player;
+import com.sport.domain.PlayerSummary;
+import com.sport.domain.Team;
+import com.sport.domain.TeamSummary;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 
+/**
+ * JSON helpers. Output is compact by default; the pretty variants are for
+ * requests with {@code ?pretty}. The write* methods serialize straight into
+ * an output stream, so large responses are never held as one String.
+ */
 public class JsonUtil {
-    // Адаптер для LocalDateTime — ВОТ ЭТО ИСПРАВЛЯЕТ ОШИБКУ
-    private static final Gson gson = new GsonBuilder()
+    // Кэш готового JSON для сущностей (только для компактного вывода)
+    private static final long FRAGMENT_CACHE_BYTES = Long.getLong("json.cache.maxBytes", 32L * 1024 * 1024);
+    private static final JsonFragmentCache<Player> playerFragments = new JsonFragmentCache<>(
+            "players", new JsonAdapters.PlayerAdapter(), Player::getId, JsonAdapters::samePlayer, FRAGMENT_CACHE_BYTES);
+    private static final JsonFragmentCache<Team> teamFragments = new JsonFragmentCache<>(
+            "teams", new JsonAdapters.TeamAdapter(), Team::getId, JsonAdapters::sameTeam, FRAGMENT_CACHE_BYTES);
+
+    // Компактный вывод для продакшена, отступы — только по запросу
+    private static final Gson gson = builder()
+            .registerTypeAdapter(Player.class, playerFragments.asAdapter())
+            .registerTypeAdapter(Team.class, teamFragments.asAdapter())
+            .create();
+    private static final Gson prettyGson = builder()
             .setPrettyPrinting()
-            .serializeNulls()
-            .registerTypeAdapter(LocalDateTime.class, new JsonSerializer<LocalDateTime>() {
-                @Override
-                public JsonElement serialize(LocalDateTime src, Type typeOfSrc, JsonSerializationContext context) {
-                    return new JsonPrimitive(src.format(DateTimeFormatter.ISO_LOCAL_DATE_TIME));
-                }
-            })
-            .registerTypeAdapter(LocalDateTime.class, new JsonDeserializer<LocalDateTime>() {
-                @Override
-                public LocalDateTime deserialize(JsonElement json, Type typeOfT, JsonDeserializationContext context) throws JsonParseException {
-                    return LocalDateTime.parse(json.getAsString(), DateTimeFormatter.ISO_LOCAL_DATE_TIME);
-                }
-            })
+            .registerTypeAdapter(Player.class, new JsonAdapters.PlayerAdapter().nullSafe())
+            .registerTypeAdapter(Team.class, new JsonAdapters.TeamAdapter().nullSafe())
             .create();
+    // Для выгрузок: мимо кэша фрагментов, иначе полный проход вытеснит горячие записи
+    private static final Gson exportGson = builder()
+            .registerTypeAdapter(Player.class, new JsonAdapters.PlayerAdapter().nullSafe())
+            .registerTypeAdapter(Team.class, new JsonAdapters.TeamAdapter().nullSafe())
+            .create();
+
+    private static GsonBuilder builder() {
+        // Адаптеры без рефлексии для конверта ответа, LocalDateTime и проекций; сущности — см. выше
+        return new GsonBuilder()
+            .serializeNulls()
+            .registerTypeAdapter(LocalDateTime.class, new JsonAdapters.LocalDateTimeAdapter().nullSafe())
+            .registerTypeAdapter(PlayerSummary.class, new JsonAdapters.PlayerSummaryAdapter().nullSafe())
+            .registerTypeAdapter(TeamSummary.class, new JsonAdapters.TeamSummaryAdapter().nullSafe())
+            .registerTypeAdapterFactory(new JsonAdapters.ApiResponseAdapterFactory());
+    }
 
     private JsonUtil() { throw new UnsupportedOperationException("Utility class cannot be instantiated"); }
 
@@ -33,26 +66,112 @@ public class JsonUtil {
     public static <T> T fromJson(String json, Class<T> clazz) { return gson.fromJson(json, clazz); }
     public static <T> List<T> fromJsonList(String json, Class<T> clazz) { return gson.fromJson(json, TypeToken.getParameterized(List.class, clazz).getType()); }
 
+    /**
+     * Drops the cached JSON of an updated or deleted player.
+     */
+    public static void invalidatePlayer(Integer id) { playerFragments.invalidate(id); }
+
+    /**
+     * Drops the cached JSON of an updated or deleted team.
+     */
+    public static void invalidateTeam(Integer id) { teamFragments.invalidate(id); }
+
+    /**
+     * Hit rate and memory of the entity JSON caches.
+     */
+    public static List<Map<String, Object>> getCacheStatistics() {
+        return List.of(playerFragments.getStatistics(), teamFragments.getStatistics());
+    }
+
     // Ответы API
     public static String createSuccessResponse(Object data) { return createResponse(true, "Success", data); }
     public static String createErrorResponse(String errorMessage) { return createResponse(false, errorMessage, null); }
 
     public static String createResponse(boolean success, String message, Object data) {
+        return createResponse(success, message, data, false);
+    }
+
+    public static String createResponse(boolean success, String message, Object data, boolean pretty) {
         ApiResponse response = new ApiResponse(success, message, data);
-        return gson.toJson(response);
+        return (pretty ? prettyGson : gson).toJson(response);
     }
 
-    private static class ApiResponse {
-        private final boolean success;
-        private final String message;
-        private final Object data;
-        private final long timestamp;
+    /**
+     * Streams a success envelope with the given data to the output stream.
+     * The stream is flushed but not closed.
+     */
+    public static void writeSuccessResponse(OutputStream out, Object data, boolean pretty) throws IOException {
+        writeSuccessResponse(out, data, pretty, System.currentTimeMillis());
+    }
+
+    /**
+     * Same as {@link #writeSuccessResponse(OutputStream, Object, boolean)} with a fixed envelope
+     * timestamp, for bodies that must be byte-identical for the same data (ETag).
+     */
+    public static void writeSuccessResponse(OutputStream out, Object data, boolean pretty, long timestamp)
+            throws IOException {
+        writeResponse(out, true, "Success", data, pretty, timestamp);
+    }
+
+    /**
+     * Streams an API envelope to the output stream without building the JSON as a String.
+     * The stream is flushed but not closed.
+     */
+    public static void writeResponse(OutputStream out, boolean success, String message, Object data,
+                                     boolean pretty) throws IOException {
+        writeResponse(out, success, message, data, pretty, System.currentTimeMillis());
+    }
+
+    private static void writeResponse(OutputStream out, boolean success, String message, Object data,
+                                      boolean pretty, long timestamp) throws IOException {
+        Gson target = pretty ? prettyGson : gson;
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 16 * 1024);
+        JsonWriter jsonWriter = target.newJsonWriter(writer);
+        try {
+            target.toJson(new ApiResponse(success, message, data, timestamp), ApiResponse.class, jsonWriter);
+        } catch (JsonIOException e) {
+            throw e.getCause() instanceof IOException ? (IOException) e.getCause() : new IOException(e);
+        }
+        jsonWriter.flush();
+    }
+
+    /**
+     * Writes one compact JSON object per line (NDJSON) without an envelope.
+     * The stream is flushed but not closed.
+     *
+     * @return number of lines written
+     */
+    public static <T> long writeLines(Iterator<T> rows, Class<T> type, OutputStream out) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 64 * 1024);
+        long lines = 0;
+        try {
+            while (rows.hasNext()) {
+                exportGson.toJson(rows.next(), type, writer);
+                writer.write('\n');
+                lines++;
+            }
+        } catch (JsonIOException e) {
+            throw e.getCause() instanceof IOException ? (IOException) e.getCause() : new IOException(e);
+        }
+        writer.flush();
+        return lines;
+    }
+
+    static class ApiResponse {
+        final boolean success;
+        final String message;
+        final Object data;
+        final long timestamp;
+
+        ApiResponse(boolean success, String message, Object data) {
+            this(success, message, data, System.currentTimeMillis());
+        }
 
-        public ApiResponse(boolean success, String message, Object data) {
+        ApiResponse(boolean success, String message, Object data, long timestamp) {
             this.success = success;
             this.message = message;
             this.data = data;
-            this.timestamp = System.currentTimeMillis();
+            this.timestamp = timestamp;
         }
     }
 }
\ No newline at end of file
@@ -0,0 +1,299 @@
+package com.sport.util;
+
+import java.io.BufferedWriter;
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Asynchronous leveled logger with key=value fields, written as one logfmt line per event:
+ * <pre>ts=2024-05-01T10:00:00.123Z level=WARN logger=ConnectionPool thread=http-worker-3 msg="..." heldMs=31000</pre>
+ * Callers only put the event into a lock-free ring buffer (-Dlog.bufferSize, default 8192);
+ * one daemon thread formats and writes to stderr. When the buffer is full the event is
+ * dropped and counted instead of blocking the caller; the writer reports drops and they
+ * are exported as log_events_dropped_total. Level: -Dlog.level (default INFO).
+ * Stack traces are formatted on the writer thread.
+ */
+public final class Log {
+
+    public enum Level { DEBUG, INFO, WARN, ERROR }
+
+    private static final Level THRESHOLD = parseLevel(System.getProperty("log.level", "INFO"));
+    private static final Ring RING = new Ring(Integer.getInteger("log.bufferSize", 8192));
+    private static final LongAdder dropped = new LongAdder();
+    private static final Thread writer = new Thread(Log::drainLoop, "log-writer");
+    private static volatile boolean closing;
+
+    static {
+        writer.setDaemon(true);
+        writer.start();
+        // Дописать накопленное при штатной остановке
+        Runtime.getRuntime().addShutdownHook(new Thread(Log::shutdown, "log-shutdown"));
+        Metrics.counterFunction("log_events_dropped_total", "Log events dropped because the buffer was full",
+                dropped::sum);
+    }
+
+    private final String name;
+
+    private Log(String name) {
+        this.name = name;
+    }
+
+    public static Log get(Class<?> owner) {
+        return new Log(owner.getSimpleName());
+    }
+
+    public boolean isDebugEnabled() {
+        return THRESHOLD == Level.DEBUG;
+    }
+
+    /**
+     * @param fields alternating keys and values, e.g. "id", 42, "ms", 3
+     */
+    public void debug(String message, Object... fields) {
+        log(Level.DEBUG, message, null, fields);
+    }
+
+    public void info(String message, Object... fields) {
+        log(Level.INFO, message, null, fields);
+    }
+
+    public void warn(String message, Object... fields) {
+        log(Level.WARN, message, null, fields);
+    }
+
+    public void warn(String message, Throwable error, Object... fields) {
+        log(Level.WARN, message, error, fields);
+    }
+
+    public void error(String message, Throwable error, Object... fields) {
+        log(Level.ERROR, message, error, fields);
+    }
+
+    public void log(Level level, String message, Throwable error, Object... fields) {
+        if (level.compareTo(THRESHOLD) < 0) {
+            return;
+        }
+        Event event = new Event(System.currentTimeMillis(), level, name, Thread.currentThread().getName(),
+                message, fields, error);
+        if (!RING.offer(event)) {
+            dropped.increment();
+        }
+    }
+
+    /**
+     * Writes out everything buffered so far and stops the writer thread (at most 2 s).
+     */
+    public static void shutdown() {
+        closing = true;
+        LockSupport.unpark(writer);
+        try {
+            writer.join(TimeUnit.SECONDS.toMillis(2));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Lets through one call in {@code every}, starting with the first: for messages
+     * on hot paths that would otherwise flood the log.
+     */
+    public static final class Sampler {
+        private final int every;
+        private final AtomicLong calls = new AtomicLong();
+
+        public Sampler(int every) {
+            if (every < 1) {
+                throw new IllegalArgumentException("every must be positive");
+            }
+            this.every = every;
+        }
+
+        public boolean next() {
+            return calls.getAndIncrement() % every == 0;
+        }
+
+        public int every() {
+            return every;
+        }
+    }
+
+    // --- Writer thread ---
+
+    private static void drainLoop() {
+        Writer out = new BufferedWriter(new OutputStreamWriter(
+                new FileOutputStream(FileDescriptor.err), StandardCharsets.UTF_8), 32 * 1024);
+        StringBuilder line = new StringBuilder(256);
+        long reportedDrops = 0;
+        int idleSpins = 0;
+        while (true) {
+            Event event = RING.poll();
+            if (event == null) {
+                long drops = dropped.sum();
+                if (drops > reportedDrops) {
+                    event = new Event(System.currentTimeMillis(), Level.WARN, "Log", writer.getName(),
+                            "Log buffer full, events dropped", new Object[]{"dropped", drops - reportedDrops}, null);
+                    reportedDrops = drops;
+                }
+            }
+            if (event == null) {
+                flushQuietly(out);
+                if (closing) {
+                    return;
+                }
+                // Короткое ожидание, пока идут события, дальше реже
+                LockSupport.parkNanos(idleSpins < 100 ? 100_000L : 10_000_000L);
+                idleSpins++;
+                continue;
+            }
+            idleSpins = 0;
+            format(line, event);
+            try {
+                out.append(line);
+            } catch (IOException e) {
+                // stderr недоступен: писать больше некуда
+            }
+        }
+    }
+
+    private static void flushQuietly(Writer out) {
+        try {
+            out.flush();
+        } catch (IOException e) {
+            // см. выше
+        }
+    }
+
+    private static void format(StringBuilder line, Event event) {
+        line.setLength(0);
+        line.append("ts=").append(Instant.ofEpochMilli(event.timestamp))
+                .append(" level=").append(event.level)
+                .append(" logger=").append(event.logger)
+                .append(" thread=");
+        appendValue(line, event.thread);
+        line.append(" msg=");
+        appendValue(line, event.message);
+        Object[] fields = event.fields;
+        for (int i = 0; i + 1 < fields.length; i += 2) {
+            line.append(' ').append(fields[i]).append('=');
+            appendValue(line, String.valueOf(fields[i + 1]));
+        }
+        if (event.error != null) {
+            line.append(" error=");
+            appendValue(line, String.valueOf(event.error));
+            line.append('\n');
+            StringWriter trace = new StringWriter();
+            event.error.printStackTrace(new PrintWriter(trace));
+            line.append(trace);
+        } else {
+            line.append('\n');
+        }
+    }
+
+    private static void appendValue(StringBuilder line, String value) {
+        boolean quote = value.isEmpty();
+        for (int i = 0; i < value.length() && !quote; i++) {
+            char c = value.charAt(i);
+            quote = c <= ' ' || c == '"' || c == '=';
+        }
+        if (!quote) {
+            line.append(value);
+            return;
+        }
+        line.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"' || c == '\\') {
+                line.append('\\').append(c);
+            } else if (c == '\n') {
+                line.append("\\n");
+            } else {
+                line.append(c);
+            }
+        }
+        line.append('"');
+    }
+
+    private static Level parseLevel(String name) {
+        try {
+            return Level.valueOf(name.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            return Level.INFO;
+        }
+    }
+
+    private static final class Event {
+        private final long timestamp;
+        private final Level level;
+        private final String logger;
+        private final String thread;
+        private final String message;
+        private final Object[] fields;
+        private final Throwable error;
+
+        private Event(long timestamp, Level level, String logger, String thread, String message,
+                      Object[] fields, Throwable error) {
+            this.timestamp = timestamp;
+            this.level = level;
+            this.logger = logger;
+            this.thread = thread;
+            this.message = message;
+            this.fields = fields;
+            this.error = error;
+        }
+    }
+
+    /**
+     * Bounded multi-producer, single-consumer ring. A producer claims a slot by CAS on
+     * the tail and then publishes the event into it; the consumer treats an empty slot
+     * at the head as "claimed but not yet published" and waits for it.
+     */
+    private static final class Ring {
+        private final AtomicReferenceArray<Event> slots;
+        private final int mask;
+        private final AtomicLong tail = new AtomicLong();
+        private volatile long head;
+
+        private Ring(int requestedCapacity) {
+            int capacity = Integer.highestOneBit(Math.max(2, requestedCapacity - 1)) << 1;
+            this.slots = new AtomicReferenceArray<>(capacity);
+            this.mask = capacity - 1;
+        }
+
+        boolean offer(Event event) {
+            long claimed;
+            do {
+                claimed = tail.get();
+                if (claimed - head >= slots.length()) {
+                    return false;
+                }
+            } while (!tail.compareAndSet(claimed, claimed + 1));
+            slots.set((int) (claimed & mask), event);
+            return true;
+        }
+
+        // Only called by the writer thread
+        Event poll() {
+            int index = (int) (head & mask);
+            Event event = slots.get(index);
+            if (event == null) {
+                return null;
+            }
+            slots.set(index, null);
+            head = head + 1;
+            return event;
+        }
+    }
+}
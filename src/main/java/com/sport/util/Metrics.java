@@ -0,0 +1,296 @@
+package com.sport.util;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.DoubleSupplier;
+import java.util.function.Function;
+
+/**
+ * Process-wide metrics registry with Prometheus text output (see {@link #writePrometheus}).
+ * <ul>
+ *   <li>counters - monotonically increasing, backed by LongAdder</li>
+ *   <li>gauges and counter functions - read from a supplier at scrape time</li>
+ *   <li>timers - exported as summaries: cumulative _count/_sum plus p50/p90/p99/p999
+ *       over the last -Dmetrics.windowSeconds (default 60), from {@link LatencyHistogram}s</li>
+ * </ul>
+ * Metric families are created once (static fields); a labelled series is looked up by its
+ * label values on every use, so keep label values bounded (route templates, not raw paths).
+ */
+public final class Metrics {
+
+    private static final long WINDOW_NANOS = Long.getLong("metrics.windowSeconds", 60) * 1_000_000_000L;
+    private static final int WINDOW_SLICES = 6;
+    private static final double[] QUANTILES = {0.5, 0.9, 0.99, 0.999};
+
+    // Порядок регистрации = порядок в выводе
+    private static final Map<String, Family<?>> families = new ConcurrentHashMap<>();
+    private static final List<Family<?>> ordered = new ArrayList<>();
+
+    static {
+        gauge("process_uptime_seconds", "Time since the JVM started",
+                () -> ManagementFactory.getRuntimeMXBean().getUptime() / 1000.0);
+        gauge("jvm_memory_heap_used_bytes", "Used heap memory",
+                () -> ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed());
+        gauge("jvm_threads_live", "Live JVM threads",
+                () -> ManagementFactory.getThreadMXBean().getThreadCount());
+    }
+
+    private Metrics() {
+        throw new UnsupportedOperationException("Utility class cannot be instantiated");
+    }
+
+    public static Family<Counter> counter(String name, String help, String... labelNames) {
+        return register(new Family<>(name, help, "counter", labelNames, values -> new Counter()));
+    }
+
+    public static Family<Timer> timer(String name, String help, String... labelNames) {
+        return register(new Family<>(name, help, "summary", labelNames, values -> new Timer()));
+    }
+
+    /**
+     * A value read at scrape time, e.g. pool occupancy.
+     */
+    public static void gauge(String name, String help, DoubleSupplier value) {
+        register(new Family<>(name, help, "gauge", new String[0], values -> new Sampled(value))).labels();
+    }
+
+    /**
+     * A counter kept elsewhere (e.g. a LongAdder in the connection pool), read at scrape time.
+     */
+    public static void counterFunction(String name, String help, DoubleSupplier value) {
+        register(new Family<>(name, help, "counter", new String[0], values -> new Sampled(value))).labels();
+    }
+
+    /**
+     * Wraps an implementation so every interface method call is recorded in the timer
+     * with labels (label, method name); calls that throw are also counted in errors.
+     * Both families must have exactly these two labels.
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> T timed(Class<T> type, T target, Family<Timer> timer, Family<Counter> errors, String label) {
+        Map<Method, Timer> timers = new ConcurrentHashMap<>();
+        InvocationHandler handler = (proxy, method, args) -> {
+            if (method.getDeclaringClass() == Object.class) {
+                return method.invoke(target, args);
+            }
+            long start = System.nanoTime();
+            try {
+                return method.invoke(target, args);
+            } catch (InvocationTargetException e) {
+                errors.labels(label, method.getName()).inc();
+                throw e.getCause();
+            } finally {
+                timers.computeIfAbsent(method, m -> timer.labels(label, m.getName()))
+                        .record(System.nanoTime() - start);
+            }
+        };
+        return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, handler);
+    }
+
+    /**
+     * Writes all metrics in the Prometheus text exposition format (version 0.0.4).
+     */
+    public static void writePrometheus(Writer out) throws IOException {
+        List<Family<?>> snapshot;
+        synchronized (ordered) {
+            snapshot = new ArrayList<>(ordered);
+        }
+        StringBuilder line = new StringBuilder(128);
+        for (Family<?> family : snapshot) {
+            if (family.series.isEmpty()) {
+                continue;
+            }
+            out.write("# HELP " + family.name + ' ' + family.help + '\n');
+            out.write("# TYPE " + family.name + ' ' + family.type + '\n');
+            for (Map.Entry<List<String>, ?> entry : family.series.entrySet()) {
+                List<String> values = entry.getKey();
+                Object series = entry.getValue();
+                if (series instanceof Timer) {
+                    Timer timer = (Timer) series;
+                    LatencyHistogram window = timer.window();
+                    for (double quantile : QUANTILES) {
+                        sample(line, family.name, family.labelNames, values, "quantile", String.valueOf(quantile),
+                                window.valueAtQuantile(quantile) / 1e9);
+                        out.append(line);
+                    }
+                    sample(line, family.name + "_sum", family.labelNames, values, null, null, timer.sumNanos.sum() / 1e9);
+                    out.append(line);
+                    sample(line, family.name + "_count", family.labelNames, values, null, null, timer.count.sum());
+                    out.append(line);
+                } else {
+                    double value = series instanceof Counter
+                            ? ((Counter) series).get()
+                            : ((Sampled) series).value.getAsDouble();
+                    sample(line, family.name, family.labelNames, values, null, null, value);
+                    out.append(line);
+                }
+            }
+        }
+        out.flush();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <S> Family<S> register(Family<S> family) {
+        Family<?> existing = families.putIfAbsent(family.name, family);
+        if (existing != null) {
+            if (!existing.type.equals(family.type) || !Arrays.equals(existing.labelNames, family.labelNames)) {
+                throw new IllegalArgumentException("Metric " + family.name + " is already registered differently");
+            }
+            return (Family<S>) existing;
+        }
+        synchronized (ordered) {
+            ordered.add(family);
+        }
+        return family;
+    }
+
+    private static void sample(StringBuilder line, String name, String[] labelNames, List<String> values,
+                               String extraName, String extraValue, double value) {
+        line.setLength(0);
+        line.append(name);
+        if (labelNames.length > 0 || extraName != null) {
+            line.append('{');
+            for (int i = 0; i < labelNames.length; i++) {
+                appendLabel(line, labelNames[i], values.get(i));
+            }
+            if (extraName != null) {
+                appendLabel(line, extraName, extraValue);
+            }
+            line.setCharAt(line.length() - 1, '}');
+        }
+        line.append(' ');
+        if (value == Math.rint(value) && Math.abs(value) < 1e15) {
+            line.append((long) value);
+        } else {
+            line.append(value);
+        }
+        line.append('\n');
+    }
+
+    private static void appendLabel(StringBuilder line, String name, String value) {
+        line.append(name).append("=\"");
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '\\' || c == '"') {
+                line.append('\\').append(c);
+            } else if (c == '\n') {
+                line.append("\\n");
+            } else {
+                line.append(c);
+            }
+        }
+        line.append("\",");
+    }
+
+    /**
+     * A named metric with fixed label names; one series per distinct combination of values.
+     */
+    public static final class Family<S> {
+        private final String name;
+        private final String help;
+        private final String type;
+        private final String[] labelNames;
+        private final Function<List<String>, S> factory;
+        private final Map<List<String>, S> series = new ConcurrentHashMap<>();
+
+        private Family(String name, String help, String type, String[] labelNames, Function<List<String>, S> factory) {
+            this.name = name;
+            this.help = help;
+            this.type = type;
+            this.labelNames = labelNames.clone();
+            this.factory = factory;
+        }
+
+        /**
+         * Returns the series for these label values, creating it on first use.
+         */
+        public S labels(String... values) {
+            if (values.length != labelNames.length) {
+                throw new IllegalArgumentException(name + " expects labels " + Arrays.toString(labelNames));
+            }
+            return series.computeIfAbsent(List.of(values), factory);
+        }
+    }
+
+    public static final class Counter {
+        private final LongAdder value = new LongAdder();
+
+        public void inc() {
+            value.increment();
+        }
+
+        public void add(long amount) {
+            value.add(amount);
+        }
+
+        public long get() {
+            return value.sum();
+        }
+    }
+
+    /**
+     * Durations: cumulative count and sum, quantiles over a sliding window made of
+     * {@value #WINDOW_SLICES} histogram slices that are reused round-robin.
+     */
+    public static final class Timer {
+        private final LongAdder count = new LongAdder();
+        private final LongAdder sumNanos = new LongAdder();
+        private final LatencyHistogram[] slices = new LatencyHistogram[WINDOW_SLICES];
+        private final AtomicLongArray sliceEpochs = new AtomicLongArray(WINDOW_SLICES);
+        private final long sliceNanos = Math.max(1, WINDOW_NANOS / WINDOW_SLICES);
+
+        private Timer() {
+            for (int i = 0; i < WINDOW_SLICES; i++) {
+                slices[i] = new LatencyHistogram();
+            }
+        }
+
+        public void record(long nanos) {
+            count.increment();
+            sumNanos.add(nanos);
+            long epoch = System.nanoTime() / sliceNanos;
+            int slot = (int) Math.floorMod(epoch, (long) WINDOW_SLICES);
+            long seen = sliceEpochs.get(slot);
+            // Слот остался от прошлого круга: сбрасывает тот, кто первым его занял.
+            // Записи, попавшие в момент сброса, могут потеряться - для метрик приемлемо
+            if (seen != epoch && sliceEpochs.compareAndSet(slot, seen, epoch)) {
+                slices[slot].reset();
+            }
+            slices[slot].record(nanos);
+        }
+
+        /**
+         * Merged histogram of the slices that belong to the current window.
+         */
+        LatencyHistogram window() {
+            long epoch = System.nanoTime() / sliceNanos;
+            LatencyHistogram merged = new LatencyHistogram();
+            for (int i = 0; i < WINDOW_SLICES; i++) {
+                if (epoch - sliceEpochs.get(i) < WINDOW_SLICES) {
+                    merged.merge(slices[i]);
+                }
+            }
+            return merged;
+        }
+    }
+
+    private static final class Sampled {
+        private final DoubleSupplier value;
+
+        private Sampled(DoubleSupplier value) {
+            this.value = value;
+        }
+    }
+}
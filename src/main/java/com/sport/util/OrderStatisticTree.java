@@ -0,0 +1,271 @@
+package com.sport.util;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Immutable sorted collection with rank queries (persistent treap with subtree sizes).
+ * insert/remove copy only the path to the changed node, so older versions stay valid
+ * for readers of older snapshots. Lookups, rank and select are O(log N);
+ * reading K consecutive elements is O(K + log N).
+ *
+ * @param <T> the element type
+ */
+public final class OrderStatisticTree<T> {
+
+    private final Comparator<? super T> comparator;
+    private final Node<T> root;
+
+    private OrderStatisticTree(Comparator<? super T> comparator, Node<T> root) {
+        this.comparator = comparator;
+        this.root = root;
+    }
+
+    /**
+     * Creates an empty tree.
+     */
+    public static <T> OrderStatisticTree<T> empty(Comparator<? super T> comparator) {
+        return new OrderStatisticTree<>(comparator, null);
+    }
+
+    /**
+     * Builds a tree from unsorted items in O(N log N). Items comparing equal are collapsed.
+     */
+    public static <T> OrderStatisticTree<T> of(Collection<? extends T> items, Comparator<? super T> comparator) {
+        List<T> sorted = new ArrayList<>(items);
+        sorted.sort(comparator);
+
+        // Cartesian tree over random priorities, built left to right with a stack
+        Deque<MutableNode<T>> rightSpine = new ArrayDeque<>();
+        T previous = null;
+        for (T item : sorted) {
+            if (previous != null && comparator.compare(previous, item) == 0) {
+                continue;
+            }
+            previous = item;
+            MutableNode<T> node = new MutableNode<>(item, ThreadLocalRandom.current().nextInt());
+            MutableNode<T> lastPopped = null;
+            while (!rightSpine.isEmpty() && rightSpine.peek().priority < node.priority) {
+                lastPopped = rightSpine.pop();
+            }
+            node.left = lastPopped;
+            if (!rightSpine.isEmpty()) {
+                rightSpine.peek().right = node;
+            }
+            rightSpine.push(node);
+        }
+        return new OrderStatisticTree<>(comparator, freeze(rightSpine.peekLast()));
+    }
+
+    public int size() {
+        return size(root);
+    }
+
+    public boolean isEmpty() {
+        return root == null;
+    }
+
+    /**
+     * Returns a tree containing the item, replacing an element that compares equal to it.
+     */
+    public OrderStatisticTree<T> insert(T item) {
+        return new OrderStatisticTree<>(comparator, insert(root, item, ThreadLocalRandom.current().nextInt()));
+    }
+
+    /**
+     * Returns a tree without the element comparing equal to the item.
+     */
+    public OrderStatisticTree<T> remove(T item) {
+        Node<T> newRoot = remove(root, item);
+        return newRoot == root ? this : new OrderStatisticTree<>(comparator, newRoot);
+    }
+
+    /**
+     * Returns the element comparing equal to the probe, or null.
+     */
+    public T find(T probe) {
+        Node<T> node = root;
+        while (node != null) {
+            int cmp = comparator.compare(probe, node.value);
+            if (cmp == 0) {
+                return node.value;
+            }
+            node = cmp < 0 ? node.left : node.right;
+        }
+        return null;
+    }
+
+    /**
+     * Returns the element at the given 0-based position in sort order.
+     */
+    public T get(int index) {
+        if (index < 0 || index >= size()) {
+            throw new IndexOutOfBoundsException("Index " + index + " out of bounds for size " + size());
+        }
+        Node<T> node = root;
+        while (true) {
+            int leftSize = size(node.left);
+            if (index < leftSize) {
+                node = node.left;
+            } else if (index == leftSize) {
+                return node.value;
+            } else {
+                index -= leftSize + 1;
+                node = node.right;
+            }
+        }
+    }
+
+    /**
+     * Counts elements sorting strictly before the probe. The probe does not have to be in the tree.
+     */
+    public int countLessThan(T probe) {
+        int count = 0;
+        Node<T> node = root;
+        while (node != null) {
+            if (comparator.compare(probe, node.value) <= 0) {
+                node = node.left;
+            } else {
+                count += size(node.left) + 1;
+                node = node.right;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Returns up to {@code count} consecutive elements starting at position {@code from}.
+     */
+    public List<T> range(int from, int count) {
+        int start = Math.max(0, from);
+        int end = (int) Math.min((long) start + Math.max(0, count), size());
+        if (start >= end) {
+            return List.of();
+        }
+        List<T> result = new ArrayList<>(end - start);
+        collect(root, start, end, 0, result);
+        return Collections.unmodifiableList(result);
+    }
+
+    // --- Treap internals ---
+
+    private Node<T> insert(Node<T> node, T item, int priority) {
+        if (node == null) {
+            return new Node<>(item, priority, null, null);
+        }
+        int cmp = comparator.compare(item, node.value);
+        if (cmp == 0) {
+            return new Node<>(item, node.priority, node.left, node.right);
+        }
+        if (cmp < 0) {
+            Node<T> left = insert(node.left, item, priority);
+            if (left.priority > node.priority) {
+                // rotate right
+                return new Node<>(left.value, left.priority, left.left,
+                        new Node<>(node.value, node.priority, left.right, node.right));
+            }
+            return new Node<>(node.value, node.priority, left, node.right);
+        }
+        Node<T> right = insert(node.right, item, priority);
+        if (right.priority > node.priority) {
+            // rotate left
+            return new Node<>(right.value, right.priority,
+                    new Node<>(node.value, node.priority, node.left, right.left), right.right);
+        }
+        return new Node<>(node.value, node.priority, node.left, right);
+    }
+
+    private Node<T> remove(Node<T> node, T item) {
+        if (node == null) {
+            return null;
+        }
+        int cmp = comparator.compare(item, node.value);
+        if (cmp == 0) {
+            return merge(node.left, node.right);
+        }
+        if (cmp < 0) {
+            Node<T> left = remove(node.left, item);
+            return left == node.left ? node : new Node<>(node.value, node.priority, left, node.right);
+        }
+        Node<T> right = remove(node.right, item);
+        return right == node.right ? node : new Node<>(node.value, node.priority, node.left, right);
+    }
+
+    private Node<T> merge(Node<T> left, Node<T> right) {
+        if (left == null) {
+            return right;
+        }
+        if (right == null) {
+            return left;
+        }
+        if (left.priority > right.priority) {
+            return new Node<>(left.value, left.priority, left.left, merge(left.right, right));
+        }
+        return new Node<>(right.value, right.priority, merge(left, right.left), right.right);
+    }
+
+    private void collect(Node<T> node, int start, int end, int offset, List<T> out) {
+        if (node == null) {
+            return;
+        }
+        int leftSize = size(node.left);
+        int position = offset + leftSize;
+        if (start < position) {
+            collect(node.left, start, end, offset, out);
+        }
+        if (start <= position && position < end) {
+            out.add(node.value);
+        }
+        if (position + 1 < end) {
+            collect(node.right, start, end, position + 1, out);
+        }
+    }
+
+    private static <T> Node<T> freeze(MutableNode<T> node) {
+        if (node == null) {
+            return null;
+        }
+        return new Node<>(node.value, node.priority, freeze(node.left), freeze(node.right));
+    }
+
+    private static int size(Node<?> node) {
+        return node == null ? 0 : node.size;
+    }
+
+    private static final class Node<T> {
+        private final T value;
+        private final int priority;
+        private final Node<T> left;
+        private final Node<T> right;
+        private final int size;
+
+        private Node(T value, int priority, Node<T> left, Node<T> right) {
+            this.value = value;
+            this.priority = priority;
+            this.left = left;
+            this.right = right;
+            this.size = 1 + size(left) + size(right);
+        }
+    }
+
+    /**
+     * Scratch node used only while building a tree in {@link #of}.
+     */
+    private static final class MutableNode<T> {
+        private final T value;
+        private final int priority;
+        private MutableNode<T> left;
+        private MutableNode<T> right;
+
+        private MutableNode(T value, int priority) {
+            this.value = value;
+            this.priority = priority;
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package com.sport.util;
+
+import java.util.List;
+
+/**
+ * One page of a keyset-paginated list. {@code nextCursor} is null on the last page.
+ *
+ * @param <T> the item type
+ */
+public final class Page<T> {
+
+    public static final int DEFAULT_LIMIT = 50;
+    public static final int MAX_LIMIT = 500;
+
+    private final List<T> items;
+    private final int limit;
+    private final boolean hasMore;
+    private final String nextCursor;
+
+    public Page(List<T> items, int limit, String nextCursor) {
+        this.items = items;
+        this.limit = limit;
+        this.hasMore = nextCursor != null;
+        this.nextCursor = nextCursor;
+    }
+
+    public List<T> getItems() {
+        return items;
+    }
+
+    public int getLimit() {
+        return limit;
+    }
+
+    public boolean isHasMore() {
+        return hasMore;
+    }
+
+    public String getNextCursor() {
+        return nextCursor;
+    }
+}
@@ -0,0 +1,104 @@
+package com.sport.util;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Base64;
+import java.util.List;
+
+/**
+ * Opaque keyset pagination cursor: the sort key of the last row of a page plus its ID.
+ * The next page starts strictly after this key, so it is found by an index seek
+ * instead of skipping OFFSET rows. Encoded as URL-safe Base64 of the raw values.
+ */
+public final class PageCursor {
+
+    private static final int FORMAT_VERSION = 1;
+
+    private final List<String> keys;
+    private final int id;
+
+    public PageCursor(int id, String... keys) {
+        this.keys = List.of(keys);
+        this.id = id;
+    }
+
+    /**
+     * Sort key values, in ORDER BY order (the ID comes last and is not included).
+     */
+    public List<String> getKeys() {
+        return keys;
+    }
+
+    public String getKey(int index) {
+        return keys.get(index);
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    public String encode() {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(64);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeByte(FORMAT_VERSION);
+            out.writeByte(keys.size());
+            for (String key : keys) {
+                out.writeUTF(key);
+            }
+            out.writeInt(id);
+        } catch (IOException e) {
+            throw new IllegalStateException(e); // ByteArrayOutputStream не бросает IOException
+        }
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes.toByteArray());
+    }
+
+    /**
+     * Parses a cursor produced by {@link #encode()}.
+     *
+     * @param token    the cursor from the request
+     * @param keyCount number of sort key values the caller's ordering uses
+     * @throws IllegalArgumentException if the token is malformed or belongs to another ordering
+     */
+    public static PageCursor decode(String token, int keyCount) {
+        try {
+            byte[] raw = Base64.getUrlDecoder().decode(token);
+            try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(raw))) {
+                if (in.readUnsignedByte() != FORMAT_VERSION || in.readUnsignedByte() != keyCount) {
+                    throw new IllegalArgumentException("Unsupported cursor");
+                }
+                String[] keys = new String[keyCount];
+                for (int i = 0; i < keyCount; i++) {
+                    keys[i] = in.readUTF();
+                }
+                int id = in.readInt();
+                if (in.available() > 0) {
+                    throw new IllegalArgumentException("Trailing bytes in cursor");
+                }
+                return new PageCursor(id, keys);
+            }
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Truncated cursor", e);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "PageCursor{keys=" + keys + ", id=" + id + '}';
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof PageCursor)) return false;
+        PageCursor that = (PageCursor) o;
+        return id == that.id && keys.equals(that.keys);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * keys.hashCode() + id;
+    }
+}
@@ -0,0 +1,493 @@
+package com.sport.util;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Array;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+/**
+ * Per-statement timing for everything executed through {@link ConnectionPool}.
+ * Statements handed out by the pool are wrapped so each execution is recorded per SQL
+ * template (the SQL text: repositories only use constants) in /api/metrics:
+ * db_query_duration_seconds, db_query_rows_total, db_query_bytes_total,
+ * db_query_errors_total and db_slow_queries_total. Duration is the time spent in the
+ * driver: execute plus fetching rows with next(), not the caller's mapping between rows.
+ * Column getters are not intercepted, so reading a row costs nothing extra; bytes are
+ * therefore recorded for COPY only, where the payload size is known.
+ * <p>
+ * Statements slower than -Ddb.slowQueryMs (default 500; 0 logs every statement, a negative
+ * value disables the log) are logged with their bind parameters. With
+ * -Ddb.explainSampleEvery=N every N-th slow SELECT is re-run in the background as
+ * EXPLAIN (ANALYZE, BUFFERS) and the plan is logged. -Ddb.queryTracing=false turns
+ * the wrapping off altogether.
+ */
+final class QueryTracer {
+
+    static final boolean ENABLED = Boolean.parseBoolean(System.getProperty("db.queryTracing", "true"));
+
+    private static final long SLOW_QUERY_NANOS = TimeUnit.MILLISECONDS.toNanos(Long.getLong("db.slowQueryMs", 500L));
+    private static final int EXPLAIN_SAMPLE_EVERY = Integer.getInteger("db.explainSampleEvery", 0);
+    private static final int EXPLAIN_TIMEOUT_SECONDS = 30;
+
+    // Метки метрик - текст SQL; защита от неограниченного числа разных запросов
+    private static final int MAX_TEMPLATES = 256;
+    private static final int MAX_LABEL_CHARS = 160;
+    private static final int MAX_PARAM_CHARS = 100;
+
+    private static final Log LOG = Log.get(QueryTracer.class);
+
+    private static final Metrics.Family<Metrics.Timer> DURATION = Metrics.timer("db_query_duration_seconds",
+            "Statement execution time including row fetching, per SQL template", "query");
+    private static final Metrics.Family<Metrics.Counter> ROWS = Metrics.counter("db_query_rows_total",
+            "Rows returned or affected", "query");
+    private static final Metrics.Family<Metrics.Counter> BYTES = Metrics.counter("db_query_bytes_total",
+            "Bytes transferred by COPY", "query");
+    private static final Metrics.Family<Metrics.Counter> ERRORS = Metrics.counter("db_query_errors_total",
+            "Statements that failed", "query");
+    private static final Metrics.Family<Metrics.Counter> SLOW = Metrics.counter("db_slow_queries_total",
+            "Statements slower than -Ddb.slowQueryMs", "query");
+
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+    private static final Pattern COLUMN_LIST = Pattern.compile("(?i)\\bSELECT\\s+([^()]{40,}?)\\s+FROM\\b");
+
+    private static final Map<String, Template> templates = new ConcurrentHashMap<>();
+
+    private static final Log.Sampler EXPLAIN_SAMPLE =
+            EXPLAIN_SAMPLE_EVERY > 0 ? new Log.Sampler(EXPLAIN_SAMPLE_EVERY) : null;
+    // Один фоновый поток и короткая очередь: при шквале медленных запросов лишние EXPLAIN отбрасываются
+    private static final ThreadPoolExecutor EXPLAINER = EXPLAIN_SAMPLE == null ? null : newExplainer();
+
+    private QueryTracer() {
+        throw new UnsupportedOperationException("Utility class cannot be instantiated");
+    }
+
+    /**
+     * Wraps a statement obtained from a pooled connection.
+     *
+     * @param sql the SQL it was prepared with, or null for a plain Statement (SQL comes with execute)
+     */
+    static Statement trace(Statement statement, String sql) {
+        if (!ENABLED || isExplain(sql)) {
+            return statement;
+        }
+        Class<?> type = statement instanceof CallableStatement ? CallableStatement.class
+                : statement instanceof PreparedStatement ? PreparedStatement.class
+                : Statement.class;
+        return (Statement) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type},
+                new TracedStatement(statement, sql));
+    }
+
+    /**
+     * Records a COPY. COPY is never reported as slow: its duration follows the payload size.
+     */
+    static void recordCopy(String sql, long nanos, long rows, long bytes, boolean failed) {
+        if (!ENABLED) {
+            return;
+        }
+        Template template = template(sql);
+        template.duration.record(nanos);
+        template.rows.add(rows);
+        template.bytes.add(bytes);
+        if (failed) {
+            template.errors.inc();
+        }
+    }
+
+    private static Template template(String sql) {
+        Template template = templates.get(sql);
+        if (template != null) {
+            return template;
+        }
+        if (templates.size() >= MAX_TEMPLATES) {
+            return Overflow.OTHER;
+        }
+        return templates.computeIfAbsent(sql, s -> {
+            String normalized = WHITESPACE.matcher(s.trim()).replaceAll(" ");
+            return new Template(normalized, label(normalized));
+        });
+    }
+
+    /**
+     * Short metric label: the column list of a SELECT is replaced by its size,
+     * long statements are truncated.
+     */
+    static String label(String normalizedSql) {
+        String text = COLUMN_LIST.matcher(normalizedSql).replaceAll(m ->
+                "SELECT <" + (m.group(1).split(",").length) + " columns> FROM");
+        return text.length() > MAX_LABEL_CHARS ? text.substring(0, MAX_LABEL_CHARS - 3) + "..." : text;
+    }
+
+    private static boolean isExplain(String sql) {
+        return sql != null && sql.stripLeading().regionMatches(true, 0, "EXPLAIN", 0, 7);
+    }
+
+    private static boolean isQuery(String sql) {
+        String text = sql.stripLeading().toUpperCase(Locale.ROOT);
+        return text.startsWith("SELECT") || text.startsWith("WITH");
+    }
+
+    private static void slowQuery(Execution execution) {
+        Template template = execution.template;
+        template.slow.inc();
+        List<Object> fields = new ArrayList<>(12);
+        fields.add("ms");
+        fields.add(execution.nanos / 1_000_000);
+        fields.add("rows");
+        fields.add(execution.rows);
+        if (execution.batchSize > 0) {
+            fields.add("batch");
+            fields.add(execution.batchSize);
+        }
+        fields.add("sql");
+        fields.add(template.sql != null ? template.sql : execution.sql);
+        if (execution.params != null) {
+            fields.add("params");
+            fields.add(formatParams(execution.params));
+        }
+        if (execution.error != null) {
+            fields.add("error");
+            fields.add(execution.error.getMessage());
+        }
+        LOG.warn("Slow query", fields.toArray());
+
+        if (EXPLAIN_SAMPLE != null && execution.error == null && execution.batchSize == 0
+                && isQuery(execution.sql) && EXPLAIN_SAMPLE.next()) {
+            String sql = execution.sql;
+            Object[] params = execution.params;
+            EXPLAINER.execute(() -> explain(sql, params));
+        }
+    }
+
+    /**
+     * Re-runs a slow query under EXPLAIN (ANALYZE, BUFFERS) in a read-only transaction.
+     * ANALYZE executes the statement, which is why only SELECTs are sampled.
+     */
+    private static void explain(String sql, Object[] params) {
+        StringBuilder plan = new StringBuilder();
+        try (Connection conn = DBConnection.getConnection()) {
+            conn.setReadOnly(true);
+            conn.setAutoCommit(false);
+            // Вариант prepareStatement с тремя аргументами не попадает в кеш выражений пула
+            try (PreparedStatement stmt = conn.prepareStatement("EXPLAIN (ANALYZE, BUFFERS) " + sql,
+                    ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+                stmt.setQueryTimeout(EXPLAIN_TIMEOUT_SECONDS);
+                bind(conn, stmt, params);
+                try (ResultSet rs = stmt.executeQuery()) {
+                    while (rs.next()) {
+                        plan.append(rs.getString(1)).append('\n');
+                    }
+                }
+            }
+        } catch (SQLException | RuntimeException e) {
+            LOG.warn("Could not explain slow query", "sql", sql, "error", e.getMessage());
+            return;
+        }
+        LOG.info("Slow query plan", "sql", sql, "params", formatParams(params), "plan", plan);
+    }
+
+    private static void bind(Connection conn, PreparedStatement stmt, Object[] params) throws SQLException {
+        if (params == null) {
+            return;
+        }
+        for (int i = 0; i < params.length; i++) {
+            Object value = params[i];
+            if (value instanceof SqlNull sqlNull) {
+                stmt.setNull(i + 1, sqlNull.type);
+            } else if (value instanceof Array array) {
+                // Массив привязан к соединению, на котором создан
+                stmt.setArray(i + 1, conn.createArrayOf(array.getBaseTypeName(), (Object[]) array.getArray()));
+            } else {
+                stmt.setObject(i + 1, value);
+            }
+        }
+    }
+
+    private static String formatParams(Object[] params) {
+        StringBuilder text = new StringBuilder("[");
+        for (int i = 0; i < params.length; i++) {
+            if (i > 0) {
+                text.append(", ");
+            }
+            Object value = params[i];
+            if (value instanceof String string) {
+                text.append('\'');
+                if (string.length() > MAX_PARAM_CHARS) {
+                    text.append(string, 0, MAX_PARAM_CHARS).append("...");
+                } else {
+                    text.append(string);
+                }
+                text.append('\'');
+            } else {
+                text.append(value == null ? "?" : value);
+            }
+        }
+        return text.append(']').toString();
+    }
+
+    private static ThreadPoolExecutor newExplainer() {
+        return new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(4), r -> {
+            Thread thread = new Thread(r, "slow-query-explain");
+            thread.setDaemon(true);
+            return thread;
+        }, new ThreadPoolExecutor.DiscardPolicy());
+    }
+
+    private static Object call(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Metric series of one SQL text, resolved once.
+     */
+    private static final class Template {
+        // Нормализованный текст; null у общей серии "other"
+        private final String sql;
+        private final Metrics.Timer duration;
+        private final Metrics.Counter rows;
+        private final Metrics.Counter bytes;
+        private final Metrics.Counter errors;
+        private final Metrics.Counter slow;
+
+        private Template(String sql, String label) {
+            this.sql = sql;
+            this.duration = DURATION.labels(label);
+            this.rows = ROWS.labels(label);
+            this.bytes = BYTES.labels(label);
+            this.errors = ERRORS.labels(label);
+            this.slow = SLOW.labels(label);
+        }
+    }
+
+    // Общая серия сверх MAX_TEMPLATES; создаётся только при переполнении
+    private static final class Overflow {
+        private static final Template OTHER = new Template(null, "other");
+    }
+
+    /**
+     * setNull() parameter, kept with its type so EXPLAIN can bind it the same way.
+     */
+    private record SqlNull(int type) {
+        @Override
+        public String toString() {
+            return "NULL";
+        }
+    }
+
+    /**
+     * One execute call. A query is finished when its result set is exhausted or closed
+     * (or the statement is closed or re-executed); only the owning thread touches it.
+     */
+    private static final class Execution {
+        private final Template template;
+        private final String sql;
+        private final Object[] params;
+        private final int batchSize;
+        private long nanos;
+        private long rows;
+        private Throwable error;
+        private boolean finished;
+
+        private Execution(Template template, String sql, Object[] params, int batchSize) {
+            this.template = template;
+            this.sql = sql;
+            this.params = params;
+            this.batchSize = batchSize;
+        }
+
+        private void finish() {
+            if (finished) {
+                return;
+            }
+            finished = true;
+            template.duration.record(nanos);
+            template.rows.add(rows);
+            if (error != null) {
+                template.errors.inc();
+            }
+            if (SLOW_QUERY_NANOS >= 0 && nanos >= SLOW_QUERY_NANOS) {
+                slowQuery(this);
+            }
+        }
+    }
+
+    private static final class TracedStatement implements InvocationHandler {
+        private final Statement target;
+        private final String sql;
+        private final List<Object> params = new ArrayList<>();
+        private int batchSize;
+        private Execution pending;
+
+        private TracedStatement(Statement target, String sql) {
+            this.target = target;
+            this.sql = sql;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+            switch (name) {
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "close":
+                    finishPending();
+                    return call(target, method, args);
+                case "clearParameters":
+                    params.clear();
+                    return call(target, method, args);
+                case "addBatch":
+                    batchSize++;
+                    return call(target, method, args);
+                case "clearBatch":
+                    batchSize = 0;
+                    return call(target, method, args);
+                case "getResultSet":
+                    ResultSet rs = (ResultSet) call(target, method, args);
+                    return pending != null && rs != null ? traceResultSet(rs, pending) : rs;
+                case "execute":
+                case "executeQuery":
+                case "executeUpdate":
+                case "executeLargeUpdate":
+                case "executeBatch":
+                case "executeLargeBatch":
+                    return execute(method, args);
+                default:
+                    break;
+            }
+            if (name.startsWith("set") && args != null && args.length >= 2 && args[0] instanceof Integer index) {
+                recordParam(index, "setNull".equals(name) ? new SqlNull((Integer) args[1]) : args[1]);
+            }
+            return call(target, method, args);
+        }
+
+        private Object execute(Method method, Object[] args) throws Throwable {
+            finishPending();
+            String text = args != null && args.length > 0 && args[0] instanceof String s ? s : sql;
+            if (text == null || isExplain(text)) {
+                return call(target, method, args);
+            }
+            boolean batch = method.getName().endsWith("Batch");
+            Execution execution = new Execution(template(text), text,
+                    batch || params.isEmpty() ? null : params.toArray(), batch ? Math.max(1, batchSize) : 0);
+            if (batch) {
+                batchSize = 0;
+            }
+
+            long start = System.nanoTime();
+            Object result;
+            try {
+                result = call(target, method, args);
+            } catch (Throwable e) {
+                execution.nanos = System.nanoTime() - start;
+                execution.error = e;
+                execution.finish();
+                throw e;
+            }
+            execution.nanos = System.nanoTime() - start;
+
+            if (result instanceof ResultSet rs) {
+                pending = execution;
+                return traceResultSet(rs, execution);
+            }
+            if (result instanceof Boolean hasResultSet) {
+                if (hasResultSet) {
+                    pending = execution;
+                    return result;
+                }
+                execution.rows = Math.max(0, target.getUpdateCount());
+            } else if (result instanceof Number count) {
+                execution.rows = Math.max(0, count.longValue());
+            } else if (result instanceof int[] counts) {
+                for (int count : counts) {
+                    // SUCCESS_NO_INFO (-2): строка обработана, число неизвестно
+                    execution.rows += count == Statement.SUCCESS_NO_INFO ? 1 : Math.max(0, count);
+                }
+            } else if (result instanceof long[] counts) {
+                for (long count : counts) {
+                    execution.rows += count == Statement.SUCCESS_NO_INFO ? 1 : Math.max(0, count);
+                }
+            }
+            execution.finish();
+            return result;
+        }
+
+        private void recordParam(int index, Object value) {
+            while (params.size() < index) {
+                params.add(null);
+            }
+            params.set(index - 1, value);
+        }
+
+        private void finishPending() {
+            if (pending != null) {
+                pending.finish();
+                pending = null;
+            }
+        }
+    }
+
+    private static ResultSet traceResultSet(ResultSet rs, Execution execution) {
+        return new TracedResultSet(rs, execution);
+    }
+
+    /**
+     * Times next() and finishes the execution on exhaustion or close(); every other
+     * call, column getters included, goes straight to the driver's result set.
+     */
+    private static final class TracedResultSet extends ForwardingResultSet {
+        private final Execution execution;
+
+        private TracedResultSet(ResultSet delegate, Execution execution) {
+            super(delegate);
+            this.execution = execution;
+        }
+
+        @Override
+        public boolean next() throws SQLException {
+            long start = System.nanoTime();
+            boolean hasRow;
+            try {
+                hasRow = delegate.next();
+            } catch (SQLException | RuntimeException e) {
+                execution.nanos += System.nanoTime() - start;
+                execution.error = e;
+                execution.finish();
+                throw e;
+            }
+            execution.nanos += System.nanoTime() - start;
+            if (hasRow) {
+                execution.rows++;
+            } else {
+                execution.finish();
+            }
+            return hasRow;
+        }
+
+        @Override
+        public void close() throws SQLException {
+            execution.finish();
+            delegate.close();
+        }
+    }
+}
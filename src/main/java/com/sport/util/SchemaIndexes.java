@@ -0,0 +1,86 @@
+package com.sport.util;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Indexes the repositories' queries rely on. Built once at startup on a background
+ * thread with CREATE INDEX CONCURRENTLY, so neither startup nor requests wait for
+ * them and writes to the tables are never blocked while an index is built.
+ * A concurrent build that failed half-way leaves an INVALID index behind; it is
+ * dropped and built again. Without DDL rights the step is skipped and the queries
+ * still work, only slower. Disabled with -Ddb.createIndexes=false.
+ */
+public final class SchemaIndexes {
+
+    private static final boolean ENABLED = Boolean.parseBoolean(System.getProperty("db.createIndexes", "true"));
+
+    // Имя индекса -> таблица и столбцы; порядок столбцов совпадает с ORDER BY keyset-страниц
+    private static final Map<String, String> INDEXES = new LinkedHashMap<>();
+
+    static {
+        INDEXES.put("idx_players_name_page", "players (last_name, first_name, id)");
+        INDEXES.put("idx_teams_name_page", "teams (name, id)");
+    }
+
+    // NULL - индекса нет; false - остался от неудачной CONCURRENTLY-сборки
+    private static final String IS_VALID = "SELECT indisvalid FROM pg_index WHERE indexrelid = to_regclass(?)";
+
+    private static final Log LOG = Log.get(SchemaIndexes.class);
+
+    private SchemaIndexes() {
+        throw new UnsupportedOperationException("Utility class cannot be instantiated");
+    }
+
+    /**
+     * Starts building missing indexes on a daemon thread and returns immediately.
+     */
+    public static void buildInBackground() {
+        if (!ENABLED) {
+            return;
+        }
+        Thread thread = new Thread(SchemaIndexes::buildAll, "schema-indexes");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    private static void buildAll() {
+        for (Map.Entry<String, String> index : INDEXES.entrySet()) {
+            try {
+                build(index.getKey(), index.getValue());
+            } catch (SQLException e) {
+                LOG.warn("Could not create index", "index", index.getKey(), "error", e.getMessage());
+            }
+        }
+    }
+
+    private static void build(String name, String definition) throws SQLException {
+        // CONCURRENTLY не работает внутри транзакции; соединения пула в режиме autocommit
+        try (Connection conn = DBConnection.getConnection()) {
+            Boolean valid = null;
+            try (PreparedStatement stmt = conn.prepareStatement(IS_VALID)) {
+                stmt.setString(1, name);
+                ResultSet rs = stmt.executeQuery();
+                if (rs.next()) {
+                    valid = rs.getBoolean(1);
+                }
+            }
+            if (Boolean.TRUE.equals(valid)) {
+                return;
+            }
+            long start = System.nanoTime();
+            try (Statement stmt = conn.createStatement()) {
+                if (valid != null) {
+                    stmt.execute("DROP INDEX CONCURRENTLY IF EXISTS " + name);
+                }
+                stmt.execute("CREATE INDEX CONCURRENTLY IF NOT EXISTS " + name + " ON " + definition);
+            }
+            LOG.info("Index created", "index", name, "ms", (System.nanoTime() - start) / 1_000_000);
+        }
+    }
+}
@@ -0,0 +1,200 @@
+package com.sport.util;
+
+import com.sun.net.httpserver.Filter;
+import com.sun.net.httpserver.HttpExchange;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.reflect.Method;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Executor strategies for the HTTP server, selected at startup with -Dserver.executor:
+ * <ul>
+ *   <li>{@code fixed} (default) - fixed platform pool with an unbounded queue; bursts
+ *       wait in the queue, no request is turned away</li>
+ *   <li>{@code bounded} - fixed platform pool with a queue limit; requests beyond the
+ *       limit get 503 instead of piling up behind slow JDBC calls. Opt in once
+ *       -Dserver.queueSize is sized for the expected bursts</li>
+ *   <li>{@code virtual} - one virtual thread per request (Java 21+); blocking JDBC
+ *       only parks the request's own thread, the connection pool bounds DB load</li>
+ * </ul>
+ * Pool size and queue limit come from -Dserver.threads and -Dserver.queueSize.
+ */
+public final class ServerExecutors {
+
+    public enum Mode { BOUNDED, VIRTUAL, FIXED }
+
+    private static final int DEFAULT_THREADS = 10;
+    private static final int DEFAULT_QUEUE_SIZE = 100;
+
+    // Marks the thread that answers rejected requests, see OVERLOAD_FILTER
+    private static final ThreadLocal<Boolean> SHEDDING = ThreadLocal.withInitial(() -> Boolean.FALSE);
+
+    private static final AtomicLong rejectedRequests = new AtomicLong();
+
+    /**
+     * Answers 503 for requests the bounded executor rejected.
+     * Must be added to every context served by a {@link Mode#BOUNDED} executor.
+     */
+    public static final Filter OVERLOAD_FILTER = new Filter() {
+        @Override
+        public void doFilter(HttpExchange exchange, Chain chain) throws IOException {
+            if (!SHEDDING.get()) {
+                chain.doFilter(exchange);
+                return;
+            }
+            byte[] body = JsonUtil.createErrorResponse("Server is overloaded, please retry later")
+                    .getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", "application/json");
+            exchange.getResponseHeaders().set("Retry-After", "1");
+            exchange.sendResponseHeaders(503, body.length);
+            try (OutputStream os = exchange.getResponseBody()) {
+                os.write(body);
+            }
+        }
+
+        @Override
+        public String description() {
+            return "Rejects requests the executor could not queue with 503";
+        }
+    };
+
+    private ServerExecutors() {
+        throw new UnsupportedOperationException("Utility class cannot be instantiated");
+    }
+
+    /**
+     * Creates the executor configured with -Dserver.executor, -Dserver.threads and -Dserver.queueSize.
+     *
+     * @return executor for HttpServer.setExecutor
+     */
+    public static ExecutorService fromSystemProperties() {
+        return create(configuredMode(),
+                Integer.getInteger("server.threads", DEFAULT_THREADS),
+                Integer.getInteger("server.queueSize", DEFAULT_QUEUE_SIZE));
+    }
+
+    /**
+     * Returns the mode selected with -Dserver.executor, {@link Mode#FIXED} if it is not set.
+     */
+    public static Mode configuredMode() {
+        return parseMode(System.getProperty("server.executor", "fixed"));
+    }
+
+    /**
+     * Creates an executor for the HTTP server.
+     *
+     * @param mode      executor strategy
+     * @param threads   platform threads for BOUNDED and FIXED
+     * @param queueSize queued requests allowed for BOUNDED
+     * @return the executor
+     */
+    public static ExecutorService create(Mode mode, int threads, int queueSize) {
+        if (threads < 1 || queueSize < 1) {
+            throw new IllegalArgumentException("threads and queueSize must be positive");
+        }
+        switch (mode) {
+            case VIRTUAL:
+                ExecutorService virtual = newVirtualThreadPerTaskExecutor();
+                if (virtual != null) {
+                    return virtual;
+                }
+                Log.get(ServerExecutors.class).warn("Virtual threads need Java 21+, falling back to the bounded pool",
+                        "javaVersion", Runtime.version());
+                return newBoundedPool(threads, queueSize);
+            case FIXED:
+                return Executors.newFixedThreadPool(threads, namedThreads("http-worker"));
+            case BOUNDED:
+            default:
+                return newBoundedPool(threads, queueSize);
+        }
+    }
+
+    /**
+     * Parses a mode name, case-insensitively.
+     *
+     * @param name bounded, virtual or fixed
+     * @return the mode
+     * @throws IllegalArgumentException for an unknown name
+     */
+    public static Mode parseMode(String name) {
+        try {
+            return Mode.valueOf(name.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unknown server.executor '" + name +
+                    "', expected bounded, virtual or fixed", e);
+        }
+    }
+
+    /**
+     * @return number of requests answered with 503 since startup
+     */
+    public static long getRejectedRequests() {
+        return rejectedRequests.get();
+    }
+
+    private static ExecutorService newBoundedPool(int threads, int queueSize) {
+        // Rejected exchanges still have to be parsed and answered; a single extra thread
+        // does that through OVERLOAD_FILTER. If it falls behind too, the connection is dropped.
+        ThreadPoolExecutor overload = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueSize * 4), namedThreads("http-overload"),
+                new ThreadPoolExecutor.AbortPolicy());
+
+        RejectedExecutionHandler shed = (task, executor) -> {
+            rejectedRequests.incrementAndGet();
+            if (executor.isShutdown()) {
+                throw new RejectedExecutionException("HTTP executor is shut down");
+            }
+            overload.execute(() -> {
+                SHEDDING.set(Boolean.TRUE);
+                try {
+                    task.run();
+                } finally {
+                    SHEDDING.set(Boolean.FALSE);
+                }
+            });
+        };
+
+        return new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueSize), namedThreads("http-worker"), shed) {
+            @Override
+            protected void terminated() {
+                overload.shutdown();
+            }
+        };
+    }
+
+    /**
+     * Executors.newVirtualThreadPerTaskExecutor() looked up reflectively,
+     * so the code still compiles for the Java 17 target. Returns null before Java 21.
+     */
+    private static ExecutorService newVirtualThreadPerTaskExecutor() {
+        try {
+            Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) factory.invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return null;
+        }
+    }
+
+    private static ThreadFactory namedThreads(String prefix) {
+        AtomicInteger counter = new AtomicInteger();
+        return r -> {
+            Thread thread = new Thread(r, prefix + "-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
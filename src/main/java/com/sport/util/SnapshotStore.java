@@ -0,0 +1,343 @@
+package com.sport.util;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+/**
+ * Copy-on-write store for the services' in-memory data pools.
+ * Readers take the current immutable {@link Snapshot} through a volatile read
+ * without locking; writers copy the array, apply their change and publish
+ * the new version atomically, so readers never see an empty or half-written pool.
+ * Registered {@link View}s (indexes, aggregates) are updated by the writer and
+ * published in the same snapshot as the items they describe.
+ *
+ * @param <T> the entity type
+ */
+public class SnapshotStore<T> {
+
+    // Batches larger than this (and than 1/16 of the store) rebuild views instead of updating them
+    private static final int VIEW_REBUILD_THRESHOLD = 64;
+
+    private final Function<T, Integer> idExtractor;
+    private final View<T, ?>[] views;
+    private final Object writeLock = new Object();
+    // id -> index in current.items; owned by writers, guarded by writeLock
+    private final Map<Integer, Integer> positions = new HashMap<>();
+    private volatile Snapshot<T> current;
+
+    public SnapshotStore(Function<T, Integer> idExtractor) {
+        this(idExtractor, List.of());
+    }
+
+    /**
+     * @param idExtractor returns the ID of an item
+     * @param views       derived structures to maintain alongside the items
+     */
+    @SuppressWarnings("unchecked")
+    public SnapshotStore(Function<T, Integer> idExtractor, List<View<T, ?>> views) {
+        this.idExtractor = idExtractor;
+        this.views = (View<T, ?>[]) views.toArray(new View<?, ?>[0]);
+        this.current = new Snapshot<>(new Object[0], buildViews(List.of()), this.views, 0, System.currentTimeMillis());
+    }
+
+    /**
+     * Returns the current snapshot. Use one snapshot for all reads that must agree with each other.
+     *
+     * @return the latest published snapshot
+     */
+    public Snapshot<T> snapshot() {
+        return current;
+    }
+
+    /**
+     * Returns the items of the current snapshot as an unmodifiable list.
+     *
+     * @return the latest items
+     */
+    public List<T> items() {
+        return current.items();
+    }
+
+    /**
+     * Replaces the whole content of the store.
+     *
+     * @param items the new content
+     */
+    public void replaceAll(Collection<? extends T> items) {
+        synchronized (writeLock) {
+            Object[] next = items.toArray();
+            reindex(next, 0);
+            publish(next, buildViews(asList(next)));
+        }
+    }
+
+    /**
+     * Inserts an item or replaces the item with the same ID.
+     *
+     * @param item the item to store
+     */
+    public void put(T item) {
+        Integer id = idExtractor.apply(item);
+        synchronized (writeLock) {
+            Object[] items = current.items;
+            Integer index = positions.get(id);
+            Object[] next;
+            T previous = null;
+            if (index != null) {
+                previous = cast(items[index]);
+                next = items.clone();
+                next[index] = item;
+            } else {
+                next = Arrays.copyOf(items, items.length + 1);
+                next[items.length] = item;
+                positions.put(id, items.length);
+            }
+            Object[] viewValues = current.viewValues.clone();
+            updateViews(viewValues, previous, item);
+            publish(next, viewValues);
+        }
+    }
+
+    /**
+     * Removes the item with the given ID.
+     *
+     * @param id the item ID
+     * @return true if an item was removed
+     */
+    public boolean remove(Integer id) {
+        synchronized (writeLock) {
+            Object[] items = current.items;
+            Integer index = positions.remove(id);
+            if (index == null) {
+                return false;
+            }
+            Object[] next = new Object[items.length - 1];
+            System.arraycopy(items, 0, next, 0, index);
+            System.arraycopy(items, index + 1, next, index, items.length - index - 1);
+            // Items after the removed one moved one slot to the left
+            reindex(next, index);
+            Object[] viewValues = current.viewValues.clone();
+            updateViews(viewValues, cast(items[index]), null);
+            publish(next, viewValues);
+            return true;
+        }
+    }
+
+    /**
+     * Applies a batch of upserts and removals as a single new version.
+     *
+     * @param upserts    items to insert or replace
+     * @param removedIds IDs of items to remove
+     */
+    public void apply(Collection<? extends T> upserts, Collection<Integer> removedIds) {
+        if (upserts.isEmpty() && removedIds.isEmpty()) {
+            return;
+        }
+        synchronized (writeLock) {
+            Object[] items = current.items;
+            int changes = upserts.size() + removedIds.size();
+            boolean rebuildViews = changes > VIEW_REBUILD_THRESHOLD && changes > items.length / 16;
+
+            Object[] next = Arrays.copyOf(items, items.length + upserts.size());
+            Object[] viewValues = rebuildViews ? null : current.viewValues.clone();
+            int size = items.length;
+            for (T item : upserts) {
+                Integer id = idExtractor.apply(item);
+                Integer index = positions.get(id);
+                if (index != null) {
+                    if (!rebuildViews) {
+                        updateViews(viewValues, cast(next[index]), item);
+                    }
+                    next[index] = item;
+                } else {
+                    if (!rebuildViews) {
+                        updateViews(viewValues, null, item);
+                    }
+                    positions.put(id, size);
+                    next[size++] = item;
+                }
+            }
+
+            if (!removedIds.isEmpty()) {
+                Set<Integer> removed = new HashSet<>(removedIds);
+                int kept = 0;
+                for (int i = 0; i < size; i++) {
+                    if (!removed.contains(id(next[i]))) {
+                        next[kept++] = next[i];
+                    } else if (!rebuildViews) {
+                        updateViews(viewValues, cast(next[i]), null);
+                    }
+                }
+                size = kept;
+            }
+
+            Object[] published = size == next.length ? next : Arrays.copyOf(next, size);
+            if (!removedIds.isEmpty()) {
+                reindex(published, 0);
+            }
+            publish(published, rebuildViews ? buildViews(asList(published)) : viewValues);
+        }
+    }
+
+    /**
+     * Refreshes the positions of items[from..]; from == 0 rebuilds the whole map.
+     */
+    private void reindex(Object[] items, int from) {
+        if (from == 0) {
+            positions.clear();
+        }
+        for (int i = from; i < items.length; i++) {
+            positions.put(id(items[i]), i);
+        }
+    }
+
+    private Integer id(Object item) {
+        return idExtractor.apply(cast(item));
+    }
+
+    @SuppressWarnings("unchecked")
+    private T cast(Object item) {
+        return (T) item;
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<T> asList(Object[] items) {
+        return (List<T>) Collections.unmodifiableList(Arrays.asList(items));
+    }
+
+    private Object[] buildViews(List<T> items) {
+        Object[] values = new Object[views.length];
+        for (int i = 0; i < views.length; i++) {
+            values[i] = views[i].build(items);
+        }
+        return values;
+    }
+
+    @SuppressWarnings("unchecked")
+    private void updateViews(Object[] values, T removed, T added) {
+        for (int i = 0; i < views.length; i++) {
+            values[i] = ((View<T, Object>) views[i]).update(values[i], removed, added);
+        }
+    }
+
+    private void publish(Object[] items, Object[] viewValues) {
+        current = new Snapshot<>(items, viewValues, views, current.version + 1, System.currentTimeMillis());
+    }
+
+    /**
+     * Returns a view holding all items sorted by the given order, for listings that must
+     * not follow the insertion order of the items array. The order must be total
+     * (break ties by ID): items comparing equal are collapsed.
+     *
+     * @param order the listing order
+     */
+    public static <T> View<T, OrderStatisticTree<T>> sortedView(Comparator<? super T> order) {
+        return new View<>() {
+            @Override
+            public OrderStatisticTree<T> build(List<T> items) {
+                return OrderStatisticTree.of(items, order);
+            }
+
+            @Override
+            public OrderStatisticTree<T> update(OrderStatisticTree<T> current, T removed, T added) {
+                OrderStatisticTree<T> next = removed != null ? current.remove(removed) : current;
+                return added != null ? next.insert(added) : next;
+            }
+        };
+    }
+
+    /**
+     * Derived structure kept in step with the store content, such as an index.
+     * Values must be immutable: update() returns a new value and leaves the
+     * current one untouched, because readers may still hold older snapshots.
+     *
+     * @param <T> the entity type
+     * @param <V> the view value type
+     */
+    public interface View<T, V> {
+
+        /**
+         * Builds the view from scratch.
+         */
+        V build(List<T> items);
+
+        /**
+         * Applies a single change: {@code removed} is the previous version of the
+         * item (null on insert), {@code added} the new one (null on delete).
+         */
+        V update(V current, T removed, T added);
+    }
+
+    /**
+     * Immutable version of the store content.
+     *
+     * @param <T> the entity type
+     */
+    public static final class Snapshot<T> {
+        private final Object[] items;
+        private final Object[] viewValues;
+        private final View<T, ?>[] views;
+        private final long version;
+        private final long timestamp;
+
+        private Snapshot(Object[] items, Object[] viewValues, View<T, ?>[] views, long version, long timestamp) {
+            this.items = items;
+            this.viewValues = viewValues;
+            this.views = views;
+            this.version = version;
+            this.timestamp = timestamp;
+        }
+
+        /**
+         * Returns the value of a registered view for this snapshot.
+         *
+         * @param view the view passed to the store constructor
+         * @return the view value matching these items
+         */
+        @SuppressWarnings("unchecked")
+        public <V> V view(View<T, V> view) {
+            for (int i = 0; i < views.length; i++) {
+                if (views[i] == view) {
+                    return (V) viewValues[i];
+                }
+            }
+            throw new IllegalArgumentException("View is not registered in this store");
+        }
+
+        @SuppressWarnings("unchecked")
+        public List<T> items() {
+            return (List<T>) Collections.unmodifiableList(Arrays.asList(items));
+        }
+
+        public Stream<T> stream() {
+            return items().stream();
+        }
+
+        public int size() {
+            return items.length;
+        }
+
+        /**
+         * @return a number that grows with every published change
+         */
+        public long version() {
+            return version;
+        }
+
+        /**
+         * @return when this version was published, in epoch milliseconds
+         */
+        public long timestamp() {
+            return timestamp;
+        }
+    }
+}
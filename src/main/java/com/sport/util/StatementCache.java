@@ -0,0 +1,227 @@
+package com.sport.util;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * LRU cache of prepared statements for one pooled connection, keyed by SQL string.
+ * Repository SQL constants are parsed once per physical connection: close() on a
+ * cached statement resets its parameters and keeps it for the next caller.
+ * Only used by the thread that currently holds the connection, so it is not synchronized.
+ */
+class StatementCache {
+
+    private final Connection physical;
+    private final int maxSize;
+    private final LongAdder hits;
+    private final LongAdder misses;
+    private final LongAdder evictions;
+
+    // accessOrder = true: iteration starts at the least recently used statement
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    // Statements prepared while the cached copy of the same SQL was already in use
+    private final List<Entry> uncached = new ArrayList<>();
+
+    StatementCache(Connection physical, int maxSize, LongAdder hits, LongAdder misses, LongAdder evictions) {
+        this.physical = physical;
+        this.maxSize = maxSize;
+        this.hits = hits;
+        this.misses = misses;
+        this.evictions = evictions;
+    }
+
+    /**
+     * Returns a statement for the given SQL, reusing a cached one when possible.
+     *
+     * @param owner the logical connection returned by getConnection() on the statement
+     * @param sql   the SQL text
+     * @return a statement handle; close() returns it to the cache
+     */
+    PreparedStatement prepare(Connection owner, String sql) throws SQLException {
+        Entry entry = entries.get(sql);
+        if (entry != null && !entry.inUse) {
+            hits.increment();
+            return entry.checkOut(owner);
+        }
+
+        misses.increment();
+        PreparedStatement statement = physical.prepareStatement(sql);
+        if (entry != null) {
+            Entry copy = new Entry(sql, statement, false);
+            uncached.add(copy);
+            return copy.checkOut(owner);
+        }
+
+        entry = new Entry(sql, statement, true);
+        entries.put(sql, entry);
+        PreparedStatement handle = entry.checkOut(owner);
+        evictIfNeeded();
+        return handle;
+    }
+
+    /**
+     * Returns statements the caller forgot to close. Called when the
+     * connection goes back to the pool.
+     */
+    void releaseAll() {
+        for (Entry entry : new ArrayList<>(entries.values())) {
+            if (entry.inUse) {
+                checkIn(entry);
+            }
+        }
+        for (Entry entry : new ArrayList<>(uncached)) {
+            checkIn(entry);
+        }
+    }
+
+    int size() {
+        return entries.size();
+    }
+
+    private void checkIn(Entry entry) {
+        entry.inUse = false;
+        entry.generation++;
+        entry.closeResultSets();
+
+        if (!entry.cached) {
+            uncached.remove(entry);
+            closeQuietly(entry.statement);
+            return;
+        }
+
+        try {
+            entry.statement.clearParameters();
+            entry.statement.clearWarnings();
+        } catch (SQLException e) {
+            entries.remove(entry.sql);
+            closeQuietly(entry.statement);
+            return;
+        }
+        evictIfNeeded();
+    }
+
+    private void evictIfNeeded() {
+        Iterator<Entry> it = entries.values().iterator();
+        while (entries.size() > maxSize && it.hasNext()) {
+            Entry eldest = it.next();
+            if (eldest.inUse) {
+                // Evicted once the caller closes it
+                continue;
+            }
+            it.remove();
+            evictions.increment();
+            closeQuietly(eldest.statement);
+        }
+    }
+
+    private static void closeQuietly(PreparedStatement statement) {
+        try {
+            statement.close();
+        } catch (SQLException e) {
+            // Statement is discarded anyway
+        }
+    }
+
+    /**
+     * A physical prepared statement and its checkout state.
+     */
+    private final class Entry {
+        private final String sql;
+        private final PreparedStatement statement;
+        private final boolean cached;
+        private final List<ResultSet> openResultSets = new ArrayList<>();
+        private boolean inUse;
+        // Incremented on every check-in, so stale handles cannot touch the next caller's statement
+        private int generation;
+
+        private Entry(String sql, PreparedStatement statement, boolean cached) {
+            this.sql = sql;
+            this.statement = statement;
+            this.cached = cached;
+        }
+
+        private PreparedStatement checkOut(Connection owner) {
+            inUse = true;
+            return (PreparedStatement) Proxy.newProxyInstance(
+                    PreparedStatement.class.getClassLoader(),
+                    new Class<?>[]{PreparedStatement.class},
+                    new Handle(this, owner, generation));
+        }
+
+        private void closeResultSets() {
+            for (ResultSet rs : openResultSets) {
+                try {
+                    rs.close();
+                } catch (SQLException e) {
+                    // Result set is discarded anyway
+                }
+            }
+            openResultSets.clear();
+        }
+    }
+
+    /**
+     * Logical statement handed to the repository.
+     */
+    private final class Handle implements InvocationHandler {
+        private final Entry entry;
+        private final Connection owner;
+        private final int generation;
+
+        private Handle(Entry entry, Connection owner, int generation) {
+            this.entry = entry;
+            this.owner = owner;
+            this.generation = generation;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            boolean closed = entry.generation != generation;
+            switch (method.getName()) {
+                case "close":
+                    if (!closed) {
+                        checkIn(entry);
+                    }
+                    return null;
+                case "isClosed":
+                    return closed || entry.statement.isClosed();
+                case "getConnection":
+                    return owner;
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return entry.statement.toString();
+                default:
+                    break;
+            }
+
+            if (closed) {
+                throw new SQLException("Statement is closed");
+            }
+
+            Object result;
+            try {
+                result = method.invoke(entry.statement, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+            if (result instanceof ResultSet rs) {
+                entry.openResultSets.add(rs);
+            }
+            return result;
+        }
+    }
+}